@@ -0,0 +1,89 @@
+package com.qianshe.benchmarks.auth;
+
+import com.qianshe.auth.config.CaptchaConfig;
+import com.qianshe.auth.config.CaptchaPoolConfig;
+import com.qianshe.auth.security.CaptchaPool;
+import com.qianshe.auth.security.CaptchaPool.RenderedCaptcha;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图形验证码请求吞吐量（单线程，即每核每秒请求数，不含Redis写入）
+ *
+ * <ul>
+ *     <li>inline：原实现，请求线程上生成文本、渲染图片并编码为JPEG；也是预生成池后台线程生成一份的开销</li>
+ *     <li>pooled：从预生成池取出现成的图片字节并生成验证码标识；池中验证码循环复用，只衡量请求线程的开销</li>
+ * </ul>
+ *
+ * <p>启用预生成池后，持续负载下的总吞吐量受补充线程限制（inline的结果 × 补充线程数），
+ * 池的作用是吸收突发请求、让请求线程不再承担渲染开销</p>
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar CaptchaBenchmark
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Threads(1)
+public class CaptchaBenchmark {
+
+    private static final int POOLED_ENTRIES = 256;
+
+    private CaptchaPool captchaPool;
+    private final Queue<RenderedCaptcha> pooled = new ArrayDeque<>(POOLED_ENTRIES);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CaptchaPoolConfig config = new CaptchaPoolConfig();
+        // 不启动补充线程，避免与被测线程争用CPU
+        config.setEnabled(false);
+        captchaPool = new CaptchaPool(new CaptchaConfig().captchaProducer(), config);
+        for (int i = 0; i < POOLED_ENTRIES; i++) {
+            pooled.add(captchaPool.render());
+        }
+    }
+
+    /**
+     * 原实现：同步生成并编码
+     */
+    @Benchmark
+    public void inline(Blackhole blackhole) {
+        RenderedCaptcha captcha = captchaPool.take();
+        blackhole.consume(UUID.randomUUID().toString());
+        blackhole.consume(captcha.getImage());
+    }
+
+    /**
+     * 预生成池：取出现成的图片字节
+     */
+    @Benchmark
+    public void pooled(Blackhole blackhole) {
+        RenderedCaptcha captcha = pooled.poll();
+        blackhole.consume(UUID.randomUUID().toString());
+        blackhole.consume(captcha.getImage());
+        pooled.add(captcha);
+    }
+}
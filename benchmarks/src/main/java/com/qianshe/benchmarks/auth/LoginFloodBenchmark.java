@@ -0,0 +1,143 @@
+package com.qianshe.benchmarks.auth;
+
+import cn.hutool.crypto.digest.BCrypt;
+import com.qianshe.auth.config.PasswordHashConfig;
+import com.qianshe.auth.exception.ServiceBusyException;
+import com.qianshe.auth.security.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录洪峰压测
+ * 用固定大小的线程池模拟Tomcat请求线程池（队列无界，相当于连接排队），
+ * {@value #FLOOD_CLIENTS}个客户端持续发起登录，同时测量一个普通接口（查询用户信息）的响应时间分布
+ *
+ * <ul>
+ *     <li>inline：原实现，BCrypt在请求线程上计算，登录请求占满全部请求线程，普通接口排在登录之后</li>
+ *     <li>pooled：{@link PasswordHasher}在CPU核数个线程中计算，等待队列只有{@value #HASH_QUEUE_CAPACITY}，
+ *     超出的登录立即以503拒绝，最多核数+队列长度个请求线程等待哈希，其余请求线程始终可用</li>
+ * </ul>
+ *
+ * <p>flood组中userInfo的分位数与userInfoIdle（无登录压力）接近即说明普通接口不受登录洪峰影响，
+ * login的分位数包含503快速拒绝</p>
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar LoginFloodBenchmark
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class LoginFloodBenchmark {
+
+    private static final int SERVLET_THREADS = 32;
+    private static final int FLOOD_CLIENTS = 64;
+    private static final int HASH_QUEUE_CAPACITY = 8;
+    private static final int COST = 10;
+
+    /**
+     * 普通接口的CPU开销（Blackhole令牌数），约为几微秒
+     */
+    private static final long USER_INFO_TOKENS = 2_000;
+
+    private static final String PASSWORD = "qianshe_password";
+
+    @Param({"inline", "pooled"})
+    private String mode;
+
+    private ThreadPoolExecutor servletPool;
+    private PasswordHasher passwordHasher;
+    private String storedHash;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        servletPool = new ThreadPoolExecutor(SERVLET_THREADS, SERVLET_THREADS, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        servletPool.prestartAllCoreThreads();
+
+        PasswordHashConfig config = new PasswordHashConfig();
+        config.setCost(COST);
+        config.setQueueCapacity(HASH_QUEUE_CAPACITY);
+        passwordHasher = new PasswordHasher(config);
+        passwordHasher.init();
+        storedHash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(COST));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        servletPool.shutdownNow();
+        passwordHasher.destroy();
+    }
+
+    /**
+     * 登录洪峰：校验密码，繁忙时返回false（503）
+     */
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(FLOOD_CLIENTS)
+    public boolean login() throws Exception {
+        return request(() -> {
+            if ("inline".equals(mode)) {
+                return BCrypt.checkpw(PASSWORD, storedHash);
+            }
+            try {
+                return passwordHasher.verify(PASSWORD, storedHash);
+            } catch (ServiceBusyException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 登录洪峰期间的普通接口
+     */
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(1)
+    public boolean userInfo() throws Exception {
+        return request(LoginFloodBenchmark::handleUserInfo);
+    }
+
+    /**
+     * 无登录压力时的普通接口，作为对照
+     */
+    @Benchmark
+    public boolean userInfoIdle() throws Exception {
+        return request(LoginFloodBenchmark::handleUserInfo);
+    }
+
+    private boolean request(Callable<Boolean> handler) throws InterruptedException, ExecutionException {
+        return servletPool.submit(handler).get();
+    }
+
+    private static boolean handleUserInfo() {
+        Blackhole.consumeCPU(USER_INFO_TOKENS);
+        return true;
+    }
+}
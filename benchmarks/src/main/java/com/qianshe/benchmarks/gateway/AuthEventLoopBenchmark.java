@@ -0,0 +1,176 @@
+package com.qianshe.benchmarks.gateway;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDaoRedisJackson;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.StpLogic;
+import com.qianshe.benchmarks.support.EmbeddedRedis;
+import com.qianshe.common.constants.CommonConstants;
+import com.qianshe.gateway.security.ReactiveSaTokenDao;
+import com.qianshe.gateway.security.TokenLoginResolver;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 鉴权事件循环占用基准测试（需要Redis）
+ * 用一个单线程执行器模拟Netty事件循环，每次操作在其上并发发起{@value #CONCURRENCY}个令牌解析，
+ * 对比原同步实现（Sa-Token Redis存储 + 同步管道读取）与{@link TokenLoginResolver}响应式实现
+ *
+ * <ul>
+ *     <li>score：每秒完成的鉴权次数</li>
+ *     <li>eventLoopBusyMillis：事件循环线程每秒被占用的毫秒数，1000即100%；
+ *     同步实现在等待Redis响应期间一直占用线程，响应式实现只在发出命令时占用</li>
+ * </ul>
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar AuthEventLoopBenchmark
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthEventLoopBenchmark {
+
+    private static final int CONCURRENCY = 64;
+
+    private static final String TOKEN_NAME = "Authorization";
+
+    @Param({"blocking", "reactive"})
+    private String mode;
+
+    private EmbeddedRedis redis;
+    private SaTokenDaoRedisJackson saTokenDao;
+    private TokenLoginResolver tokenLoginResolver;
+    private final StpLogic userLogic = new StpLogic("user");
+    private String token;
+
+    private ThreadPoolExecutor eventLoopExecutor;
+    private Scheduler eventLoop;
+    private final LongAdder busyNanos = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        redis = EmbeddedRedis.start();
+        SaManager.setConfig(new cn.dev33.satoken.config.SaTokenConfig().setTokenName(TOKEN_NAME));
+        saTokenDao = new SaTokenDaoRedisJackson();
+        saTokenDao.init(redis.connectionFactory());
+        SaManager.setSaTokenDao(saTokenDao);
+
+        token = "user" + CommonConstants.Token.TYPE_SEPARATOR + "0d6b0c5e2f8a4e6b9f3c1a7d5e2b8c4f";
+        saTokenDao.set(userLogic.splicingKeyTokenValue(token), "10001", 3600);
+        SaSession tokenSession = userLogic.getTokenSessionByToken(token);
+        tokenSession.set(CommonConstants.Token.SESSION_ROLES, List.of("user"));
+
+        tokenLoginResolver = new TokenLoginResolver(new ReactiveSaTokenDao(redis.reactiveTemplate()));
+
+        // 单线程执行器模拟事件循环，统计任务执行时间即线程被占用的时间
+        eventLoopExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+
+            private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                startedAt.set(System.nanoTime());
+            }
+
+            @Override
+            protected void afterExecute(Runnable task, Throwable error) {
+                busyNanos.add(System.nanoTime() - startedAt.get());
+            }
+        };
+        eventLoop = Schedulers.fromExecutorService(eventLoopExecutor, "event-loop");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        eventLoop.dispose();
+        eventLoopExecutor.shutdownNow();
+        redis.close();
+    }
+
+    /**
+     * 事件循环占用统计
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class EventLoopCounters {
+
+        public double eventLoopBusyMillis;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            eventLoopBusyMillis = 0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public void authenticate(EventLoopCounters counters) {
+        Flux.range(0, CONCURRENCY)
+                .flatMap(i -> Mono.defer(this::resolve).subscribeOn(eventLoop), CONCURRENCY)
+                .then()
+                .block();
+        // 辅助计数器按迭代时长归一化，即每秒占用的毫秒数
+        counters.eventLoopBusyMillis += busyNanos.sumThenReset() / 1e6;
+    }
+
+    private Mono<?> resolve() {
+        return "blocking".equals(mode)
+                ? Mono.justOrEmpty(blockingResolve())
+                : tokenLoginResolver.resolve(token);
+    }
+
+    /**
+     * 原实现：在调用线程上通过Sa-Token的Redis模板同步管道读取登录ID、剩余有效期和token会话
+     */
+    private Object blockingResolve() {
+        byte[] tokenKey = userLogic.splicingKeyTokenValue(token).getBytes(StandardCharsets.UTF_8);
+        byte[] sessionKey = userLogic.splicingKeyTokenSession(token).getBytes(StandardCharsets.UTF_8);
+        List<Object> results = saTokenDao.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            pipeline(connection, tokenKey, sessionKey);
+            return null;
+        }, RedisSerializer.byteArray());
+        byte[] sessionBytes = (byte[]) results.get(2);
+        return sessionBytes == null ? null
+                : saTokenDao.objectRedisTemplate.getValueSerializer().deserialize(sessionBytes);
+    }
+
+    private static void pipeline(RedisConnection connection, byte[] tokenKey, byte[] sessionKey) {
+        connection.stringCommands().get(tokenKey);
+        connection.keyCommands().ttl(tokenKey);
+        connection.stringCommands().get(sessionKey);
+    }
+}
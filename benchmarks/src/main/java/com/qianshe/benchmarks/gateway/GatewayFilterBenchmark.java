@@ -0,0 +1,158 @@
+package com.qianshe.benchmarks.gateway;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.reactor.spring.SaTokenContextForSpringReactor;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.StpLogic;
+import com.qianshe.benchmarks.support.Exchanges;
+import com.qianshe.common.constants.CommonConstants;
+import com.qianshe.gateway.config.AccessLogConfig;
+import com.qianshe.gateway.config.IpBlackListConfig;
+import com.qianshe.gateway.config.RateLimiterRuleConfig;
+import com.qianshe.gateway.config.TokenCacheConfig;
+import com.qianshe.gateway.config.WhiteListConfig;
+import com.qianshe.gateway.filter.AuthFilter;
+import com.qianshe.gateway.filter.LoggingFilter;
+import com.qianshe.gateway.logging.AccessLogWriter;
+import com.qianshe.gateway.metrics.GatewayTimers;
+import com.qianshe.gateway.security.ReactiveSaTokenDao;
+import com.qianshe.gateway.security.SecurityConfigHolder;
+import com.qianshe.gateway.security.TokenLoginResolver;
+import com.qianshe.gateway.security.TokenNearCache;
+import com.qianshe.gateway.security.WhiteListMatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关过滤器基准测试（不依赖Redis）
+ * 每次操作新建一个请求并执行一次被测过滤器，过滤器链末端直接完成；
+ * {@link #baseline()}只创建请求，其他结果减去基线即为过滤器本身的开销
+ *
+ * <ul>
+ *     <li>LoggingFilter：INFO级别下的访问日志记录与路由耗时统计，访问日志输出到NOPAppender</li>
+ *     <li>AuthFilter鉴权：令牌存放在Sa-Token内存存储中，内存存储没有响应式实现，解析在弹性线程池中执行；
+ *     近端缓存不启用（需要Redis订阅），每次请求都解析令牌。Redis存储下的对比见AuthEventLoopBenchmark</li>
+ * </ul>
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar GatewayFilterBenchmark -prof gc
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayFilterBenchmark {
+
+    private static final String TOKEN_NAME = "Authorization";
+    private static final String PATH = "/api/creative-seeds/1";
+    private static final String WHITELISTED_PATH = "/auth/login";
+    private static final WebFilterChain TERMINAL_WEB_CHAIN = exchange -> Mono.empty();
+
+    private final InetSocketAddress remoteAddress = new InetSocketAddress("10.1.2.3", 52000);
+    private final Route route = Exchanges.route("fantasy-core");
+
+    private SecurityConfigHolder securityConfigHolder;
+    private AccessLogWriter accessLogWriter;
+    private LoggingFilter loggingFilter;
+    private AuthFilter authFilter;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        WhiteListConfig whiteListConfig = new WhiteListConfig();
+        whiteListConfig.setWhiteList(List.of("/auth", "/api/captcha", "/actuator"));
+        securityConfigHolder = new SecurityConfigHolder(whiteListConfig, new IpBlackListConfig(),
+                new RateLimiterRuleConfig());
+        securityConfigHolder.init();
+        WhiteListMatcher whiteListMatcher = new WhiteListMatcher(securityConfigHolder);
+        GatewayTimers gatewayTimers = new GatewayTimers(new SimpleMeterRegistry());
+
+        accessLogWriter = new AccessLogWriter(new AccessLogConfig());
+        accessLogWriter.start();
+        loggingFilter = new LoggingFilter(whiteListMatcher, accessLogWriter, gatewayTimers);
+
+        // Sa-Token使用内存存储，预先写入一个user账号体系的令牌及其会话
+        SaManager.setConfig(new cn.dev33.satoken.config.SaTokenConfig().setTokenName(TOKEN_NAME));
+        SaManager.setSaTokenContext(new SaTokenContextForSpringReactor());
+        StpLogic userLogic = new StpLogic("user");
+        token = "user" + CommonConstants.Token.TYPE_SEPARATOR + "0d6b0c5e2f8a4e6b9f3c1a7d5e2b8c4f";
+        SaManager.getSaTokenDao().set(userLogic.splicingKeyTokenValue(token), "10001", 3600);
+        SaSession tokenSession = userLogic.getTokenSessionByToken(token);
+        tokenSession.set(CommonConstants.Token.SESSION_ROLES, List.of("user"));
+
+        TokenCacheConfig tokenCacheConfig = new TokenCacheConfig();
+        tokenCacheConfig.setEnabled(false);
+        TokenNearCache tokenNearCache = new TokenNearCache(tokenCacheConfig, null);
+        TokenLoginResolver tokenLoginResolver = new TokenLoginResolver(new ReactiveSaTokenDao(null));
+        authFilter = new AuthFilter(whiteListMatcher, tokenLoginResolver, tokenNearCache, gatewayTimers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        accessLogWriter.stop();
+        securityConfigHolder.destroy();
+    }
+
+    /**
+     * 基线：只创建请求并执行空的过滤器链
+     */
+    @Benchmark
+    public Void baseline() {
+        ServerWebExchange exchange = Exchanges.get(route, PATH, remoteAddress);
+        return Exchanges.TERMINAL_CHAIN.filter(exchange).block();
+    }
+
+    /**
+     * LoggingFilter：访问日志入队 + 路由耗时统计
+     */
+    @Benchmark
+    public Void loggingFilter() {
+        ServerWebExchange exchange = Exchanges.get(route, PATH, remoteAddress);
+        return loggingFilter.filter(exchange, Exchanges.TERMINAL_CHAIN).block();
+    }
+
+    /**
+     * 鉴权：携带有效令牌
+     */
+    @Benchmark
+    public Void authFilter() {
+        ServerWebExchange exchange = Exchanges.get(route, PATH, remoteAddress, TOKEN_NAME, token,
+                HttpHeaders.ACCEPT, "application/json");
+        return authFilter.filter(exchange, TERMINAL_WEB_CHAIN).block();
+    }
+
+    /**
+     * 鉴权：白名单路径直接放行
+     */
+    @Benchmark
+    public Void authFilterWhitelisted() {
+        ServerWebExchange exchange = Exchanges.get(route, WHITELISTED_PATH, remoteAddress);
+        return authFilter.filter(exchange, TERMINAL_WEB_CHAIN).block();
+    }
+}
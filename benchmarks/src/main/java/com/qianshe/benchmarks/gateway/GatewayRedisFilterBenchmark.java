@@ -0,0 +1,171 @@
+package com.qianshe.benchmarks.gateway;
+
+import com.qianshe.benchmarks.support.EmbeddedRedis;
+import com.qianshe.benchmarks.support.Exchanges;
+import com.qianshe.gateway.config.IpBlackListConfig;
+import com.qianshe.gateway.config.RateLimiterRuleConfig;
+import com.qianshe.gateway.config.WhiteListConfig;
+import com.qianshe.gateway.filter.IpBlackListFilter;
+import com.qianshe.gateway.filter.RateLimitFilter;
+import com.qianshe.gateway.metrics.GatewayTimers;
+import com.qianshe.gateway.ratelimit.LocalRateLimitTier;
+import com.qianshe.gateway.ratelimit.RateLimitMetrics;
+import com.qianshe.gateway.ratelimit.RedisRateLimitEngine;
+import com.qianshe.gateway.security.IpBlacklist;
+import com.qianshe.gateway.security.SecurityConfigHolder;
+import com.qianshe.gateway.security.WhiteListMatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关过滤器基准测试（依赖Redis）
+ * 每次操作新建一个请求并执行一次被测过滤器，过滤器链末端直接完成；
+ * {@link #baseline()}只创建请求，其他结果减去基线即为过滤器本身的开销
+ *
+ * <ul>
+ *     <li>IpBlackListFilter：静态黑名单前缀树 + 动态黑名单布隆过滤器，客户端地址不在黑名单中，
+ *     布隆过滤器加载完成后不访问Redis</li>
+ *     <li>RateLimitFilter：路由级、路径与分级配额合并为一次组合脚本调用，容量足够大不会触发限流；
+ *     localTier=true时优先消费本地租约</li>
+ * </ul>
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar GatewayRedisFilterBenchmark -prof gc
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayRedisFilterBenchmark {
+
+    private static final String PATH = "/api/creative-seeds/1";
+    private static final int CAPACITY = Integer.MAX_VALUE / 2;
+    private static final int RATE = 1_000_000;
+    private static final long BLOOM_LOAD_TIMEOUT_MILLIS = 10_000;
+
+    @Param({"false", "true"})
+    private boolean localTier;
+
+    private final InetSocketAddress remoteAddress = new InetSocketAddress("10.1.2.3", 52000);
+    private final Route route = Exchanges.route("fantasy-core");
+
+    private EmbeddedRedis redis;
+    private SecurityConfigHolder securityConfigHolder;
+    private IpBlacklist ipBlacklist;
+    private IpBlackListFilter ipBlackListFilter;
+    private RateLimitFilter rateLimitFilter;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        redis = EmbeddedRedis.start();
+        ReactiveRedisTemplate<String, String> redisTemplate = redis.reactiveTemplate();
+        GatewayTimers gatewayTimers = new GatewayTimers(new SimpleMeterRegistry());
+
+        IpBlackListConfig ipBlackListConfig = new IpBlackListConfig();
+        ipBlackListConfig.setIp("192.168.100.0/24,203.0.113.7,2001:db8::/32");
+        ipBlackListConfig.getBloom().setKeyspaceEvents(false);
+        RateLimiterRuleConfig ruleConfig = new RateLimiterRuleConfig();
+        ruleConfig.setDefaultCapacity(CAPACITY);
+        ruleConfig.setDefaultRate(RATE);
+        ruleConfig.setRouteDefault(rule(null));
+        ruleConfig.setRules(List.of(rule("/api/creative-seeds")));
+        ruleConfig.getLocalTier().setEnabled(localTier);
+        ruleConfig.getLocalTier().setLeaseSize(1000);
+        securityConfigHolder = new SecurityConfigHolder(new WhiteListConfig(), ipBlackListConfig, ruleConfig);
+        securityConfigHolder.init();
+
+        ipBlacklist = new IpBlacklist(ipBlackListConfig, redisTemplate, redis.connectionFactory(),
+                securityConfigHolder);
+        ipBlacklist.init();
+        awaitBloomLoaded();
+        ipBlackListFilter = new IpBlackListFilter(ipBlacklist, gatewayTimers);
+
+        RedisRateLimitEngine engine = new RedisRateLimitEngine(redisTemplate);
+        engine.preload();
+        WhiteListMatcher whiteListMatcher = new WhiteListMatcher(securityConfigHolder);
+        rateLimitFilter = new RateLimitFilter(engine, new LocalRateLimitTier(engine, ruleConfig),
+                securityConfigHolder, whiteListMatcher, new RateLimitMetrics(new SimpleMeterRegistry()),
+                gatewayTimers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ipBlacklist.destroy();
+        securityConfigHolder.destroy();
+        redis.close();
+    }
+
+    /**
+     * 基线：只创建请求并执行空的过滤器链
+     */
+    @Benchmark
+    public Void baseline() {
+        ServerWebExchange exchange = Exchanges.get(route, PATH, remoteAddress);
+        return Exchanges.TERMINAL_CHAIN.filter(exchange).block();
+    }
+
+    /**
+     * IpBlackListFilter：未命中黑名单
+     */
+    @Benchmark
+    public Void ipBlackListFilter() {
+        ServerWebExchange exchange = Exchanges.get(route, PATH, remoteAddress);
+        return ipBlackListFilter.filter(exchange, Exchanges.TERMINAL_CHAIN).block();
+    }
+
+    /**
+     * RateLimitFilter：限流检查通过
+     */
+    @Benchmark
+    public Void rateLimitFilter() {
+        ServerWebExchange exchange = Exchanges.get(route, PATH, remoteAddress);
+        return rateLimitFilter.filter(exchange, Exchanges.TERMINAL_CHAIN).block();
+    }
+
+    /**
+     * 等待动态黑名单布隆过滤器首次加载完成，未加载时每个请求都会访问Redis
+     */
+    private void awaitBloomLoaded() throws InterruptedException {
+        byte[] address = remoteAddress.getAddress().getAddress();
+        long deadline = System.currentTimeMillis() + BLOOM_LOAD_TIMEOUT_MILLIS;
+        while (ipBlacklist.mightBeDynamicBlocked(address)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("动态黑名单布隆过滤器加载超时");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static RateLimiterRuleConfig.RateLimiterRule rule(String path) {
+        RateLimiterRuleConfig.RateLimiterRule rule = new RateLimiterRuleConfig.RateLimiterRule();
+        rule.setPath(path);
+        rule.setCapacity(CAPACITY);
+        rule.setRate(RATE);
+        return rule;
+    }
+}
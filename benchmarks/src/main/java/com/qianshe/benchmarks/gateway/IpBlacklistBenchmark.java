@@ -0,0 +1,120 @@
+package com.qianshe.benchmarks.gateway;
+
+import com.qianshe.gateway.security.IpBloomFilter;
+import com.qianshe.gateway.security.IpRadixTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IP黑名单基准测试
+ * 在100万条目规模下对比原HashSet字符串精确匹配、布隆过滤器预判和CIDR前缀树查询，
+ * 探测地址一半命中一半未命中
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar IpBlacklistBenchmark -prof gc
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IpBlacklistBenchmark {
+
+    @Param({"1000000"})
+    private int entryCount;
+
+    private Set<String> hashSet;
+    private IpBloomFilter bloomFilter;
+    private IpRadixTrie radixTrie;
+
+    private InetAddress[] probes;
+    private int cursor;
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        Random random = new Random(42);
+        hashSet = new HashSet<>(entryCount * 2);
+        bloomFilter = new IpBloomFilter(entryCount, 0.01);
+        List<String> cidrs = new ArrayList<>(entryCount);
+        int[] blocked = new int[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            int value = random.nextInt();
+            blocked[i] = value;
+            String ip = toIp(value);
+            hashSet.add(ip);
+            bloomFilter.put(toBytes(value));
+            // 前缀树中混合单IP、/24网段和IPv6前缀
+            cidrs.add(switch (i % 10) {
+                case 0 -> toIp(value & 0xffffff00) + "/24";
+                case 1 -> String.format("2001:db8:%x:%x::/64", value >>> 16, value & 0xffff);
+                default -> ip;
+            });
+        }
+        radixTrie = IpRadixTrie.compile(cidrs);
+
+        probes = new InetAddress[64];
+        for (int i = 0; i < probes.length; i++) {
+            int value = i % 2 == 0 ? blocked[random.nextInt(entryCount)] : random.nextInt();
+            probes[i] = InetAddress.getByAddress(toBytes(value));
+        }
+    }
+
+    private InetAddress nextProbe() {
+        return probes[cursor++ & (probes.length - 1)];
+    }
+
+    /**
+     * 原实现：转为字符串后在HashSet中精确匹配
+     */
+    @Benchmark
+    public boolean hashSetContains() {
+        return hashSet.contains(nextProbe().getHostAddress());
+    }
+
+    /**
+     * 布隆过滤器预判，直接使用原始地址字节
+     */
+    @Benchmark
+    public boolean bloomMightContain() {
+        return bloomFilter.mightContain(nextProbe().getAddress());
+    }
+
+    /**
+     * CIDR前缀树查询，直接使用原始地址字节
+     */
+    @Benchmark
+    public boolean radixTrieContains() {
+        return radixTrie.contains(nextProbe().getAddress());
+    }
+
+    private static String toIp(int value) {
+        return (value >>> 24) + "." + (value >>> 16 & 0xff) + "." + (value >>> 8 & 0xff) + "." + (value & 0xff);
+    }
+
+    private static byte[] toBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+}
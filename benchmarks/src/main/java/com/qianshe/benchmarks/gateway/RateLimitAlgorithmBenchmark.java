@@ -0,0 +1,87 @@
+package com.qianshe.benchmarks.gateway;
+
+import com.qianshe.benchmarks.support.EmbeddedRedis;
+import com.qianshe.gateway.ratelimit.CompositeLimit;
+import com.qianshe.gateway.ratelimit.RateLimitAlgorithm;
+import com.qianshe.gateway.ratelimit.RateLimitDecision;
+import com.qianshe.gateway.ratelimit.RateLimitPolicy;
+import com.qianshe.gateway.ratelimit.RedisRateLimitEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流算法吞吐量基准测试
+ * 对比令牌桶、GCRA、滑动窗口日志三种算法在同一Redis上的每秒限流判定次数，
+ * 每次判定对应一次EVALSHA，脚本内分别执行3、2、4条Redis命令
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar RateLimitAlgorithmBenchmark
+ * java -jar benchmarks/target/benchmarks.jar RateLimitAlgorithmBenchmark -p algorithm=GCRA -t 16
+ * </pre>
+ * 关注 score(ops/s)；策略参数足够大，保证测量期间不会触发限流
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimitAlgorithmBenchmark {
+
+    private static final String KEY = "rate_limit:{10.0.0.1}:/api/v1/resource/list";
+
+    private static final int CAPACITY = 1_000_000_000;
+    private static final int RATE = 1_000_000;
+
+    /**
+     * 滑动窗口日志的有序集合大小与窗口内请求数成正比，窗口取1秒
+     */
+    private static final int WINDOW = 1;
+
+    @Param({"TOKEN_BUCKET", "GCRA", "SLIDING_WINDOW_LOG"})
+    private RateLimitAlgorithm algorithm;
+
+    private EmbeddedRedis redis;
+    private RedisRateLimitEngine engine;
+    private CompositeLimit limit;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        redis = EmbeddedRedis.start();
+        engine = new RedisRateLimitEngine(redis.reactiveTemplate());
+        engine.preload();
+        limit = CompositeLimit.of(KEY, RateLimitPolicy.of("benchmark", algorithm, CAPACITY, RATE, WINDOW));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        redis.close();
+    }
+
+    @Benchmark
+    public RateLimitDecision tryAcquire() {
+        RateLimitDecision decision = engine.tryAcquire(limit).block();
+        if (decision == null || !decision.isAllowed()) {
+            throw new IllegalStateException("基准测试期间触发了限流，请调大策略参数");
+        }
+        return decision;
+    }
+}
@@ -0,0 +1,145 @@
+package com.qianshe.benchmarks.gateway;
+
+import com.qianshe.benchmarks.support.EmbeddedRedis;
+import com.qianshe.gateway.ratelimit.CompositeLimit;
+import com.qianshe.gateway.ratelimit.RateLimitDecision;
+import com.qianshe.gateway.ratelimit.RateLimitPolicy;
+import com.qianshe.gateway.ratelimit.RedisRateLimitEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流脚本执行基准测试
+ * 对比每次请求构建脚本和参数（原RateLimitFilter实现）与{@link RedisRateLimitEngine}的EVALSHA执行，
+ * 以及路由级+路径两个令牌桶分两次调用与合并为一次组合脚本调用的差异
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar RateLimitScriptBenchmark -prof gc
+ * </pre>
+ * 关注 score(us/op) 与 gc.alloc.rate.norm(B/op)
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitScriptBenchmark {
+
+    private static final String KEY = "rate_limit:{10.0.0.1}:/api/v1/resource/list";
+
+    private static final String ROUTE_KEY = "rate_limit:{10.0.0.1}:route:stellar-bridge";
+
+    /**
+     * 原实现使用的单令牌桶脚本
+     */
+    private static final String LEGACY_SCRIPT = String.join("\n",
+            "local key = KEYS[1]",
+            "local capacity = tonumber(ARGV[1])",
+            "local timestamp = tonumber(ARGV[2])",
+            "local rate = tonumber(ARGV[3])",
+            "local window = tonumber(ARGV[4])",
+            "local bucket = redis.call('hgetall', key)",
+            "if table.getn(bucket) == 0 then",
+            "  redis.call('hset', key, 'tokens', capacity, 'timestamp', timestamp)",
+            "  redis.call('expire', key, window)",
+            "  return capacity - 1",
+            "end",
+            "local new_tokens = math.min(capacity, tonumber(bucket[2]) + (timestamp - tonumber(bucket[4])) * rate)",
+            "if new_tokens < 1 then",
+            "  return -1",
+            "end",
+            "redis.call('hset', key, 'tokens', new_tokens - 1, 'timestamp', timestamp)",
+            "redis.call('expire', key, window)",
+            "return new_tokens - 1");
+
+    private static final int CAPACITY = Integer.MAX_VALUE / 2;
+    private static final int RATE = 1_000_000;
+    private static final int WINDOW = 60;
+
+    private EmbeddedRedis redis;
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private RedisRateLimitEngine engine;
+    private RateLimitPolicy policy;
+    private CompositeLimit pathLimit;
+    private CompositeLimit routeLimit;
+    private CompositeLimit compositeLimit;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.reactiveTemplate();
+        engine = new RedisRateLimitEngine(redisTemplate);
+        engine.preload();
+        policy = RateLimitPolicy.of(CAPACITY, RATE, WINDOW);
+        pathLimit = CompositeLimit.of(KEY, policy);
+        routeLimit = CompositeLimit.of(ROUTE_KEY, policy);
+        compositeLimit = CompositeLimit.of(ROUTE_KEY, policy, KEY, policy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        redis.close();
+    }
+
+    /**
+     * 原实现：每次请求新建RedisScript和参数列表
+     */
+    @Benchmark
+    public Long perRequestScript() {
+        RedisScript<Long> redisScript = RedisScript.of(LEGACY_SCRIPT, Long.class);
+        List<String> keys = Arrays.asList(KEY);
+        List<String> argsList = new ArrayList<>();
+        argsList.add(String.valueOf(CAPACITY));
+        argsList.add(String.valueOf(Instant.now().getEpochSecond()));
+        argsList.add(String.valueOf(RATE));
+        argsList.add(String.valueOf(WINDOW));
+        return redisTemplate.execute(redisScript, keys, argsList).next().block();
+    }
+
+    /**
+     * 限流引擎：预加载脚本 + 预编码参数 + EVALSHA
+     */
+    @Benchmark
+    public RateLimitDecision preloadedEngine() {
+        return engine.tryAcquire(pathLimit).block();
+    }
+
+    /**
+     * 路由级与路径两个令牌桶分别执行脚本（原RequestRateLimiter + RateLimitFilter）
+     */
+    @Benchmark
+    public RateLimitDecision twoBucketsSeparateCalls() {
+        engine.tryAcquire(routeLimit).block();
+        return engine.tryAcquire(pathLimit).block();
+    }
+
+    /**
+     * 路由级与路径两个令牌桶合并为一次组合脚本调用
+     */
+    @Benchmark
+    public RateLimitDecision twoBucketsComposite() {
+        return engine.tryAcquire(compositeLimit).block();
+    }
+}
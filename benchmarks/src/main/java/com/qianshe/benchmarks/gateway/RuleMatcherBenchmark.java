@@ -0,0 +1,104 @@
+package com.qianshe.benchmarks.gateway;
+
+import com.qianshe.gateway.config.RateLimiterRuleConfig.RateLimiterRule;
+import com.qianshe.gateway.ratelimit.RateLimitPolicy;
+import com.qianshe.gateway.ratelimit.RateLimitRuleMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流规则匹配基准测试
+ * 对比原ConcurrentHashMap精确匹配+线性前缀扫描与编译后的路径段前缀树
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar RuleMatcherBenchmark -prof gc
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleMatcherBenchmark {
+
+    @Param({"10", "1000"})
+    private int ruleCount;
+
+    private final Map<String, RateLimiterRule> ruleCache = new ConcurrentHashMap<>();
+    private RateLimitRuleMatcher matcher;
+    private String[] paths;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        List<RateLimiterRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            RateLimiterRule rule = new RateLimiterRule();
+            rule.setPath("/api/v" + (i % 5) + "/service" + i + "/resource");
+            rule.setCapacity(10 + i % 50);
+            rules.add(rule);
+            ruleCache.put(rule.getPath(), rule);
+        }
+        matcher = RateLimitRuleMatcher.compile(rules, RateLimitPolicy.of(10, 2, 10));
+
+        // 命中规则的子路径、精确命中、未命中各占一部分
+        paths = new String[64];
+        for (int i = 0; i < paths.length; i++) {
+            int n = (i * 7919) % ruleCount;
+            paths[i] = switch (i % 3) {
+                case 0 -> "/api/v" + (n % 5) + "/service" + n + "/resource/" + i + "/detail";
+                case 1 -> "/api/v" + (n % 5) + "/service" + n + "/resource";
+                default -> "/api/v9/unknown" + i + "/resource";
+            };
+        }
+    }
+
+    private String nextPath() {
+        return paths[cursor++ & (paths.length - 1)];
+    }
+
+    /**
+     * 原实现：精确匹配，未命中时遍历全部规则做字符串前缀匹配
+     */
+    @Benchmark
+    public RateLimiterRule linearScan() {
+        String path = nextPath();
+        RateLimiterRule rule = ruleCache.get(path);
+        if (rule != null) {
+            return rule;
+        }
+        for (Map.Entry<String, RateLimiterRule> entry : ruleCache.entrySet()) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 编译后的路径段前缀树，最长前缀匹配
+     */
+    @Benchmark
+    public RateLimitRuleMatcher.CompiledRule compiledTrie() {
+        return matcher.match(nextPath());
+    }
+}
@@ -0,0 +1,115 @@
+package com.qianshe.benchmarks.support;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试用Redis
+ * 默认在随机端口启动本地redis-server进程（不持久化），
+ * 也可通过 -Dredis.host/-Dredis.port 指向已有的Redis实例
+ *
+ * <pre>
+ * -Dredis.server=/usr/local/bin/redis-server  redis-server可执行文件，默认从PATH查找
+ * -Dredis.host=127.0.0.1 -Dredis.port=6379    使用外部Redis，不启动本地进程
+ * -Dredis.password=xxx                        外部Redis密码
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class EmbeddedRedis implements AutoCloseable {
+
+    private final Process process;
+    private final LettuceConnectionFactory connectionFactory;
+
+    private EmbeddedRedis(Process process, String host, int port, String password) {
+        this.process = process;
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(host, port);
+        if (password != null && !password.isEmpty()) {
+            configuration.setPassword(password);
+        }
+        this.connectionFactory = new LettuceConnectionFactory(configuration);
+        this.connectionFactory.afterPropertiesSet();
+    }
+
+    /**
+     * 启动或连接Redis
+     */
+    public static EmbeddedRedis start() throws IOException, InterruptedException {
+        String host = System.getProperty("redis.host");
+        if (host != null) {
+            int port = Integer.getInteger("redis.port", 6379);
+            return new EmbeddedRedis(null, host, port, System.getProperty("redis.password"));
+        }
+
+        int port = freePort();
+        Process process = new ProcessBuilder(System.getProperty("redis.server", "redis-server"),
+                "--port", String.valueOf(port),
+                "--save", "",
+                "--appendonly", "no")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        awaitPort(port, process);
+        return new EmbeddedRedis(process, "127.0.0.1", port, null);
+    }
+
+    /**
+     * 创建字符串序列化的响应式模板
+     */
+    public ReactiveRedisTemplate<String, String> reactiveTemplate() {
+        return new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+    }
+
+    public LettuceConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    /**
+     * 清空当前库，保证每轮测试的初始状态一致
+     */
+    public void flushAll() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        connectionFactory.destroy();
+        if (process != null) {
+            process.destroy();
+            process.waitFor(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitPort(int port, Process process) throws InterruptedException, IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("redis-server启动失败，退出码: " + process.exitValue());
+            }
+            try (Socket ignored = new Socket("127.0.0.1", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        process.destroy();
+        throw new IOException("等待redis-server启动超时, port=" + port);
+    }
+}
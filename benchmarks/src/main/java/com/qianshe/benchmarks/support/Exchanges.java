@@ -0,0 +1,74 @@
+package com.qianshe.benchmarks.support;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.i18n.LocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.server.session.WebSessionManager;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 基准测试用请求
+ * 构造已完成路由匹配的请求，过滤器链末端直接完成，只测量被测过滤器本身。
+ * 编解码器、会话管理器在所有请求间共享（与运行中的网关一致），
+ * MockServerWebExchange每次都会新建编解码器，开销远大于被测过滤器
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class Exchanges {
+
+    /**
+     * 空的过滤器链末端
+     */
+    public static final GatewayFilterChain TERMINAL_CHAIN = exchange -> Mono.empty();
+
+    private static final WebSessionManager SESSION_MANAGER = new DefaultWebSessionManager();
+    private static final ServerCodecConfigurer CODEC_CONFIGURER = ServerCodecConfigurer.create();
+    private static final LocaleContextResolver LOCALE_CONTEXT_RESOLVER = new AcceptHeaderLocaleContextResolver();
+
+    private Exchanges() {
+    }
+
+    /**
+     * 创建路由
+     *
+     * @param routeId 路由ID
+     */
+    public static Route route(String routeId) {
+        return Route.async()
+                .id(routeId)
+                .uri("http://localhost:9002")
+                .predicate(exchange -> true)
+                .build();
+    }
+
+    /**
+     * 创建GET请求
+     *
+     * @param route         已匹配的路由
+     * @param path          请求路径
+     * @param remoteAddress 客户端地址
+     * @param headers       请求头，按名称、值交替排列
+     */
+    public static ServerWebExchange get(Route route, String path, InetSocketAddress remoteAddress,
+                                        String... headers) {
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get(path).remoteAddress(remoteAddress);
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            builder.header(headers[i], headers[i + 1]);
+        }
+        ServerWebExchange exchange = new DefaultServerWebExchange(builder.build(), new MockServerHttpResponse(),
+                SESSION_MANAGER, CODEC_CONFIGURER, LOCALE_CONTEXT_RESOLVER);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
@@ -46,6 +46,21 @@ public final class CommonConstants {
         public static final String[] ALLOWED_EXTENSIONS = {"jpg", "jpeg", "png", "gif", "pdf", "doc", "docx"};
     }
     
+    /**
+     * 令牌相关常量
+     * 令牌以账号类型为前缀（如 admin_xxxx），网关据此直接定位StpLogic，无需逐个账号体系探测
+     */
+    public static final class Token {
+        public static final char TYPE_SEPARATOR = '_'; // 账号类型前缀与令牌主体的分隔符
+        public static final String SESSION_LOGIN_ID = "loginId"; // token会话中的登录ID
+        public static final String SESSION_USER_TYPE = "userType"; // token会话中的账号类型
+        public static final String SESSION_ROLES = "roles"; // token会话中的角色列表
+        public static final String SESSION_FROZEN = "frozen"; // token会话中的冻结标记
+        public static final String INVALIDATE_CHANNEL = "sa-token:invalidate"; // 登录态失效通知频道
+        public static final String INVALIDATE_TOKEN = "token:"; // 单个令牌失效，消息内容为 token:令牌
+        public static final String INVALIDATE_LOGIN = "login:"; // 账号下全部令牌失效，消息内容为 login:登录ID
+    }
+
     /**
      * 通知相关常量
      */
@@ -17,6 +17,7 @@ public enum ResultCode {
     FORBIDDEN(403, "没有相关权限"),
     VALIDATE_FAILED(422, "参数校验失败"),
     ERROR(500, "系统异常"),
+    SERVICE_BUSY(503, "服务繁忙，请稍后重试"),
     
     // 用户相关: 1000-1999
     USER_NOT_FOUND(1000, "用户不存在"),
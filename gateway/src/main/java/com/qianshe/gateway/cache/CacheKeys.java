@@ -0,0 +1,59 @@
+package com.qianshe.gateway.cache;
+
+import com.qianshe.gateway.security.TokenLoginResolver;
+import com.qianshe.gateway.security.TokenLoginResolver.TokenLogin;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * 请求合并与响应缓存的键
+ * 由路由ID、登录用户、原始路径与查询参数、Accept及Accept-Encoding组成，
+ * 下游按内容协商返回不同表示时不会混用
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class CacheKeys {
+
+    private CacheKeys() {
+    }
+
+    /**
+     * 生成键
+     *
+     * @param exchange     当前请求
+     * @param routeId      路由ID
+     * @param perPrincipal 是否区分登录用户，未登录请求的用户部分为空
+     * @return 键
+     */
+    public static String of(ServerWebExchange exchange, String routeId, boolean perPrincipal) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        StringBuilder key = new StringBuilder(128).append(routeId).append('|');
+        if (perPrincipal) {
+            TokenLogin tokenLogin = exchange.getAttribute(TokenLoginResolver.TOKEN_LOGIN_ATTR);
+            if (tokenLogin != null) {
+                key.append(tokenLogin.getStpLogic().getLoginType()).append(':').append(tokenLogin.getLoginId());
+            }
+        }
+        key.append('|').append(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        key.append('|').append(headers.getFirst(HttpHeaders.ACCEPT))
+                .append('|').append(headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        return key.toString();
+    }
+
+    /**
+     * Cache-Control是否包含指定指令
+     *
+     * @param cacheControl Cache-Control头，可为null
+     * @param directive    指令名，小写
+     */
+    public static boolean hasDirective(String cacheControl, String directive) {
+        return cacheControl != null && cacheControl.toLowerCase().contains(directive);
+    }
+}
@@ -0,0 +1,58 @@
+package com.qianshe.gateway.cache;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * 可共享的下游响应
+ * 响应体保存为不可变字节数组，每个客户端写出时只包装一个指向同一数组的DataBuffer，不复制内容
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class CapturedResponse {
+
+    private final HttpStatusCode statusCode;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    public CapturedResponse(HttpStatusCode statusCode, HttpHeaders headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+    }
+
+    public HttpStatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public int getBodySize() {
+        return body.length;
+    }
+
+    /**
+     * 把响应写给客户端
+     *
+     * @param response 客户端响应
+     * @return 写出完成信号
+     */
+    public Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(statusCode);
+        response.getHeaders().putAll(headers);
+        return response.writeWith(Mono.fromSupplier(() -> wrapBody(response)));
+    }
+
+    /**
+     * 包装响应体，多个客户端共享同一个字节数组
+     */
+    DataBuffer wrapBody(ServerHttpResponse response) {
+        return response.bufferFactory().wrap(body);
+    }
+}
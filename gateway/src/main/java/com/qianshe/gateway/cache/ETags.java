@@ -0,0 +1,75 @@
+package com.qianshe.gateway.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * ETag工具
+ * 强ETag取响应体SHA-256摘要的前128位，Base64URL编码；If-None-Match按弱比较匹配（忽略W/前缀）
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class ETags {
+
+    private static final int TAG_BYTES = 16;
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    });
+
+    private ETags() {
+    }
+
+    /**
+     * 计算强ETag
+     *
+     * @param body 响应体
+     * @return 带引号的ETag
+     */
+    public static String strong(byte[] body) {
+        MessageDigest digest = SHA_256.get();
+        byte[] hash = digest.digest(body);
+        byte[] tag = new byte[TAG_BYTES];
+        System.arraycopy(hash, 0, tag, 0, TAG_BYTES);
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(tag) + '"';
+    }
+
+    /**
+     * 是否为强ETag
+     */
+    public static boolean isStrong(String etag) {
+        return etag != null && !etag.isEmpty() && !etag.startsWith(WEAK_PREFIX);
+    }
+
+    /**
+     * If-None-Match是否与ETag匹配
+     *
+     * @param ifNoneMatch 请求头中解析出的ETag列表
+     * @param etag        当前表示的ETag
+     */
+    public static boolean matches(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch.isEmpty() || etag == null) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || opaque.equals(opaque(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+}
@@ -0,0 +1,147 @@
+package com.qianshe.gateway.cache;
+
+import com.qianshe.gateway.config.CoalescingConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 请求合并器
+ * 相同合并键的并发请求只有第一个（发起者）访问下游，其余请求等待发起者的响应；
+ * 配置了微缓存时，响应在有效期内继续保留，期间的相同请求直接使用
+ *
+ * <p>发起者失败、被取消或响应不可共享时，等待中的请求收到空结果，各自访问下游</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescer {
+
+    private final CoalescingConfig coalescingConfig;
+
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * 下次允许清理过期条目的时间，避免条目数达到上限时每个请求都全量扫描
+     */
+    private volatile long nextSweepAt = System.nanoTime();
+
+    /**
+     * 加入合并
+     * 返回进行中或微缓存内的同键请求，没有时创建新的请求；调用方通过{@link Flight#tryLead()}判断自己是否为发起者
+     *
+     * @param key 合并键
+     * @return 合并请求，条目数已达上限时返回null，调用方直接访问下游
+     */
+    public Flight join(String key) {
+        while (true) {
+            long now = System.nanoTime();
+            Flight existing = flights.get(key);
+            if (existing != null) {
+                if (!existing.isExpired(now)) {
+                    return existing;
+                }
+                flights.remove(key, existing);
+                continue;
+            }
+            if (flights.size() >= coalescingConfig.getMaxEntries() && !sweep(now)) {
+                return null;
+            }
+            Flight flight = new Flight();
+            if (flights.putIfAbsent(key, flight) == null) {
+                return flight;
+            }
+        }
+    }
+
+    /**
+     * 发起者完成请求，把响应交给等待中的请求
+     *
+     * @param key          合并键
+     * @param flight       合并请求
+     * @param response     可共享的响应
+     * @param cacheTtlMillis 微缓存有效期(毫秒)，0表示不缓存
+     */
+    public void complete(String key, Flight flight, CapturedResponse response, long cacheTtlMillis) {
+        if (cacheTtlMillis > 0) {
+            flight.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis);
+            flight.completed = true;
+        } else {
+            flights.remove(key, flight);
+        }
+        flight.sink.tryEmitValue(response);
+        log.debug("[请求合并] 共享响应: key={}, size={}, ttl={}ms", key, response.getBodySize(), cacheTtlMillis);
+    }
+
+    /**
+     * 放弃合并，等待中的请求各自访问下游
+     *
+     * @param key    合并键
+     * @param flight 合并请求
+     */
+    public void abandon(String key, Flight flight) {
+        flights.remove(key, flight);
+        flight.sink.tryEmitEmpty();
+    }
+
+    /**
+     * 清理过期的微缓存条目
+     *
+     * @return 清理后是否还有空间
+     */
+    private boolean sweep(long now) {
+        if (now - nextSweepAt >= 0) {
+            nextSweepAt = now + TimeUnit.SECONDS.toNanos(1);
+            flights.values().removeIf(flight -> flight.isExpired(now));
+        }
+        return flights.size() < coalescingConfig.getMaxEntries();
+    }
+
+    /**
+     * 一次合并请求
+     */
+    public static final class Flight {
+
+        private final Sinks.One<CapturedResponse> sink = Sinks.one();
+        private final AtomicBoolean led = new AtomicBoolean();
+        private volatile boolean completed;
+        private volatile long expiresAt;
+
+        private Flight() {
+        }
+
+        /**
+         * 争取成为发起者，每个合并请求只有一个调用方返回true
+         */
+        public boolean tryLead() {
+            return !led.get() && led.compareAndSet(false, true);
+        }
+
+        /**
+         * 是否已有可直接使用的响应（微缓存命中）
+         */
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        /**
+         * 发起者的响应，放弃合并时为空
+         */
+        public Mono<CapturedResponse> result() {
+            return sink.asMono();
+        }
+
+        private boolean isExpired(long now) {
+            return completed && now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.qianshe.gateway.cache;
+
+import com.qianshe.gateway.config.ResponseCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关响应缓存
+ * 按缓存键哈希分段，每段是一个访问顺序的LRU，按占用字节数淘汰，各段独立加锁，命中时不会在全局锁上串行
+ *
+ * <p>响应体以不可变字节数组保存在堆内，写出时直接包装不复制；条目被淘汰时可能仍有客户端在写出，
+ * 数组在不再被引用后由GC回收，不需要引用计数</p>
+ *
+ * <pre>
+ * gateway.response_cache.requests{outcome="hit|not_modified|miss"} 查询次数
+ * gateway.response_cache.size                                      缓存响应体占用字节数
+ * gateway.response_cache.entries                                   缓存条目数
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    private final ResponseCacheConfig responseCacheConfig;
+
+    /**
+     * 缓存分段，下标为缓存键哈希值的低位
+     */
+    private final Segment[] segments;
+
+    private final EnumMap<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+
+    public ResponseCache(ResponseCacheConfig responseCacheConfig, MeterRegistry meterRegistry) {
+        this.responseCacheConfig = responseCacheConfig;
+        int count = Integer.highestOneBit(Math.max(1, responseCacheConfig.getSegments()));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment();
+        }
+        for (Outcome outcome : Outcome.values()) {
+            counters.put(outcome, Counter.builder("gateway.response_cache.requests")
+                    .description("响应缓存查询次数")
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("gateway.response_cache.size", this, ResponseCache::size)
+                .description("缓存响应体占用字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response_cache.entries", this, ResponseCache::entryCount)
+                .description("缓存条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询未过期的缓存
+     *
+     * @param key 缓存键，见{@link CacheKeys}
+     * @return 缓存条目，不存在或已过期时返回null
+     */
+    public Entry get(String key) {
+        return segmentFor(key).get(key, System.nanoTime());
+    }
+
+    /**
+     * 写入缓存，超出容量时淘汰最近最少使用的条目
+     *
+     * @param key        缓存键
+     * @param statusCode 状态码
+     * @param headers    响应头
+     * @param etag       强ETag
+     * @param body       响应体
+     * @param ttlMillis  有效期(毫秒)
+     */
+    public void put(String key, HttpStatusCode statusCode, HttpHeaders headers, String etag, byte[] body,
+                    long ttlMillis) {
+        // 每段分摊总容量
+        long segmentMaxSize = responseCacheConfig.getMaxSize() / segments.length;
+        if (ttlMillis <= 0 || body.length > segmentMaxSize) {
+            return;
+        }
+        HttpHeaders copy = new HttpHeaders();
+        copy.putAll(headers);
+        long now = System.nanoTime();
+        Entry entry = new Entry(statusCode, copy, etag, body, now,
+                now + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        segmentFor(key).put(key, entry, segmentMaxSize);
+        log.debug("[响应缓存] 写入: key={}, size={}, ttl={}ms", key, body.length, ttlMillis);
+    }
+
+    /**
+     * 记录一次查询结果
+     */
+    public void record(Outcome outcome) {
+        counters.get(outcome).increment();
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private long size() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.size();
+        }
+        return total;
+    }
+
+    private int entryCount() {
+        int total = 0;
+        for (Segment segment : segments) {
+            total += segment.entryCount();
+        }
+        return total;
+    }
+
+    /**
+     * 缓存分段
+     * 访问顺序的LinkedHashMap，查询也会调整顺序，所有访问都在本段上同步
+     */
+    private static final class Segment {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+        private long size;
+
+        synchronized Entry get(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt >= 0) {
+                entries.remove(key);
+                size -= entry.getBodySize();
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized void put(String key, Entry entry, long maxSize) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                size -= previous.getBodySize();
+            }
+            size += entry.getBodySize();
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (size > maxSize && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                size -= evicted.getBodySize();
+            }
+        }
+
+        synchronized long size() {
+            return size;
+        }
+
+        synchronized int entryCount() {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 查询结果
+     */
+    public enum Outcome {
+        /**
+         * 命中，返回缓存的响应
+         */
+        HIT("hit"),
+        /**
+         * 命中且客户端ETag一致，返回304
+         */
+        NOT_MODIFIED("not_modified"),
+        /**
+         * 未命中，访问下游
+         */
+        MISS("miss");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * 缓存条目，创建后不再修改
+     */
+    public static final class Entry {
+
+        private final HttpStatusCode statusCode;
+        private final HttpHeaders headers;
+        private final String etag;
+        private final byte[] body;
+        private final long createdAt;
+        private final long expiresAt;
+
+        private Entry(HttpStatusCode statusCode, HttpHeaders headers, String etag, byte[] body,
+                      long createdAt, long expiresAt) {
+            this.statusCode = statusCode;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.etag = etag;
+            this.body = body;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        public int getBodySize() {
+            return body.length;
+        }
+
+        /**
+         * 缓存时长(秒)，用于Age响应头
+         */
+        public long ageSeconds() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - createdAt);
+        }
+
+        /**
+         * 把缓存的响应写给客户端，响应体直接包装，不复制
+         *
+         * @param response 客户端响应
+         * @return 写出完成信号
+         */
+        public Mono<Void> writeTo(ServerHttpResponse response) {
+            response.setStatusCode(statusCode);
+            response.getHeaders().putAll(headers);
+            response.getHeaders().setETag(etag);
+            response.getHeaders().set(HttpHeaders.AGE, Long.toString(ageSeconds()));
+            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+        }
+    }
+}
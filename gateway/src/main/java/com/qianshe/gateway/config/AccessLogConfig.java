@@ -0,0 +1,32 @@
+package com.qianshe.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 访问日志配置
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class AccessLogConfig {
+
+    /**
+     * 是否启用访问日志
+     */
+    private boolean enabled = true;
+
+    /**
+     * 正常请求的采样率（0~1），异常和4xx/5xx请求始终记录
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 环形缓冲区大小，向上取整为2的幂，写满时丢弃新记录
+     */
+    private int bufferSize = 8192;
+}
@@ -0,0 +1,57 @@
+package com.qianshe.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET请求合并配置
+ * 只对routes中列出的路由生效
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.coalescing")
+public class CoalescingConfig {
+
+    /**
+     * 是否启用请求合并
+     */
+    private boolean enabled = true;
+
+    /**
+     * 可共享的最大响应体(字节)，超过时只返回给发起请求的客户端
+     */
+    private int maxBodySize = 256 * 1024;
+
+    /**
+     * 最多保留的合并条目数（进行中的请求与微缓存之和），超过后新请求不再合并
+     */
+    private int maxEntries = 10_000;
+
+    /**
+     * 按路由ID配置
+     */
+    private Map<String, RouteCoalescing> routes = new LinkedHashMap<>();
+
+    /**
+     * 路由合并配置
+     */
+    @Data
+    public static class RouteCoalescing {
+        /**
+         * 合并键是否包含登录用户，公开数据可关闭以便不同用户共享同一个响应
+         */
+        private boolean perPrincipal = true;
+
+        /**
+         * 微缓存有效期(毫秒)，请求完成后在该时间内的相同请求直接使用该响应；0表示只合并进行中的请求
+         */
+        private long cacheTtl = 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.qianshe.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自适应并发限制配置
+ * 每个路由独立维护并发上限，根据下游响应时间自动调整
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitConfig {
+
+    /**
+     * 是否启用自适应并发限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 调整算法
+     */
+    private Algorithm algorithm = Algorithm.VEGAS;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 最小并发上限
+     */
+    private int minLimit = 4;
+
+    /**
+     * 最大并发上限
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * 梯度算法的平滑系数（0~1），越大调整越快
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 梯度算法允许的响应时间增幅，响应时间不超过无负载响应时间的该倍数时不降低上限
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 重新探测无负载响应时间的样本间隔，避免下游扩容或长期变慢后基准失真
+     */
+    private int probeInterval = 1000;
+
+    /**
+     * 不做并发限制的路由ID
+     */
+    private List<String> excludeRoutes = new ArrayList<>();
+
+    /**
+     * 并发上限调整算法
+     */
+    public enum Algorithm {
+        /**
+         * 按响应时间相对无负载响应时间的增幅估算排队请求数，排队过多时降低上限
+         */
+        VEGAS,
+
+        /**
+         * 按无负载响应时间与本次响应时间的比值（梯度）成比例调整上限
+         */
+        GRADIENT
+    }
+}
@@ -0,0 +1,72 @@
+package com.qianshe.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对冲请求配置
+ * 只对routes中列出的路由生效，对冲只作用于GET/HEAD/OPTIONS等幂等且不带请求体的请求
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.hedging")
+public class HedgingConfig {
+
+    /**
+     * 是否启用对冲请求
+     */
+    private boolean enabled = true;
+
+    /**
+     * 对冲预算：对冲及失败重试请求数不超过路由请求数的该百分比
+     */
+    private int budgetPercent = 10;
+
+    /**
+     * 预算最多累积的对冲次数，允许低流量时偶发的对冲
+     */
+    private int budgetBurst = 20;
+
+    /**
+     * 样本数达到该值后才按响应时间分位数计算对冲延迟，之前使用initialDelay
+     */
+    private int minSamples = 100;
+
+    /**
+     * 按路由ID配置
+     */
+    private Map<String, RouteHedging> routes = new LinkedHashMap<>();
+
+    /**
+     * 路由对冲配置
+     */
+    @Data
+    public static class RouteHedging {
+        /**
+         * 延迟预算(毫秒)：从发出请求到收到响应头的总时限，包含对冲请求，超时返回504
+         */
+        private long timeout = 10_000;
+
+        /**
+         * 对冲延迟取下游响应时间的该分位数
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 样本不足时的对冲延迟(毫秒)
+         */
+        private long initialDelay = 200;
+
+        /**
+         * 对冲延迟下限(毫秒)，避免下游很快时几乎每个请求都对冲
+         */
+        private long minDelay = 10;
+    }
+}
@@ -0,0 +1,66 @@
+package com.qianshe.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * IP黑名单配置
+ * 匹配逻辑由{@link com.qianshe.gateway.security.IpBlacklist}统一执行
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "blacklist")
+public class IpBlackListConfig {
+
+    /**
+     * 是否启用IP黑名单
+     */
+    private boolean enabled = true;
+
+    /**
+     * 静态黑名单，逗号分隔，支持单个IP、IPv4 CIDR和IPv6前缀
+     */
+    private String ip = "";
+
+    /**
+     * 动态黑名单布隆过滤器配置
+     */
+    private Bloom bloom = new Bloom();
+
+    /**
+     * 动态黑名单布隆过滤器配置
+     */
+    @Data
+    public static class Bloom {
+
+        /**
+         * 是否启用，关闭时每个请求都访问Redis
+         */
+        private boolean enabled = true;
+
+        /**
+         * 预计动态黑名单条目数
+         */
+        private long expectedInsertions = 1_000_000;
+
+        /**
+         * 期望误判率
+         */
+        private double fpp = 0.01;
+
+        /**
+         * 全量重建间隔(秒)，用于剔除已删除条目并补齐丢失的变更通知
+         */
+        private long resyncInterval = 60;
+
+        /**
+         * 是否订阅黑名单键的键空间事件，需要Redis开启notify-keyspace-events Kg$（或KA）
+         * 启动时检查Redis配置，未开启时不启用布隆过滤器；关闭此项时布隆过滤器只依赖定期重建，新增条目最多延迟一个重建间隔
+         */
+        private boolean keyspaceEvents = true;
+    }
+}
@@ -1,5 +1,6 @@
 package com.qianshe.gateway.config;
 
+import com.qianshe.gateway.ratelimit.RateLimitSubject;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,16 +33,14 @@ public class RateLimiterConfig {
 
     /**
      * 用户限流键解析器
-     * 根据用户ID进行限流，从请求头中获取用户ID
+     * 根据鉴权过滤器解析出的登录用户进行限流，未登录时回退为客户端IP；
+     * 不读取客户端可伪造的用户ID请求头
      *
      * @return 用户限流键解析器
      */
     @Bean
     public KeyResolver userKeyResolver() {
-        return exchange -> {
-            String userId = exchange.getRequest().getHeaders().getFirst("user-id");
-            return Mono.just(userId != null ? userId : "anonymous");
-        };
+        return exchange -> Mono.just(RateLimitSubject.resolve(exchange).getKey());
     }
 
     /**
@@ -1,29 +1,32 @@
 package com.qianshe.gateway.config;
 
-import jakarta.annotation.PostConstruct;
+import com.qianshe.gateway.ratelimit.RateLimitAlgorithm;
+import com.qianshe.gateway.ratelimit.RateLimitPolicy;
+import com.qianshe.gateway.ratelimit.RateLimitRuleMatcher;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 限流规则配置类
- * 从配置文件中读取自定义限流规则
+ * 从配置文件中读取路由级限流和路径限流规则，两者由限流过滤器合并为一次检查。
+ * 本类只承载属性，配置刷新时由Spring Cloud原地重新绑定；规则编译和发布由
+ * {@link com.qianshe.gateway.security.SecurityConfigHolder}完成，请求线程不直接读取这里的属性
  *
  * @author qianshe
  * @since 1.0.0
  */
 @Slf4j
 @Configuration
-@RefreshScope
 @ConfigurationProperties(prefix = "rate-limiter")
 public class RateLimiterRuleConfig {
 
@@ -55,6 +58,13 @@ public class RateLimiterRuleConfig {
     @Setter
     private int defaultWindow = 10;
 
+    /**
+     * 本地预准入层配置
+     */
+    @Getter
+    @Setter
+    private LocalTier localTier = new LocalTier();
+
     /**
      * 限流规则列表
      */
@@ -63,50 +73,50 @@ public class RateLimiterRuleConfig {
     private List<RateLimiterRule> rules = new ArrayList<>();
 
     /**
-     * 规则缓存，提高查询效率
+     * 路由级限流配置，键为路由ID，按客户端IP对整个路由计数（path字段不使用）
      */
-    private final Map<String, RateLimiterRule> ruleCache = new ConcurrentHashMap<>();
+    @Getter
+    @Setter
+    private Map<String, RateLimiterRule> routes = new LinkedHashMap<>();
 
     /**
-     * 初始化规则缓存
+     * 未在routes中单独配置的路由使用的路由级限流配置，未配置时这些路由只做路径限流
      */
-    @PostConstruct
-    public void init() {
-        if (enabled && rules != null) {
-            for (RateLimiterRule rule : rules) {
-                ruleCache.put(rule.getPath(), rule);
-                log.info("[限流配置] 加载限流规则: path={}, capacity={}, rate={}, window={}",
-                        rule.getPath(), rule.getCapacity(), rule.getRate(), rule.getWindow());
-            }
-            log.info("[限流配置] 共加载 {} 条限流规则", rules.size());
-        }
-    }
+    @Getter
+    @Setter
+    private RateLimiterRule routeDefault;
 
     /**
-     * 获取指定路径的限流规则
-     *
-     * @param path API路径
-     * @return 限流规则，如果没有匹配的规则则返回null
+     * 用户、租户、全局分级配额，与路由级、路径限流在同一次检查中执行
      */
-    public RateLimiterRule getRule(String path) {
-        if (!enabled || path == null) {
-            return null;
-        }
+    @Getter
+    @Setter
+    private Quota quota = new Quota();
 
-        // 精确匹配
-        RateLimiterRule rule = ruleCache.get(path);
-        if (rule != null) {
-            return rule;
+    /**
+     * 按当前属性编译规则匹配器
+     * 未启用限流时只编译默认策略；由配置快照在编译线程中调用
+     *
+     * @return 编译后的匹配器
+     */
+    public RateLimitRuleMatcher compileMatcher() {
+        RateLimitPolicy defaultPolicy = RateLimitPolicy.of(defaultCapacity, defaultRate, defaultWindow);
+        List<RateLimiterRule> activeRules = enabled && rules != null ? rules : Collections.emptyList();
+        Map<String, RateLimiterRule> activeRoutes = enabled && routes != null ? routes : Collections.emptyMap();
+        RateLimitRuleMatcher matcher = RateLimitRuleMatcher.compile(activeRules, defaultPolicy,
+                activeRoutes, enabled ? routeDefault : null, enabled ? quota : null);
+        for (RateLimiterRule rule : activeRules) {
+            log.info("[限流配置] 加载限流规则: path={}, algorithm={}, capacity={}, rate={}, window={}",
+                    rule.getPath(), rule.getAlgorithm(), rule.getCapacity(), rule.getRate(), rule.getWindow());
         }
-
-        // 前缀匹配
-        for (Map.Entry<String, RateLimiterRule> entry : ruleCache.entrySet()) {
-            if (path.startsWith(entry.getKey())) {
-                return entry.getValue();
-            }
+        activeRoutes.forEach((routeId, rule) -> log.info("[限流配置] 加载路由限流: route={}, algorithm={}, capacity={}, rate={}, window={}",
+                routeId, rule.getAlgorithm(), rule.getCapacity(), rule.getRate(), rule.getWindow()));
+        if (enabled && quota != null) {
+            log.info("[限流配置] 分级配额: user={}, tenants={}, global={}", quota.getUser(),
+                    quota.getTenants() != null ? quota.getTenants().keySet() : null, quota.getGlobal());
         }
-
-        return null;
+        log.info("[限流配置] 共加载 {} 条限流规则, {} 条路由限流", matcher.size(), activeRoutes.size());
+        return matcher;
     }
 
     /**
@@ -119,6 +129,11 @@ public class RateLimiterRuleConfig {
          */
         private String path;
 
+        /**
+         * 限流算法：token-bucket（默认）、gcra、sliding-window-log
+         */
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.TOKEN_BUCKET;
+
         /**
          * 令牌桶容量
          */
@@ -134,4 +149,81 @@ public class RateLimiterRuleConfig {
          */
         private int window = 60;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 分级配额
+     * 限流主体为登录用户（按账号类型+登录ID）或匿名请求的客户端IP，租户为账号类型，匿名请求的租户为anonymous
+     */
+    @Data
+    public static class Quota {
+        /**
+         * 每个限流主体的总配额，不区分路由和路径
+         */
+        private RateLimiterRule user;
+
+        /**
+         * 租户共享配额，键为账号类型（admin、vip、user、anonymous），默认不启用
+         * 共享键与主体键不在同一槽位，只适用于单机或哨兵部署的Redis
+         */
+        private Map<String, RateLimiterRule> tenants = new LinkedHashMap<>();
+
+        /**
+         * 全局共享配额，默认不启用，部署要求同租户配额
+         */
+        private RateLimiterRule global;
+    }
+
+    /**
+     * 本地预准入层配置
+     * 网关节点从Redis批量租用令牌在本地消费，租约用完或过期后才访问Redis
+     */
+    @Data
+    public static class LocalTier {
+        /**
+         * 是否启用本地预准入层
+         */
+        private boolean enabled = false;
+
+        /**
+         * 单次租约最多申请的令牌数
+         */
+        private int leaseSize = 10;
+
+        /**
+         * 允许的跨节点超发比例
+         * 单个节点持有的未消费令牌不超过桶容量的该比例，多节点时整体超发不超过 节点数 × 比例 × 容量
+         */
+        private double maxOvershootRatio = 0.2;
+
+        /**
+         * 租约有效期(毫秒)，过期后未消费的令牌作废，限制超发令牌在时间上的偏移
+         */
+        private long leaseTtl = 1000;
+
+        /**
+         * 本地最多保留的令牌桶数量，超过后新的键直接走Redis
+         */
+        private int maxBuckets = 100_000;
+
+        /**
+         * 计算指定策略单次租约的令牌数
+         *
+         * @param policy 限流策略
+         * @return 租约令牌数，至少为1
+         */
+        public int leaseSizeFor(RateLimitPolicy policy) {
+            int overshootCap = (int) Math.floor(policy.getCapacity() * maxOvershootRatio);
+            return Math.max(1, Math.min(leaseSize, overshootCap));
+        }
+
+        /**
+         * 计算共享令牌桶在本节点每个租约有效期内允许额外租用的令牌总数
+         *
+         * @param policy 共享限流策略
+         * @return 租约预算，即 floor(容量 × 最大超发比例)
+         */
+        public int sharedBudgetFor(RateLimitPolicy policy) {
+            return (int) Math.floor(policy.getCapacity() * maxOvershootRatio);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.qianshe.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 响应缓存配置
+ * 只对routes中列出的路由生效
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheConfig {
+
+    /**
+     * 是否启用响应缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存响应体占用的内存上限(字节)，平均分给各分段，超过后按最近最少使用淘汰
+     */
+    private long maxSize = 64L * 1024 * 1024;
+
+    /**
+     * 缓存分段数，向下取2的幂；每段独立加锁，单个响应体不能超过 max-size / segments
+     */
+    private int segments = 16;
+
+    /**
+     * 单个可缓存响应体的上限(字节)
+     */
+    private int maxBodySize = 256 * 1024;
+
+    /**
+     * 按路由ID配置
+     */
+    private Map<String, RouteCache> routes = new LinkedHashMap<>();
+
+    /**
+     * 路由缓存配置
+     */
+    @Data
+    public static class RouteCache {
+        /**
+         * 缓存键是否包含登录用户，公开数据可关闭以便不同用户共享缓存
+         */
+        private boolean perPrincipal = true;
+
+        /**
+         * 缓存有效期(毫秒)，下游Cache-Control声明了更短的max-age时以下游为准
+         */
+        private long ttl = 30_000;
+    }
+}
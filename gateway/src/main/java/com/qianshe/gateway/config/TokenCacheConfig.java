@@ -0,0 +1,37 @@
+package com.qianshe.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 令牌校验近端缓存配置
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.security.token-cache")
+public class TokenCacheConfig {
+
+    /**
+     * 是否启用近端缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存有效期(毫秒)，实际有效期不超过令牌剩余有效期，且低于active-timeout
+     */
+    private long ttl = 5000;
+
+    /**
+     * 最多缓存的令牌数
+     */
+    private int maxSize = 100_000;
+
+    /**
+     * 是否订阅Redis键空间事件（del/expired），需要Redis开启notify-keyspace-events Egx
+     */
+    private boolean keyspaceEvents = false;
+}
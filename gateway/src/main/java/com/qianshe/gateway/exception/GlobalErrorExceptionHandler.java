@@ -43,6 +43,10 @@ public class GlobalErrorExceptionHandler implements ErrorWebExceptionHandler {
         if (ex instanceof GatewayException) {
             GatewayException ge = (GatewayException) ex;
             result = ge.getResult();
+            // 过载保护使用真实的503状态码，便于客户端和上游负载均衡退避重试
+            if (result.getCode() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            }
             log.warn("[网关]业务异常: {}, 请求路径: {}, 请求方法: {}", ge.getMessage(), path, method);
         } else if (ex instanceof ResponseStatusException) {
             ResponseStatusException rse = (ResponseStatusException) ex;
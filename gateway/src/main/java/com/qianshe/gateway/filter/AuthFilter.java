@@ -0,0 +1,118 @@
+package com.qianshe.gateway.filter;
+
+import cn.dev33.satoken.stp.StpUtil;
+import cn.dev33.satoken.util.SaTokenConsts;
+import com.qianshe.gateway.exception.GatewayException;
+import com.qianshe.gateway.metrics.GatewayTimers;
+import com.qianshe.gateway.model.Result;
+import com.qianshe.gateway.security.TokenLoginResolver;
+import com.qianshe.gateway.security.TokenLoginResolver.TokenLogin;
+import com.qianshe.gateway.security.TokenNearCache;
+import com.qianshe.gateway.security.WhiteListMatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关统一鉴权过滤器
+ * 实现多账号体系的认证，替代SaReactorFilter的同步鉴权函数：令牌解析、状态检查和用户信息转发
+ * 组成一条响应式调用链，Redis读取通过响应式客户端完成，事件循环线程不会阻塞等待
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthFilter implements WebFilter, Ordered {
+
+    private final WhiteListMatcher whiteListMatcher;
+    private final TokenLoginResolver tokenLoginResolver;
+    private final TokenNearCache tokenNearCache;
+    private final GatewayTimers gatewayTimers;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getURI().getPath();
+        log.debug("[网关]处理请求: {}", path);
+
+        // 白名单请求直接放行，判定结果缓存在exchange中供后续过滤器复用
+        if (whiteListMatcher.isAuthExempt(exchange)) {
+            log.debug("[网关]白名单请求放行: {}", path);
+            return chain.filter(exchange);
+        }
+
+        // 获取token
+        String token = exchange.getRequest().getHeaders().getFirst(StpUtil.getTokenName());
+        if (token == null || token.isEmpty()) {
+            log.warn("[网关]未提供token");
+            return Mono.error(new GatewayException(Result.unauthorized("请先登录")));
+        }
+
+        // 优先读取近端缓存；未命中时按令牌前缀定位账号体系，并发读取登录ID、有效期和token会话
+        long start = System.nanoTime();
+        return tokenNearCache.get(token, tokenLoginResolver::resolve)
+                .switchIfEmpty(Mono.error(() -> {
+                    log.warn("[网关]无效的token: {}", token);
+                    return new GatewayException(Result.unauthorized("登录已失效，请重新登录"));
+                }))
+                .doOnNext(tokenLogin -> checkTokenStatus(tokenLogin, token))
+                .onErrorMap(e -> !(e instanceof GatewayException), e -> {
+                    log.error("[网关]认证异常", e);
+                    return new GatewayException(Result.unauthorized("认证失败：" + e.getMessage()));
+                })
+                .doOnTerminate(() -> gatewayTimers.recordStage(GatewayTimers.Stage.AUTH, start))
+                .flatMap(tokenLogin -> {
+                    log.debug("[网关]检测到{}用户: {}", tokenLogin.getStpLogic().getLoginType(), tokenLogin.getLoginId());
+                    // 保存登录信息供限流按用户计数，并转发用户信息
+                    exchange.getAttributes().put(TokenLoginResolver.TOKEN_LOGIN_ATTR, tokenLogin);
+                    return chain.filter(forwardUserInfo(exchange, tokenLogin));
+                });
+    }
+
+    /**
+     * 检查token状态
+     * 包括：是否被冻结、是否过期等
+     */
+    private void checkTokenStatus(TokenLogin tokenLogin, String token) {
+        // 检查token是否被冻结
+        if (tokenLogin.isFrozen()) {
+            log.warn("[网关]token已被冻结: {}", token);
+            throw new GatewayException(Result.unauthorized("账号已被冻结，请联系管理员"));
+        }
+
+        // 检查token是否过期
+        if (tokenLogin.getTimeout() <= 0) {
+            log.warn("[网关]token已过期: {}", token);
+            throw new GatewayException(Result.unauthorized("登录已过期，请重新登录"));
+        }
+    }
+
+    /**
+     * 转发用户信息到下游服务
+     * 用户信息已在登录时写入token会话，这里不再逐请求回写
+     */
+    private ServerWebExchange forwardUserInfo(ServerWebExchange exchange, TokenLogin tokenLogin) {
+        String userType = tokenLogin.getStpLogic().getLoginType();
+        String rolesStr = String.join(",", tokenLogin.getRoles());
+        ServerHttpRequest newRequest = exchange.getRequest().mutate()
+                .header("X-User-Id", String.valueOf(tokenLogin.getLoginId()))
+                .header("X-User-Type", userType)
+                .header("X-User-Roles", rolesStr)
+                .build();
+        log.debug("[网关]转发用户信息: userId={}, userType={}, roles={}", tokenLogin.getLoginId(), userType, rolesStr);
+        return exchange.mutate().request(newRequest).build();
+    }
+
+    @Override
+    public int getOrder() {
+        // 与原SaReactorFilter位置一致，先于网关路由执行
+        return SaTokenConsts.ASSEMBLY_ORDER;
+    }
+}
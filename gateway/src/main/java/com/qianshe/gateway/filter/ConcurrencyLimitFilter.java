@@ -0,0 +1,86 @@
+package com.qianshe.gateway.filter;
+
+import com.qianshe.gateway.config.ConcurrencyLimitConfig;
+import com.qianshe.gateway.exception.GatewayException;
+import com.qianshe.gateway.model.Result;
+import com.qianshe.gateway.ratelimit.AdaptiveConcurrencyLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 自适应并发限制过滤器
+ * 按路由限制转发到下游的并发请求数，上限由{@link AdaptiveConcurrencyLimiter}根据下游响应时间自动调整；
+ * 超过上限的请求立即返回503，不再排队等待下游超时
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ConcurrencyLimitConfig concurrencyLimitConfig;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!concurrencyLimitConfig.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || concurrencyLimitConfig.getExcludeRoutes().contains(route.getId())) {
+            return chain.filter(exchange);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(route.getId());
+        if (permit == null) {
+            log.warn("[网关]路由并发已满，拒绝请求: route={}, path={}", route.getId(),
+                    exchange.getRequest().getURI().getPath());
+            return Mono.error(new GatewayException(Result.fail(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "服务繁忙，请稍后再试")));
+        }
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        permit.ignore();
+                    } else {
+                        permit.release(isDropped(exchange, signal == SignalType.ON_ERROR));
+                    }
+                });
+    }
+
+    /**
+     * 下游是否处于异常状态：转发出错（超时、连接失败）或返回502/503/504
+     */
+    private static boolean isDropped(ServerWebExchange exchange, boolean error) {
+        if (error) {
+            return true;
+        }
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        if (statusCode == null) {
+            return false;
+        }
+        int status = statusCode.value();
+        return status == HttpStatus.BAD_GATEWAY.value()
+                || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    @Override
+    public int getOrder() {
+        // 在限流过滤器之后执行，被限流的请求不占用并发名额
+        return -80;
+    }
+}
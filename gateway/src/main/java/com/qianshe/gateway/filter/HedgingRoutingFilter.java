@@ -0,0 +1,266 @@
+package com.qianshe.gateway.filter;
+
+import com.qianshe.gateway.config.HedgingConfig;
+import com.qianshe.gateway.upstream.UpstreamHedging;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_HEADER_NAMES;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/**
+ * 对冲路由过滤器
+ * 在负载均衡选定实例之后、{@link NettyRoutingFilter}之前执行，接管配置路由上幂等且不带请求体的请求：
+ *
+ * <ul>
+ *     <li>原始请求超过路由响应时间分位数（默认p95）仍未收到响应头时，向另一个实例发出一个对冲请求，
+ *     先收到响应头的请求胜出，另一个被取消并关闭连接</li>
+ *     <li>原始请求连接失败时立即向另一个实例重试，与对冲共用预算</li>
+ *     <li>对冲和重试受{@link com.qianshe.gateway.upstream.HedgeBudget}限制，额外请求不超过配置的百分比</li>
+ *     <li>整个过程受路由延迟预算限制，超时返回504</li>
+ * </ul>
+ *
+ * <p>只有lb://路由才有其他实例可选；直连路由只应用延迟预算。响应体由NettyWriteResponseFilter照常写出</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HedgingRoutingFilter implements GlobalFilter, Ordered {
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS =
+            Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private static final String LB_SCHEME = "lb";
+
+    private final HedgingConfig hedgingConfig;
+    private final UpstreamHedging upstreamHedging;
+    private final HttpClient httpClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
+    private final ObjectProvider<LoadBalancerClientFactory> loadBalancerClientFactoryProvider;
+
+    private volatile List<HttpHeadersFilter> headersFilters;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!hedgingConfig.isEnabled() || route == null || requestUrl == null || isAlreadyRouted(exchange)
+                || !isHttp(requestUrl)) {
+            return chain.filter(exchange);
+        }
+        HedgingConfig.RouteHedging routeHedging = hedgingConfig.getRoutes().get(route.getId());
+        ServerHttpRequest request = exchange.getRequest();
+        if (routeHedging == null || !IDEMPOTENT_METHODS.contains(request.getMethod()) || hasBody(request)) {
+            return chain.filter(exchange);
+        }
+        setAlreadyRouted(exchange);
+
+        UpstreamHedging.RouteState state = upstreamHedging.state(route.getId(), routeHedging);
+        state.onRequest();
+
+        DefaultHttpHeaders headers = requestHeaders(exchange);
+        AtomicBoolean settled = new AtomicBoolean();
+        AtomicReference<Throwable> primaryError = new AtomicReference<>();
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+
+        Mono<Attempt> primary = send(requestUrl, request, headers, settled, state, false)
+                .doOnError(e -> {
+                    primaryError.set(e);
+                    primaryFailed.tryEmitEmpty();
+                });
+        Mono<Attempt> hedge = Mono.firstWithSignal(Mono.delay(state.hedgeDelay()).then(), primaryFailed.asMono())
+                .then(Mono.defer(() -> alternateUrl(route, requestUrl)))
+                .filter(url -> state.tryHedge())
+                .flatMap(url -> {
+                    log.debug("[对冲请求] 发出对冲请求: route={}, url={}", route.getId(), url);
+                    return send(url, request, headers, settled, state, true);
+                });
+
+        Duration timeout = state.timeout();
+        return Mono.firstWithValue(primary, hedge)
+                .timeout(timeout, Mono.error(() -> new TimeoutException("Response took longer than timeout: "
+                        + timeout)))
+                .onErrorMap(NoSuchElementException.class, e -> primaryError.get() != null ? primaryError.get() : e)
+                .onErrorMap(TimeoutException.class,
+                        e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), e))
+                .doOnNext(attempt -> {
+                    if (attempt.hedged) {
+                        state.onHedgeWon();
+                    }
+                    applyResponse(exchange, attempt);
+                })
+                .then(chain.filter(exchange));
+    }
+
+    /**
+     * 发出一次下游请求
+     * 先收到响应头的请求占用settled，后到的请求直接关闭连接并返回空
+     */
+    private Mono<Attempt> send(URI url, ServerHttpRequest request, DefaultHttpHeaders headers, AtomicBoolean settled,
+                               UpstreamHedging.RouteState state, boolean hedged) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return httpClient.headers(h -> h.set(headers))
+                    .request(io.netty.handler.codec.http.HttpMethod.valueOf(request.getMethod().name()))
+                    .uri(url.toASCIIString())
+                    .responseConnection((response, connection) -> {
+                        state.recordLatency(System.nanoTime() - start);
+                        if (!settled.compareAndSet(false, true)) {
+                            connection.dispose();
+                            return Mono.<Attempt>empty();
+                        }
+                        return Mono.just(new Attempt(response, connection, hedged));
+                    })
+                    .next();
+        });
+    }
+
+    /**
+     * 为对冲请求选择另一个实例，非lb路由或没有其他实例时返回空
+     */
+    private Mono<URI> alternateUrl(Route route, URI requestUrl) {
+        LoadBalancerClientFactory clientFactory = loadBalancerClientFactoryProvider.getIfAvailable();
+        if (clientFactory == null || !LB_SCHEME.equalsIgnoreCase(route.getUri().getScheme())) {
+            return Mono.empty();
+        }
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = clientFactory.getInstance(route.getUri().getHost());
+        if (loadBalancer == null) {
+            return Mono.empty();
+        }
+        // 轮询策略下第二次选择通常就是另一个实例，最多选两次
+        return Flux.defer(() -> Mono.from(loadBalancer.choose()))
+                .repeat(1)
+                .filter(response -> response.hasServer()
+                        && !(response.getServer().getHost().equals(requestUrl.getHost())
+                        && response.getServer().getPort() == requestUrl.getPort()))
+                .next()
+                .map(response -> LoadBalancerUriTools.reconstructURI(response.getServer(), requestUrl));
+    }
+
+    /**
+     * 与NettyRoutingFilter相同的请求头处理
+     */
+    private DefaultHttpHeaders requestHeaders(ServerWebExchange exchange) {
+        HttpHeaders filtered = HttpHeadersFilter.filterRequest(getHeadersFilters(), exchange);
+        DefaultHttpHeaders headers = new DefaultHttpHeaders();
+        filtered.forEach(headers::set);
+        headers.remove(HttpHeaders.HOST);
+        if (exchange.getAttributeOrDefault(PRESERVE_HOST_HEADER_ATTRIBUTE, false)) {
+            String host = exchange.getRequest().getHeaders().getFirst(HttpHeaders.HOST);
+            if (host != null) {
+                headers.add(HttpHeaders.HOST, host);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * 把胜出请求的响应头写入交换对象，与NettyRoutingFilter相同，响应体由NettyWriteResponseFilter写出
+     */
+    private void applyResponse(ServerWebExchange exchange, Attempt attempt) {
+        exchange.getAttributes().put(CLIENT_RESPONSE_ATTR, attempt.response);
+        exchange.getAttributes().put(CLIENT_RESPONSE_CONN_ATTR, attempt.connection);
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = new HttpHeaders();
+        attempt.response.responseHeaders().forEach(entry -> headers.add(entry.getKey(), entry.getValue()));
+        String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        if (StringUtils.hasLength(contentType)) {
+            exchange.getAttributes().put(ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR, contentType);
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(attempt.response.status().code()));
+
+        HttpHeaders filtered = HttpHeadersFilter.filter(getHeadersFilters(), headers, exchange,
+                HttpHeadersFilter.Type.RESPONSE);
+        if (!filtered.containsKey(HttpHeaders.TRANSFER_ENCODING) && filtered.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        }
+        exchange.getAttributes().put(CLIENT_RESPONSE_HEADER_NAMES, filtered.keySet());
+        response.getHeaders().addAll(filtered);
+    }
+
+    private List<HttpHeadersFilter> getHeadersFilters() {
+        if (headersFilters == null) {
+            headersFilters = headersFiltersProvider.getIfAvailable(List::of);
+        }
+        return headersFilters;
+    }
+
+    private static boolean isHttp(URI url) {
+        return "http".equalsIgnoreCase(url.getScheme()) || "https".equalsIgnoreCase(url.getScheme());
+    }
+
+    private static boolean hasBody(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    @Override
+    public int getOrder() {
+        // 在ReactiveLoadBalancerClientFilter(10150)之后、NettyRoutingFilter之前执行
+        return NettyRoutingFilter.ORDER - 1;
+    }
+
+    /**
+     * 一次收到响应头的下游请求
+     */
+    private static final class Attempt {
+
+        private final HttpClientResponse response;
+        private final Connection connection;
+        private final boolean hedged;
+
+        private Attempt(HttpClientResponse response, Connection connection, boolean hedged) {
+            this.response = response;
+            this.connection = connection;
+            this.hedged = hedged;
+        }
+    }
+}
@@ -1,84 +1,65 @@
 package com.qianshe.gateway.filter;
 
 import com.qianshe.gateway.exception.GatewayException;
+import com.qianshe.gateway.metrics.GatewayTimers;
 import com.qianshe.gateway.model.Result;
+import com.qianshe.gateway.security.IpBlacklist;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
 /**
  * IP黑名单过滤器
- * 支持配置文件静态黑名单和Redis动态黑名单
+ * 支持配置文件静态黑名单（IP、CIDR、IPv6前缀）和Redis动态黑名单，
+ * 动态黑名单先经本地布隆过滤器判定，只有可能命中时才访问Redis
  *
  * @author qianshe
  * @since 1.0.0
  */
 @Slf4j
 @Component
-@RefreshScope
+@RequiredArgsConstructor
 public class IpBlackListFilter implements GlobalFilter, Ordered {
 
-    /**
-     * 黑名单IP列表，通过配置文件配置
-     */
-    @Value("${blacklist.ip:}")
-    private String blacklistIpStr;
-
-    /**
-     * Redis客户端
-     */
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
-
-    /**
-     * Redis中黑名单的Key前缀
-     */
-    private static final String BLACKLIST_KEY = "gateway:blacklist:ip:";
-
-    /**
-     * 静态黑名单
-     */
-    private Set<String> staticBlacklist = new HashSet<>();
-
-    public IpBlackListFilter(ReactiveRedisTemplate<String, String> redisTemplate) {
-        this.redisTemplate = redisTemplate;
-        initStaticBlacklist();
-    }
-
-    /**
-     * 初始化静态黑名单
-     */
-    public void initStaticBlacklist() {
-        if (blacklistIpStr != null && !blacklistIpStr.isEmpty()) {
-            String[] ips = blacklistIpStr.split(",");
-            staticBlacklist = new HashSet<>(Arrays.asList(ips));
-            log.info("[IP黑名单] 静态黑名单初始化完成，共{}个IP", staticBlacklist.size());
-        }
-    }
+    private final IpBlacklist ipBlacklist;
+    private final GatewayTimers gatewayTimers;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        String ip = exchange.getRequest().getRemoteAddress().getAddress().getHostAddress();
-        
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (!ipBlacklist.isEnabled() || remoteAddress == null || remoteAddress.getAddress() == null) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        InetAddress address = remoteAddress.getAddress();
+        byte[] addressBytes = address.getAddress();
+
         // 检查静态黑名单
-        if (staticBlacklist.contains(ip)) {
-            log.warn("[IP黑名单] IP【{}】在静态黑名单中，拒绝访问", ip);
+        if (ipBlacklist.isStaticBlocked(addressBytes)) {
+            gatewayTimers.recordStage(GatewayTimers.Stage.BLACKLIST, start);
+            log.warn("[IP黑名单] IP【{}】在静态黑名单中，拒绝访问", address.getHostAddress());
             return Mono.error(new GatewayException(Result.forbidden("您的IP已被列入黑名单，请联系管理员")));
         }
 
+        // 布隆过滤器判定不在动态黑名单中，直接放行
+        if (!ipBlacklist.mightBeDynamicBlocked(addressBytes)) {
+            gatewayTimers.recordStage(GatewayTimers.Stage.BLACKLIST, start);
+            return chain.filter(exchange);
+        }
+
         // 检查动态黑名单
-        return redisTemplate.hasKey(BLACKLIST_KEY + ip)
+        String ip = address.getHostAddress();
+        return ipBlacklist.isDynamicBlocked(ip)
                 .flatMap(exists -> {
+                    gatewayTimers.recordStage(GatewayTimers.Stage.BLACKLIST, start);
                     if (Boolean.TRUE.equals(exists)) {
                         log.warn("[IP黑名单] IP【{}】在动态黑名单中，拒绝访问", ip);
                         return Mono.error(new GatewayException(Result.forbidden("您的IP已被列入黑名单，请联系管理员")));
@@ -93,4 +74,4 @@ public class IpBlackListFilter implements GlobalFilter, Ordered {
         // 在所有过滤器之前执行
         return Ordered.HIGHEST_PRECEDENCE + 1;
     }
-} 
\ No newline at end of file
+}
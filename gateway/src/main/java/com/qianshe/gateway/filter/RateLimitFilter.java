@@ -1,28 +1,40 @@
 package com.qianshe.gateway.filter;
 
-import com.qianshe.gateway.config.RateLimiterRuleConfig;
 import com.qianshe.gateway.exception.GatewayException;
+import com.qianshe.gateway.metrics.GatewayTimers;
 import com.qianshe.gateway.model.Result;
+import com.qianshe.gateway.ratelimit.CompositeLimit;
+import com.qianshe.gateway.ratelimit.LocalRateLimitTier;
+import com.qianshe.gateway.ratelimit.RateLimitMetrics;
+import com.qianshe.gateway.ratelimit.RateLimitSubject;
+import com.qianshe.gateway.ratelimit.RateLimitRuleMatcher;
+import com.qianshe.gateway.ratelimit.RateLimiter;
+import com.qianshe.gateway.ratelimit.RedisRateLimitEngine;
+import com.qianshe.gateway.security.SecurityConfigHolder;
+import com.qianshe.gateway.security.SecuritySnapshot;
+import com.qianshe.gateway.security.WhiteListMatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 /**
  * 自定义限流过滤器
- * 基于Redis实现令牌桶算法的限流机制
+ * 基于Redis实现令牌桶算法的限流机制，每个请求把路由级限流、路径限流以及用户、租户、全局分级配额
+ * 合并为一个{@link CompositeLimit}，只做一次本地预准入检查或一次Redis组合脚本调用，
+ * 脚本执行由{@link RedisRateLimitEngine}负责
+ *
+ * <p>限流主体为鉴权过滤器解析出的登录用户，未登录时回退为客户端IP，见{@link RateLimitSubject}。
+ * 主体相关的限流键使用 {主体} 作为哈希标签，位于同一槽位；租户和全局配额为跨主体共享的键，
+ * 启用这两级配额时组合脚本会跨槽位，只适用于单机或哨兵部署的Redis，默认不启用。
+ * 限流白名单内的接口不计入分级配额</p>
  *
  * @author qianshe
  * @since 1.0.0
@@ -32,103 +44,63 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RateLimitFilter implements GlobalFilter, Ordered {
 
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
-    private final RateLimiterRuleConfig rateLimiterRuleConfig;
-    
-    /**
-     * Redis Lua脚本实现令牌桶算法
-     */
-    private static final String RATE_LIMITER_SCRIPT = 
-            "local key = KEYS[1] " +
-            "local capacity = tonumber(ARGV[1]) " +
-            "local timestamp = tonumber(ARGV[2]) " +
-            "local rate = tonumber(ARGV[3]) " +
-            "local window = tonumber(ARGV[4]) " +
-            "local count = 0 " +
-            "local bucket = redis.call('hgetall', key) " +
-            "if table.getn(bucket) == 0 then " +
-            "  redis.call('hset', key, 'tokens', capacity, 'timestamp', timestamp) " +
-            "  redis.call('expire', key, window) " +
-            "  return capacity - 1 " +
-            "end " +
-            "local available_tokens = tonumber(bucket[2]) " +
-            "local last_timestamp = tonumber(bucket[4]) " +
-            "local elapsed = timestamp - last_timestamp " +
-            "local new_tokens = math.min(capacity, available_tokens + elapsed * rate) " +
-            "if new_tokens < 1 then " +
-            "  return -1 " +
-            "else " +
-            "  redis.call('hset', key, 'tokens', new_tokens - 1, 'timestamp', timestamp) " +
-            "  redis.call('expire', key, window) " +
-            "  return new_tokens - 1 " +
-            "end";
-    
-    /**
-     * 不需要限流的白名单路径
-     */
-    private static final List<String> WHITE_LIST = Arrays.asList(
-            "/auth/login",
-            "/auth/register",
-            "/captcha",
-            "/doc.html",
-            "/swagger-resources",
-            "/swagger-ui",
-            "/v3/api-docs",
-            "/webjars",
-            "/error",
-            "/actuator"
-    );
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    private final RedisRateLimitEngine rateLimitEngine;
+    private final LocalRateLimitTier localRateLimitTier;
+    private final SecurityConfigHolder securityConfigHolder;
+    private final WhiteListMatcher whiteListMatcher;
+    private final RateLimitMetrics rateLimitMetrics;
+    private final GatewayTimers gatewayTimers;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        // 如果限流功能未启用，直接放行
-        if (!rateLimiterRuleConfig.isEnabled()) {
+        // 整个请求使用同一版配置快照；如果限流功能未启用，直接放行
+        SecuritySnapshot snapshot = securityConfigHolder.current();
+        if (!snapshot.isRateLimitEnabled()) {
             return chain.filter(exchange);
         }
+        RateLimitRuleMatcher rules = snapshot.getRateLimitRules();
 
         ServerHttpRequest request = exchange.getRequest();
         String path = request.getURI().getPath();
-        
-        // 白名单内的接口不限流
-        if (WHITE_LIST.stream().anyMatch(path::startsWith)) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+
+        // 限流主体：登录用户，未登录时为客户端IP
+        RateLimitSubject subject = RateLimitSubject.resolve(exchange);
+        String subjectPrefix = KEY_PREFIX + "{" + subject.getKey() + "}:";
+
+        // 组合本次请求需要满足的全部令牌桶，脚本参数已在规则加载时预编码
+        CompositeLimit.Builder builder = CompositeLimit.builder()
+                .add(subjectPrefix + "route:" + routeId, rules.routePolicyFor(routeId));
+        // 白名单内的接口（如/auth/login）不做路径限流，也不计入分级配额，只受路由级限流保护
+        if (!whiteListMatcher.isRateLimitExempt(exchange)) {
+            builder.add(subjectPrefix + path, rules.policyFor(path))
+                    .add(subjectPrefix + "user", rules.getUserQuotaPolicy())
+                    .add(KEY_PREFIX + "tenant:" + subject.getTenant(),
+                            rules.tenantQuotaPolicyFor(subject.getTenant()))
+                    .add(KEY_PREFIX + "global", rules.getGlobalQuotaPolicy());
+        }
+        if (builder.isEmpty()) {
             return chain.filter(exchange);
         }
+        CompositeLimit limit = builder.build();
         
-        // 获取客户端IP
-        String clientIp = request.getRemoteAddress().getAddress().getHostAddress();
-        // 生成限流键（基于IP和请求路径）
-        String key = "rate_limit:" + clientIp + ":" + path;
-        
-        // 获取限流规则
-        RateLimiterRuleConfig.RateLimiterRule rule = rateLimiterRuleConfig.getRule(path);
-        
-        // 获取限流参数
-        int capacity = rule != null ? rule.getCapacity() : rateLimiterRuleConfig.getDefaultCapacity();
-        int rate = rule != null ? rule.getRate() : rateLimiterRuleConfig.getDefaultRate();
-        int window = rule != null ? rule.getWindow() : rateLimiterRuleConfig.getDefaultWindow();
-        
-        // 创建Redis脚本
-        RedisScript<Long> redisScript = RedisScript.of(RATE_LIMITER_SCRIPT, Long.class);
-        
-        // 构建参数列表
-        List<String> keys = Arrays.asList(key);
-        List<String> argsList = new ArrayList<>();
-        argsList.add(String.valueOf(capacity));
-        argsList.add(String.valueOf(Instant.now().getEpochSecond()));
-        argsList.add(String.valueOf(rate));
-        argsList.add(String.valueOf(window));
-        
-        // 执行Redis脚本并处理结果
-        return redisTemplate.execute(redisScript, keys, argsList)
-                .next() // 转换为Mono
-                .flatMap(tokens -> {
-                    if (tokens < 0) {
+        // 本地预准入或执行Redis组合脚本，并处理结果
+        long start = System.nanoTime();
+        return limiter().tryAcquire(limit)
+                .doOnTerminate(() -> gatewayTimers.recordStage(GatewayTimers.Stage.RATE_LIMIT, start))
+                .flatMap(decision -> {
+                    rateLimitMetrics.record(limit, decision);
+                    if (!decision.isAllowed()) {
                         // 没有可用令牌，触发限流
-                        log.warn("[网关]请求被限流: {}, IP: {}", path, clientIp);
+                        log.warn("[网关]请求被限流: {}, 主体: {}, 策略: {}", path, subject,
+                                limit.getPolicy(decision.getLimitedIndex()).getName());
                         return Mono.error(new GatewayException(Result.fail(429, "请求过于频繁，请稍后再试")));
                     } else {
                         // 限流日志记录
-                        log.debug("[网关]限流检查通过: {}, IP: {}, 剩余令牌: {}", path, clientIp, tokens);
+                        log.debug("[网关]限流检查通过: {}, 主体: {}", path, subject);
                         // 继续请求
                         return chain.filter(exchange);
                     }
@@ -140,9 +112,17 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
                 });
     }
 
+    /**
+     * 选择限流器
+     * 启用本地预准入层时优先消费本地租约，否则每个请求执行一次Redis组合脚本
+     */
+    private RateLimiter limiter() {
+        return localRateLimitTier.isEnabled() ? localRateLimitTier : rateLimitEngine;
+    }
+
     @Override
     public int getOrder() {
         // 在AuthFilter之后执行
         return -90;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.qianshe.gateway.filter;
+
+import com.qianshe.gateway.cache.CacheKeys;
+import com.qianshe.gateway.cache.CapturedResponse;
+import com.qianshe.gateway.cache.RequestCoalescer;
+import com.qianshe.gateway.cache.RequestCoalescer.Flight;
+import com.qianshe.gateway.config.CoalescingConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * GET请求合并过滤器
+ * 对配置的路由，合并键（路由、登录用户、路径、查询参数、Accept及Accept-Encoding）相同的并发GET请求
+ * 只转发一个到下游，其余请求共享该响应，见{@link RequestCoalescer}
+ *
+ * <p>只有200且不含Set-Cookie、未声明no-store的响应会被共享；不按用户区分的路由还要求响应未声明private。
+ * 客户端请求头带有Cache-Control: no-cache时不使用微缓存，但仍可与进行中的请求合并</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    private final RequestCoalescer requestCoalescer;
+    private final CoalescingConfig coalescingConfig;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!coalescingConfig.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        CoalescingConfig.RouteCoalescing routeCoalescing =
+                route != null ? coalescingConfig.getRoutes().get(route.getId()) : null;
+        if (routeCoalescing == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = CacheKeys.of(exchange, route.getId(), routeCoalescing.isPerPrincipal());
+        Flight flight = requestCoalescer.join(key);
+        if (flight == null || (flight.isCompleted() && hasNoCache(request.getHeaders()))) {
+            return chain.filter(exchange);
+        }
+
+        if (!flight.tryLead()) {
+            // 等待发起者的响应；发起者放弃合并时自行访问下游
+            log.debug("[请求合并] 合并到进行中的请求: {}", key);
+            return flight.result()
+                    .flatMap(captured -> captured.writeTo(exchange.getResponse()).thenReturn(Boolean.TRUE))
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(Boolean.TRUE)))
+                    .then();
+        }
+
+        CoalescingResponse response = new CoalescingResponse(exchange.getResponse(), key, flight, routeCoalescing);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    if (!response.settled) {
+                        requestCoalescer.abandon(key, flight);
+                    }
+                });
+    }
+
+    private static boolean hasNoCache(HttpHeaders headers) {
+        return CacheKeys.hasDirective(headers.getCacheControl(), "no-cache");
+    }
+
+    @Override
+    public int getOrder() {
+        // 在限流之后、并发限制之前执行，合并的请求不占用下游并发名额
+        return -85;
+    }
+
+    /**
+     * 发起者的响应装饰器
+     * 可共享的响应聚合为一个字节数组交给合并器，再写给发起者自己；不可共享时原样流式写出
+     */
+    private final class CoalescingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Flight flight;
+        private final CoalescingConfig.RouteCoalescing routeCoalescing;
+        private volatile boolean settled;
+
+        private CoalescingResponse(ServerHttpResponse delegate, String key, Flight flight,
+                                   CoalescingConfig.RouteCoalescing routeCoalescing) {
+            super(delegate);
+            this.key = key;
+            this.flight = flight;
+            this.routeCoalescing = routeCoalescing;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            int maxBodySize = coalescingConfig.getMaxBodySize();
+            if (!isShareable() || getHeaders().getContentLength() > maxBodySize) {
+                abandon();
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body)
+                    .defaultIfEmpty(bufferFactory().wrap(new byte[0]))
+                    .flatMap(joined -> {
+                        int size = joined.readableByteCount();
+                        if (size > maxBodySize) {
+                            abandon();
+                            return super.writeWith(Mono.just(joined));
+                        }
+                        byte[] bytes = new byte[size];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+
+                        HttpHeaders headers = new HttpHeaders();
+                        headers.putAll(getHeaders());
+                        CapturedResponse captured = new CapturedResponse(getStatusCode(), headers, bytes);
+                        settled = true;
+                        requestCoalescer.complete(key, flight, captured, cacheTtl());
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // 流式响应不共享
+            abandon();
+            return super.writeAndFlushWith(body);
+        }
+
+        private void abandon() {
+            settled = true;
+            requestCoalescer.abandon(key, flight);
+        }
+
+        private boolean isShareable() {
+            if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()
+                    || getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                return false;
+            }
+            String cacheControl = getHeaders().getCacheControl();
+            return !CacheKeys.hasDirective(cacheControl, "no-store")
+                    && (routeCoalescing.isPerPrincipal() || !CacheKeys.hasDirective(cacheControl, "private"));
+        }
+
+        /**
+         * 微缓存有效期，下游声明no-cache时只合并进行中的请求
+         */
+        private long cacheTtl() {
+            return CacheKeys.hasDirective(getHeaders().getCacheControl(), "no-cache")
+                    ? 0 : routeCoalescing.getCacheTtl();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.qianshe.gateway.filter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.qianshe.gateway.cache.CacheKeys;
+import com.qianshe.gateway.cache.ETags;
+import com.qianshe.gateway.cache.ResponseCache;
+import com.qianshe.gateway.config.ResponseCacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 响应缓存过滤器
+ * 对配置的路由缓存GET响应，响应体存放在堆内并按分段LRU淘汰，见{@link ResponseCache}
+ *
+ * <ul>
+ *     <li>响应带强ETag，下游未提供时按响应体计算；请求的If-None-Match匹配时直接返回304</li>
+ *     <li>缓存命中时不访问下游；下游的Cache-Control为no-store、no-cache，或不按用户区分的路由上为private时不缓存，
+ *     max-age/s-maxage短于路由配置时以下游为准</li>
+ *     <li>只缓存200、不含Set-Cookie、Vary不超出Accept/Accept-Encoding的响应；JSON响应的Result.code不为200时不缓存</li>
+ *     <li>请求带Cache-Control: no-cache时跳过缓存查询，响应仍会写入缓存；带no-store时不经过缓存</li>
+ * </ul>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])(s-maxage|max-age)\\s*=\\s*\"?(\\d{1,10})");
+
+    private static final int RESULT_SUCCESS_CODE = 200;
+
+    private final ResponseCache responseCache;
+    private final ResponseCacheConfig responseCacheConfig;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!responseCacheConfig.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ResponseCacheConfig.RouteCache routeCache =
+                route != null ? responseCacheConfig.getRoutes().get(route.getId()) : null;
+        String requestCacheControl = request.getHeaders().getCacheControl();
+        if (routeCache == null || CacheKeys.hasDirective(requestCacheControl, "no-store")) {
+            return chain.filter(exchange);
+        }
+
+        String key = CacheKeys.of(exchange, route.getId(), routeCache.isPerPrincipal());
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        boolean revalidate = CacheKeys.hasDirective(requestCacheControl, "no-cache")
+                || CacheKeys.hasDirective(request.getHeaders().getPragma(), "no-cache");
+        ResponseCache.Entry entry = revalidate ? null : responseCache.get(key);
+        if (entry != null) {
+            ServerHttpResponse response = exchange.getResponse();
+            if (ETags.matches(ifNoneMatch, entry.getEtag())) {
+                responseCache.record(ResponseCache.Outcome.NOT_MODIFIED);
+                return notModified(response, entry.getHeaders(), entry.getEtag());
+            }
+            responseCache.record(ResponseCache.Outcome.HIT);
+            return entry.writeTo(response);
+        }
+
+        responseCache.record(ResponseCache.Outcome.MISS);
+        CachingResponse response = new CachingResponse(exchange.getResponse(), key, ifNoneMatch, routeCache);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    /**
+     * 返回304，保留缓存相关的响应头
+     */
+    private static Mono<Void> notModified(ServerHttpResponse response, HttpHeaders source, String etag) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        HttpHeaders headers = response.getHeaders();
+        copyIfPresent(source, headers, HttpHeaders.CACHE_CONTROL);
+        copyIfPresent(source, headers, HttpHeaders.EXPIRES);
+        copyIfPresent(source, headers, HttpHeaders.VARY);
+        copyIfPresent(source, headers, HttpHeaders.LAST_MODIFIED);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        headers.setETag(etag);
+        return response.setComplete();
+    }
+
+    private static void copyIfPresent(HttpHeaders source, HttpHeaders target, String name) {
+        List<String> values = source.get(name);
+        if (values != null) {
+            target.put(name, values);
+        }
+    }
+
+    /**
+     * JSON响应是否为成功的Result
+     * 只读取顶层的code字段，非Result结构或解析失败时视为成功
+     */
+    private static boolean isSuccessResult(MediaType contentType, byte[] body) {
+        if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return true;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return true;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("code".equals(field)) {
+                    return value != JsonToken.VALUE_NUMBER_INT || parser.getIntValue() == RESULT_SUCCESS_CODE;
+                }
+                parser.skipChildren();
+            }
+            return true;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // 在限流之后、请求合并之前执行，缓存命中的请求不再参与合并
+        return -86;
+    }
+
+    /**
+     * 缓存未命中时的响应装饰器
+     * 可缓存的响应聚合后计算ETag并写入缓存；不可缓存时原样流式写出
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final List<String> ifNoneMatch;
+        private final ResponseCacheConfig.RouteCache routeCache;
+
+        private CachingResponse(ServerHttpResponse delegate, String key, List<String> ifNoneMatch,
+                                ResponseCacheConfig.RouteCache routeCache) {
+            super(delegate);
+            this.key = key;
+            this.ifNoneMatch = ifNoneMatch;
+            this.routeCache = routeCache;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            int maxBodySize = responseCacheConfig.getMaxBodySize();
+            long ttl = cacheTtl();
+            if (ttl <= 0 || getHeaders().getContentLength() > maxBodySize) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body)
+                    .defaultIfEmpty(bufferFactory().wrap(new byte[0]))
+                    .flatMap(joined -> {
+                        if (joined.readableByteCount() > maxBodySize) {
+                            return super.writeWith(Mono.just(joined));
+                        }
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        if (!isSuccessResult(getHeaders().getContentType(), bytes)) {
+                            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                        }
+
+                        String etag = ETags.isStrong(getHeaders().getETag())
+                                ? getHeaders().getETag() : ETags.strong(bytes);
+                        getHeaders().setETag(etag);
+                        responseCache.put(key, getStatusCode(), getHeaders(), etag, bytes, ttl);
+                        if (ETags.matches(ifNoneMatch, etag)) {
+                            return notModified(getDelegate(), getHeaders(), etag);
+                        }
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        /**
+         * 按下游响应计算缓存有效期
+         *
+         * @return 有效期(毫秒)，不可缓存时返回0
+         */
+        private long cacheTtl() {
+            HttpHeaders headers = getHeaders();
+            if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()
+                    || headers.containsKey(HttpHeaders.SET_COOKIE) || !isVaryCovered(headers.getVary())) {
+                return 0;
+            }
+            String cacheControl = headers.getCacheControl();
+            if (cacheControl == null) {
+                return routeCache.getTtl();
+            }
+            if (CacheKeys.hasDirective(cacheControl, "no-store") || CacheKeys.hasDirective(cacheControl, "no-cache")
+                    || (!routeCache.isPerPrincipal() && CacheKeys.hasDirective(cacheControl, "private"))) {
+                return 0;
+            }
+            // s-maxage面向共享缓存，优先于max-age
+            long maxAge = -1;
+            Matcher matcher = MAX_AGE.matcher(cacheControl.toLowerCase());
+            while (matcher.find()) {
+                long seconds = Long.parseLong(matcher.group(2));
+                if ("s-maxage".equals(matcher.group(1))) {
+                    maxAge = seconds;
+                    break;
+                }
+                maxAge = seconds;
+            }
+            return maxAge < 0 ? routeCache.getTtl() : Math.min(routeCache.getTtl(), maxAge * 1000);
+        }
+
+        /**
+         * Vary中的请求头是否都已包含在缓存键中
+         */
+        private boolean isVaryCovered(List<String> vary) {
+            for (String header : vary) {
+                if (!HttpHeaders.ACCEPT.equalsIgnoreCase(header)
+                        && !HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(header)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
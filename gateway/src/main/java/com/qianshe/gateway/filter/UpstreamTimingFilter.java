@@ -0,0 +1,38 @@
+package com.qianshe.gateway.filter;
+
+import com.qianshe.gateway.metrics.GatewayTimers;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 下游耗时过滤器
+ * 紧接在负载均衡之后执行，后续的路由过滤器在收到下游响应头后完成，
+ * 因此这里记录的是下游处理时间（含对冲），不含响应体写出
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamTimingFilter implements GlobalFilter, Ordered {
+
+    private final GatewayTimers gatewayTimers;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> gatewayTimers.recordStage(GatewayTimers.Stage.UPSTREAM, start));
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,119 @@
+package com.qianshe.gateway.logging;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+/**
+ * 访问日志记录
+ * 每个请求在结束时生成一条，只保存原始字段，JSON格式化由写日志线程完成
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class AccessLogRecord {
+
+    private final long timestamp;
+    private final String requestId;
+    private final String method;
+    private final String path;
+    private final String query;
+    private final InetSocketAddress remoteAddress;
+    private final String routeId;
+    private final URI target;
+    private final int status;
+    private final long durationMillis;
+    private final boolean error;
+
+    private AccessLogRecord(long timestamp, String requestId, String method, String path, String query,
+                            InetSocketAddress remoteAddress, String routeId, URI target, int status,
+                            long durationMillis, boolean error) {
+        this.timestamp = timestamp;
+        this.requestId = requestId;
+        this.method = method;
+        this.path = path;
+        this.query = query;
+        this.remoteAddress = remoteAddress;
+        this.routeId = routeId;
+        this.target = target;
+        this.status = status;
+        this.durationMillis = durationMillis;
+        this.error = error;
+    }
+
+    /**
+     * 根据请求结束时的exchange生成记录
+     *
+     * @param exchange       当前请求
+     * @param timestamp      请求开始时间(毫秒)
+     * @param durationMillis 耗时(毫秒)
+     * @param error          是否以异常结束
+     */
+    public static AccessLogRecord of(ServerWebExchange exchange, long timestamp, long durationMillis, boolean error) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI target = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        return new AccessLogRecord(timestamp, request.getId(), request.getMethod().name(),
+                request.getURI().getRawPath(), request.getURI().getRawQuery(), request.getRemoteAddress(),
+                route != null ? route.getId() : null, target, statusCode != null ? statusCode.value() : 0,
+                durationMillis, error);
+    }
+
+    /**
+     * 是否为异常请求：以异常结束或状态码为4xx/5xx
+     */
+    public static boolean isFailure(ServerWebExchange exchange, boolean error) {
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        return error || (statusCode != null && statusCode.value() >= 400);
+    }
+
+    /**
+     * 以JSON对象格式追加到缓冲区
+     */
+    void appendJson(StringBuilder sb) {
+        sb.append("{\"ts\":").append(timestamp);
+        appendString(sb, "id", requestId);
+        appendString(sb, "method", method);
+        appendString(sb, "path", path);
+        appendString(sb, "query", query);
+        appendString(sb, "ip", remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress() : null);
+        appendString(sb, "route", routeId);
+        appendString(sb, "target", target != null ? target.toString() : null);
+        sb.append(",\"status\":").append(status);
+        sb.append(",\"duration_ms\":").append(durationMillis);
+        sb.append(",\"error\":").append(error);
+        sb.append('}');
+    }
+
+    private static void appendString(StringBuilder sb, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        sb.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
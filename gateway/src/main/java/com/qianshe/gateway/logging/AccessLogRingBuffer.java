@@ -0,0 +1,83 @@
+package com.qianshe.gateway.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 访问日志环形缓冲区
+ * 多生产者单消费者的有界无锁队列，每个槽位带序号：生产者CAS抢占写入位置，消费者按序号判断槽位是否可读。
+ * 写满时写入直接失败，由调用方丢弃记录，事件循环线程不会阻塞
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+final class AccessLogRingBuffer {
+
+    private final AtomicReferenceArray<AccessLogRecord> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * 生产者写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 消费者读取位置，只由写日志线程访问
+     */
+    private long head;
+
+    AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入记录
+     *
+     * @return 缓冲区已满时返回false
+     */
+    boolean offer(AccessLogRecord record) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, record);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 取出记录，只能由单个消费者调用
+     *
+     * @return 没有可读记录时返回null
+     */
+    AccessLogRecord poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        AccessLogRecord record = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return record;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,133 @@
+package com.qianshe.gateway.logging;
+
+import com.qianshe.gateway.config.AccessLogConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志异步写入器
+ * 事件循环线程只把记录放入环形缓冲区，由后台线程格式化为JSON行并写入访问日志Logger；
+ * 缓冲区写满时丢弃记录并计数，不阻塞请求处理
+ *
+ * <p>访问日志使用独立的Logger（{@value #ACCESS_LOGGER_NAME}），可在日志配置中单独指定输出文件</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccessLogWriter {
+
+    public static final String ACCESS_LOGGER_NAME = "com.qianshe.gateway.access";
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger(ACCESS_LOGGER_NAME);
+
+    /**
+     * 缓冲区为空时的等待时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 丢弃计数的报告间隔
+     */
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AccessLogConfig accessLogConfig;
+
+    private final LongAdder dropped = new LongAdder();
+    private AccessLogRingBuffer ringBuffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        ringBuffer = new AccessLogRingBuffer(accessLogConfig.getBufferSize());
+        running = true;
+        writerThread = new Thread(this::drain, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("[访问日志] 后台写入线程已启动，缓冲区大小: {}", ringBuffer.capacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * 记录一次请求
+     * 按采样率筛选正常请求，异常请求始终记录
+     *
+     * @param exchange       当前请求
+     * @param timestamp      请求开始时间(毫秒)
+     * @param durationMillis 耗时(毫秒)
+     * @param error          是否以异常结束
+     */
+    public void record(ServerWebExchange exchange, long timestamp, long durationMillis, boolean error) {
+        if (!accessLogConfig.isEnabled() || !ACCESS_LOG.isInfoEnabled()) {
+            return;
+        }
+        double sampleRate = accessLogConfig.getSampleRate();
+        if (sampleRate < 1.0 && !AccessLogRecord.isFailure(exchange, error)
+                && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (!ringBuffer.offer(AccessLogRecord.of(exchange, timestamp, durationMillis, error))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 累计丢弃的记录数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        StringBuilder line = new StringBuilder(512);
+        long reportedDropped = 0;
+        long nextReportAt = System.nanoTime() + DROP_REPORT_INTERVAL_NANOS;
+        while (true) {
+            AccessLogRecord record = ringBuffer.poll();
+            if (record != null) {
+                line.setLength(0);
+                try {
+                    record.appendJson(line);
+                    ACCESS_LOG.info(line.toString());
+                } catch (Exception e) {
+                    log.warn("[访问日志] 写入失败: {}", e.getMessage());
+                }
+                continue;
+            }
+            if (!running) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - nextReportAt >= 0) {
+                nextReportAt = now + DROP_REPORT_INTERVAL_NANOS;
+                long total = dropped.sum();
+                if (total > reportedDropped) {
+                    log.warn("[访问日志] 缓冲区已满，最近丢弃{}条记录", total - reportedDropped);
+                    reportedDropped = total;
+                }
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.qianshe.gateway.logging;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 请求体/响应体旁路捕获
+ * DataBuffer原样向下游传递，不聚合、不改变读写位置；
+ * 同时把前{@link ScratchBufferPool#getBufferSize()}个字节复制到池化的暂存缓冲区用于日志输出，超出部分只计数
+ *
+ * <p>暂存缓冲区在第一个数据块到达时才借出，调用{@link #release()}后归还，一个实例只用于一次请求</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class BodyCapture {
+
+    private static final String TRUNCATED_SUFFIX = "... [截断，内容过长]";
+
+    private final ScratchBufferPool pool;
+    private byte[] scratch;
+    private ByteBuffer scratchView;
+    private int captured;
+    private long total;
+    private boolean released;
+
+    public BodyCapture(ScratchBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 旁路捕获数据流
+     *
+     * @param body 原始数据流
+     * @return 透传原始DataBuffer的数据流
+     */
+    public Flux<DataBuffer> tee(Publisher<? extends DataBuffer> body) {
+        return Flux.<DataBuffer>from(body).doOnNext(this::capture);
+    }
+
+    /**
+     * 已捕获的文本内容，超出上限时追加截断标记
+     */
+    public synchronized String text() {
+        if (scratch == null) {
+            return "";
+        }
+        String text = new String(scratch, 0, captured, StandardCharsets.UTF_8);
+        return total > captured ? text + TRUNCATED_SUFFIX : text;
+    }
+
+    /**
+     * 数据总字节数
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    /**
+     * 归还暂存缓冲区
+     */
+    public synchronized void release() {
+        released = true;
+        if (scratch != null) {
+            pool.release(scratch);
+            scratch = null;
+            scratchView = null;
+        }
+    }
+
+    private synchronized void capture(DataBuffer buffer) {
+        int readable = buffer.readableByteCount();
+        total += readable;
+        if (released) {
+            return;
+        }
+        int length = Math.min(readable, pool.getBufferSize() - captured);
+        if (length <= 0) {
+            return;
+        }
+        if (scratch == null) {
+            scratch = pool.acquire();
+            scratchView = ByteBuffer.wrap(scratch);
+        }
+        buffer.toByteBuffer(buffer.readPosition(), scratchView, captured, length);
+        captured += length;
+    }
+}
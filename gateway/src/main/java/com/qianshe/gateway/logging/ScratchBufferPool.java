@@ -0,0 +1,66 @@
+package com.qianshe.gateway.logging;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 日志暂存缓冲区池
+ * 固定槽位的无锁对象池，借出与归还都不产生内存分配；池空时临时创建，池满时丢弃归还的缓冲区
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class ScratchBufferPool {
+
+    private final AtomicReferenceArray<byte[]> slots;
+    private final int bufferSize;
+
+    /**
+     * @param capacity   池中最多保留的缓冲区数量
+     * @param bufferSize 单个缓冲区大小
+     */
+    public ScratchBufferPool(int capacity, int bufferSize) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 借出缓冲区
+     */
+    public byte[] acquire() {
+        int start = probeStart();
+        for (int i = 0; i < slots.length(); i++) {
+            int index = (start + i) % slots.length();
+            byte[] buffer = slots.getAndSet(index, null);
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new byte[bufferSize];
+    }
+
+    /**
+     * 归还缓冲区
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        int start = probeStart();
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.compareAndSet((start + i) % slots.length(), null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 按线程分散起始槽位，减少事件循环线程之间的竞争
+     */
+    private int probeStart() {
+        return (int) (Thread.currentThread().getId() % slots.length());
+    }
+}
@@ -0,0 +1,138 @@
+package com.qianshe.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关耗时指标
+ * 按路由统计整个请求的耗时，按阶段统计各过滤器的耗时，用于定位延迟消耗在哪个环节
+ *
+ * <pre>
+ * gateway.route.latency{route, outcome="SUCCESS|CLIENT_ERROR|SERVER_ERROR|ERROR"}  请求总耗时
+ * gateway.filter.latency{stage="blacklist|auth|rate_limit|upstream"}              过滤器阶段耗时
+ * </pre>
+ *
+ * <p>Timer在首次使用时创建并缓存，记录时只做数组下标和Map查找，不创建标签或Sample对象；
+ * 分位数、直方图和SLO区间由management.metrics.distribution配置</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Component
+public class GatewayTimers {
+
+    public static final String ROUTE_METER_NAME = "gateway.route.latency";
+    public static final String FILTER_METER_NAME = "gateway.filter.latency";
+
+    /**
+     * 未匹配路由的请求使用的路由标签
+     */
+    private static final String NO_ROUTE = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer[] stageTimers;
+    private final ConcurrentHashMap<String, Timer[]> routeTimers = new ConcurrentHashMap<>();
+
+    public GatewayTimers(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Stage[] stages = Stage.values();
+        this.stageTimers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder(FILTER_METER_NAME)
+                    .description("网关过滤器阶段耗时")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 记录过滤器阶段耗时
+     *
+     * @param stage      阶段
+     * @param startNanos 阶段开始时的{@link System#nanoTime()}
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录请求总耗时
+     *
+     * @param exchange      当前请求
+     * @param durationNanos 耗时(纳秒)
+     * @param failed        请求是否以异常结束
+     */
+    public void recordRoute(ServerWebExchange exchange, long durationNanos, boolean failed) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : NO_ROUTE;
+        Timer[] timers = routeTimers.get(routeId);
+        if (timers == null) {
+            timers = routeTimers.computeIfAbsent(routeId, this::registerRouteTimers);
+        }
+        Outcome outcome = failed ? Outcome.ERROR : Outcome.of(exchange.getResponse().getStatusCode());
+        timers[outcome.ordinal()].record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer[] registerRouteTimers(String routeId) {
+        Outcome[] outcomes = Outcome.values();
+        Timer[] timers = new Timer[outcomes.length];
+        for (Outcome outcome : outcomes) {
+            timers[outcome.ordinal()] = Timer.builder(ROUTE_METER_NAME)
+                    .description("网关请求总耗时")
+                    .tag("route", routeId)
+                    .tag("outcome", outcome.name())
+                    .register(meterRegistry);
+        }
+        return timers;
+    }
+
+    /**
+     * 过滤器阶段
+     */
+    public enum Stage {
+        /**
+         * IP黑名单检查
+         */
+        BLACKLIST("blacklist"),
+        /**
+         * 令牌校验
+         */
+        AUTH("auth"),
+        /**
+         * 限流判定
+         */
+        RATE_LIMIT("rate_limit"),
+        /**
+         * 下游请求，从负载均衡选定实例到收到响应头
+         */
+        UPSTREAM("upstream");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * 请求结果分类
+     */
+    enum Outcome {
+        SUCCESS, CLIENT_ERROR, SERVER_ERROR, ERROR;
+
+        static Outcome of(HttpStatusCode statusCode) {
+            if (statusCode == null || statusCode.is5xxServerError()) {
+                return SERVER_ERROR;
+            }
+            return statusCode.is4xxClientError() ? CLIENT_ERROR : SUCCESS;
+        }
+    }
+}
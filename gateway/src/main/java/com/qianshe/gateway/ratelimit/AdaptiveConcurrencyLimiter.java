@@ -0,0 +1,128 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.ConcurrencyLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 路由级自适应并发限制器
+ * 每个路由维护一个并发计数和一个{@link AdaptiveLimit}，并发数达到上限时直接拒绝，
+ * 请求结束时把响应时间反馈给算法调整上限，下游变慢时上限随之收缩，排队请求不会一直堆积到响应超时
+ *
+ * <pre>
+ * gateway.concurrency.inflight{route}  当前并发数
+ * gateway.concurrency.limit{route}     当前并发上限
+ * gateway.concurrency.rejected{route}  被拒绝的请求数
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdaptiveConcurrencyLimiter {
+
+    private final ConcurrencyLimitConfig concurrencyLimitConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, RouteLimiter> routeLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试占用路由的一个并发名额
+     *
+     * @param routeId 路由ID
+     * @return 许可，并发已满时返回null
+     */
+    public Permit tryAcquire(String routeId) {
+        RouteLimiter routeLimiter = routeLimiters.get(routeId);
+        if (routeLimiter == null) {
+            routeLimiter = routeLimiters.computeIfAbsent(routeId, this::createRouteLimiter);
+        }
+        AtomicInteger inFlight = routeLimiter.inFlight;
+        int limit = routeLimiter.limit.getLimit();
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                routeLimiter.rejected.increment();
+                return null;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Permit(routeLimiter, current + 1, System.nanoTime());
+    }
+
+    private RouteLimiter createRouteLimiter(String routeId) {
+        AdaptiveLimit limit = AdaptiveLimit.create(concurrencyLimitConfig);
+        RouteLimiter routeLimiter = new RouteLimiter(limit, Counter.builder("gateway.concurrency.rejected")
+                .description("并发超限被拒绝的请求数")
+                .tag("route", routeId)
+                .register(meterRegistry));
+        Gauge.builder("gateway.concurrency.inflight", routeLimiter.inFlight, AtomicInteger::get)
+                .description("路由当前并发数")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.limit", limit, AdaptiveLimit::getLimit)
+                .description("路由当前并发上限")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        log.info("[并发限制] 创建路由并发限制: route={}, algorithm={}, initialLimit={}",
+                routeId, concurrencyLimitConfig.getAlgorithm(), limit.getLimit());
+        return routeLimiter;
+    }
+
+    /**
+     * 路由并发状态
+     */
+    private static final class RouteLimiter {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AdaptiveLimit limit;
+        private final Counter rejected;
+
+        private RouteLimiter(AdaptiveLimit limit, Counter rejected) {
+            this.limit = limit;
+            this.rejected = rejected;
+        }
+    }
+
+    /**
+     * 并发许可，请求结束时必须调用{@link #release(boolean)}或{@link #ignore()}之一归还
+     */
+    public static final class Permit {
+
+        private final RouteLimiter routeLimiter;
+        private final int inFlight;
+        private final long startNanos;
+
+        private Permit(RouteLimiter routeLimiter, int inFlight, long startNanos) {
+            this.routeLimiter = routeLimiter;
+            this.inFlight = inFlight;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 归还名额并提交响应时间样本
+         *
+         * @param dropped 请求是否失败（超时、下游不可用等）
+         */
+        public void release(boolean dropped) {
+            routeLimiter.inFlight.decrementAndGet();
+            routeLimiter.limit.onSample(System.nanoTime() - startNanos, inFlight, dropped);
+        }
+
+        /**
+         * 只归还名额，不提交样本，用于客户端取消等无法反映下游状态的情况
+         */
+        public void ignore() {
+            routeLimiter.inFlight.decrementAndGet();
+        }
+    }
+}
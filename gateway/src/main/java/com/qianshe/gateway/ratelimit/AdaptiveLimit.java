@@ -0,0 +1,174 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.ConcurrencyLimitConfig;
+
+/**
+ * 自适应并发上限
+ * 每个请求结束时提交一个样本（响应时间、请求开始时的并发数、是否失败），由具体算法计算新的上限；
+ * 样本提交在同步块内完成，计算只涉及少量浮点运算，读取上限不加锁
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public abstract class AdaptiveLimit {
+
+    protected final int minLimit;
+    protected final int maxLimit;
+
+    /**
+     * 精确的上限值，只在同步块内修改
+     */
+    private double estimatedLimit;
+
+    /**
+     * 对外发布的整数上限
+     */
+    private volatile int limit;
+
+    protected AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.estimatedLimit = clamp(initialLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 按配置创建
+     */
+    public static AdaptiveLimit create(ConcurrencyLimitConfig config) {
+        if (config.getAlgorithm() == ConcurrencyLimitConfig.Algorithm.GRADIENT) {
+            return new GradientLimit(config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                    config.getSmoothing(), config.getRttTolerance(), config.getProbeInterval());
+        }
+        return new VegasLimit(config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                config.getProbeInterval());
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 提交样本
+     *
+     * @param rttNanos 响应时间(纳秒)
+     * @param inFlight 请求开始时的并发数
+     * @param dropped  请求是否失败（超时、下游不可用等）
+     */
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        estimatedLimit = clamp(update(estimatedLimit, rttNanos, inFlight, dropped));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 计算新的上限
+     *
+     * @param current  当前上限
+     * @param rttNanos 响应时间(纳秒)
+     * @param inFlight 请求开始时的并发数
+     * @param dropped  请求是否失败
+     * @return 新的上限，由调用方限制在[minLimit, maxLimit]内
+     */
+    protected abstract double update(double current, long rttNanos, int inFlight, boolean dropped);
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    /**
+     * Vegas算法
+     * 以观察到的最小响应时间作为无负载基准，排队请求数 = 上限 × (1 - 基准 / 响应时间)；
+     * 排队少于log10(上限)时快速增加，多于6×log10(上限)或请求失败时减少
+     */
+    static final class VegasLimit extends AdaptiveLimit {
+
+        private final int probeInterval;
+        private long rttNoLoad;
+        private int samplesUntilProbe;
+
+        VegasLimit(int initialLimit, int minLimit, int maxLimit, int probeInterval) {
+            super(initialLimit, minLimit, maxLimit);
+            this.probeInterval = Math.max(1, probeInterval);
+            this.samplesUntilProbe = this.probeInterval;
+        }
+
+        @Override
+        protected double update(double current, long rttNanos, int inFlight, boolean dropped) {
+            // 定期重置基准，使下游扩容或永久变慢后基准能够跟随
+            if (--samplesUntilProbe <= 0) {
+                samplesUntilProbe = probeInterval;
+                rttNoLoad = rttNanos;
+                return current;
+            }
+            if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+                rttNoLoad = rttNanos;
+                return current;
+            }
+
+            double log = Math.max(1, Math.log10(current));
+            if (dropped) {
+                return current - log;
+            }
+            // 并发远低于上限时响应时间不能反映上限是否合适
+            if (inFlight * 2 < current) {
+                return current;
+            }
+            double queueSize = Math.ceil(current * (1 - (double) rttNoLoad / rttNanos));
+            if (queueSize <= log) {
+                return current + 6 * log;
+            } else if (queueSize < 3 * log) {
+                return current + log;
+            } else if (queueSize > 6 * log) {
+                return current - log;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 梯度算法
+     * 梯度 = 容忍倍数 × 无负载响应时间 / 本次响应时间，限制在[0.5, 1]内；
+     * 新上限 = 上限 × 梯度 + √上限，再按平滑系数与旧上限加权，响应时间在容忍范围内时上限按√上限缓慢增长
+     */
+    static final class GradientLimit extends AdaptiveLimit {
+
+        private final double smoothing;
+        private final double rttTolerance;
+        private final int probeInterval;
+        private long rttNoLoad;
+        private int samplesUntilProbe;
+
+        GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance,
+                      int probeInterval) {
+            super(initialLimit, minLimit, maxLimit);
+            this.smoothing = Math.max(0.01, Math.min(1.0, smoothing));
+            this.rttTolerance = Math.max(1.0, rttTolerance);
+            this.probeInterval = Math.max(1, probeInterval);
+            this.samplesUntilProbe = this.probeInterval;
+        }
+
+        @Override
+        protected double update(double current, long rttNanos, int inFlight, boolean dropped) {
+            // 定期重置基准，使下游扩容或永久变慢后基准能够跟随
+            if (--samplesUntilProbe <= 0) {
+                samplesUntilProbe = probeInterval;
+                rttNoLoad = rttNanos;
+            } else if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+                rttNoLoad = rttNanos;
+            }
+            if (!dropped && inFlight * 2 < current) {
+                return current;
+            }
+            double gradient = dropped ? 0.5
+                    : Math.max(0.5, Math.min(1.0, rttTolerance * rttNoLoad / rttNanos));
+            double next = current * gradient + Math.sqrt(current);
+            return current * (1 - smoothing) + next * smoothing;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.qianshe.gateway.ratelimit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 组合限流目标
+ * 一个请求需要同时满足的一组令牌桶（路由级、路径规则等），由限流器一次性检查并统一扣减
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class CompositeLimit {
+
+    /**
+     * 组合标识中限流键的分隔符
+     */
+    private static final char KEY_SEPARATOR = '|';
+
+    private final String[] keys;
+    private final RateLimitPolicy[] policies;
+    private String id;
+
+    private CompositeLimit(String[] keys, RateLimitPolicy[] policies) {
+        this.keys = keys;
+        this.policies = policies;
+    }
+
+    /**
+     * 单个令牌桶
+     *
+     * @param key    限流键
+     * @param policy 限流策略
+     */
+    public static CompositeLimit of(String key, RateLimitPolicy policy) {
+        return new CompositeLimit(new String[]{key}, new RateLimitPolicy[]{policy});
+    }
+
+    /**
+     * 两个令牌桶，检查顺序即参数顺序
+     *
+     * @param firstKey     第一个限流键
+     * @param firstPolicy  第一个限流策略
+     * @param secondKey    第二个限流键
+     * @param secondPolicy 第二个限流策略
+     */
+    public static CompositeLimit of(String firstKey, RateLimitPolicy firstPolicy,
+                                    String secondKey, RateLimitPolicy secondPolicy) {
+        return new CompositeLimit(new String[]{firstKey, secondKey},
+                new RateLimitPolicy[]{firstPolicy, secondPolicy});
+    }
+
+    /**
+     * 创建构建器，用于按配置组合数量不定的令牌桶
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 令牌桶数量
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    public RateLimitPolicy getPolicy(int index) {
+        return policies[index];
+    }
+
+    /**
+     * 组合标识，由全部限流键拼接而成，用作本地租约的键
+     */
+    public String id() {
+        String current = id;
+        if (current == null) {
+            if (keys.length == 1) {
+                current = keys[0];
+            } else {
+                StringBuilder sb = new StringBuilder(64);
+                for (int i = 0; i < keys.length; i++) {
+                    if (i > 0) {
+                        sb.append(KEY_SEPARATOR);
+                    }
+                    sb.append(keys[i]);
+                }
+                current = sb.toString();
+            }
+            id = current;
+        }
+        return current;
+    }
+
+    /**
+     * 构建组合脚本的KEYS和ARGV
+     * 限流键按各自的算法追加后缀
+     *
+     * @param timestamp 当前时间戳(毫秒)
+     * @param requested 申请的令牌数
+     * @return KEYS[1..n], ARGV[1..2+4n]
+     */
+    ByteBuffer[] keysAndArgs(long timestamp, int requested) {
+        int n = keys.length;
+        ByteBuffer[] keysAndArgs = new ByteBuffer[n + 2 + 4 * n];
+        for (int i = 0; i < n; i++) {
+            String suffix = policies[i].getAlgorithm().getKeySuffix();
+            String key = suffix.isEmpty() ? keys[i] : keys[i] + suffix;
+            keysAndArgs[i] = ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+        }
+        keysAndArgs[n] = RateLimitPolicy.encode(timestamp);
+        keysAndArgs[n + 1] = RateLimitPolicy.encode(requested);
+        for (int i = 0; i < n; i++) {
+            policies[i].writeArgs(keysAndArgs, n + 2 + 4 * i);
+        }
+        return keysAndArgs;
+    }
+
+    /**
+     * 组合限流目标构建器，策略为null的令牌桶会被忽略
+     */
+    public static final class Builder {
+
+        private String[] keys = new String[4];
+        private RateLimitPolicy[] policies = new RateLimitPolicy[4];
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * 追加令牌桶，检查顺序即追加顺序
+         *
+         * @param key    限流键
+         * @param policy 限流策略，为null时忽略
+         */
+        public Builder add(String key, RateLimitPolicy policy) {
+            if (policy == null) {
+                return this;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                policies = Arrays.copyOf(policies, size * 2);
+            }
+            keys[size] = key;
+            policies[size] = policy;
+            size++;
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public CompositeLimit build() {
+            return new CompositeLimit(Arrays.copyOf(keys, size), Arrays.copyOf(policies, size));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.RateLimiterRuleConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 本地预准入限流层
+ * 每个网关节点按组合限流目标在内存中维护令牌租约，令牌从目标涉及的所有Redis令牌桶中同时批量租用，
+ * 本地有剩余令牌时直接放行，只有租约用完或过期时才同步访问Redis；同一目标同时未命中的请求只发起一次租约
+ *
+ * <p>租用的令牌已从Redis桶中扣除，因此不会多放行请求；租约有效期内令牌在时间上的偏移
+ * 会造成短时超发，超发量由租约大小（受{@code max-overshoot-ratio}限制）和租约有效期共同约束</p>
+ *
+ * <p>单次租约大小为{@code lease-size}与{@code 容量 × max-overshoot-ratio}的较小值，目标中任一桶容量过小
+ * 使租约只有一个令牌时（默认比例0.2下容量小于10），本地层直接按单个令牌访问Redis，不再维护本地桶，
+ * 因此只对容量较大的桶有效</p>
+ *
+ * <p>租户、全局等共享令牌桶会出现在大量主体的组合目标中，本节点在每个租约有效期内
+ * 从同一个共享桶额外租用的令牌总数不超过{@code 容量 × max-overshoot-ratio}，超出后只按单个令牌访问Redis</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalRateLimitTier implements RateLimiter {
+
+    private static final Mono<RateLimitDecision> ADMITTED = Mono.just(RateLimitDecision.allowed());
+
+    private final RedisRateLimitEngine rateLimitEngine;
+    private final RateLimiterRuleConfig rateLimiterRuleConfig;
+
+    /**
+     * 本地令牌租约，键为组合限流目标的标识
+     */
+    private final ConcurrentHashMap<String, LeasedBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 共享令牌桶在本节点的租约预算，键为策略名称
+     */
+    private final ConcurrentHashMap<String, SharedLeaseBudget> sharedBudgets = new ConcurrentHashMap<>();
+
+    /**
+     * 下次允许清理过期租约的时间，避免桶数量达到上限时每个请求都全量扫描
+     */
+    private volatile long nextSweepAt = System.nanoTime();
+
+    /**
+     * 是否启用本地预准入层
+     */
+    public boolean isEnabled() {
+        return rateLimiterRuleConfig.getLocalTier().isEnabled();
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(CompositeLimit limit) {
+        RateLimiterRuleConfig.LocalTier localTier = rateLimiterRuleConfig.getLocalTier();
+        long now = System.nanoTime();
+        String id = limit.id();
+
+        int leaseSize = leaseSizeFor(limit, localTier);
+        if (leaseSize <= 1) {
+            // 目标中有小容量的桶，租约只有一个令牌，本地层无法减少Redis访问
+            return rateLimitEngine.tryAcquire(limit);
+        }
+
+        LeasedBucket bucket = buckets.get(id);
+        if (bucket == null) {
+            if (buckets.size() >= localTier.getMaxBuckets() && !sweep(now, localTier)) {
+                // 本地桶已满，退化为每个请求访问Redis
+                return rateLimitEngine.tryAcquire(limit);
+            }
+            bucket = buckets.computeIfAbsent(id, k -> new LeasedBucket(now));
+        }
+
+        // 快速路径：本地租约内有令牌
+        if (bucket.tryConsume(now)) {
+            return ADMITTED;
+        }
+        // 刚被Redis拒绝过，在下一个令牌产生前不再访问Redis
+        if (bucket.isDenied(now)) {
+            return Mono.just(RateLimitDecision.limited(bucket.deniedIndex));
+        }
+
+        // 同一目标同时未命中的请求合并为一次Redis租约，租约返回后各自从本地桶取令牌
+        LeaseFetch fetch = bucket.pendingLease.get();
+        if (fetch == null) {
+            LeaseFetch created = new LeaseFetch(bucket, lease(limit, bucket, localTier, leaseSize));
+            fetch = bucket.pendingLease.compareAndSet(null, created) ? created : bucket.pendingLease.get();
+            if (fetch == null) {
+                // 其他请求的租约恰好结束，本次租约单独执行
+                fetch = created;
+            }
+        }
+        LeasedBucket leasedBucket = bucket;
+        return fetch.done.then(Mono.defer(() -> {
+            long leasedAt = System.nanoTime();
+            if (leasedBucket.tryConsume(leasedAt)) {
+                return ADMITTED;
+            }
+            if (leasedBucket.isDenied(leasedAt)) {
+                return Mono.just(RateLimitDecision.limited(leasedBucket.deniedIndex));
+            }
+            // 本轮租到的令牌已被同时等待的请求用完，只按单个令牌访问Redis
+            return rateLimitEngine.tryAcquire(limit);
+        }));
+    }
+
+    /**
+     * 从Redis租用令牌并写入本地桶，租到的令牌全部存入本地桶，由等待该租约的请求共同消费
+     */
+    private Mono<Void> lease(CompositeLimit limit, LeasedBucket bucket,
+                             RateLimiterRuleConfig.LocalTier localTier, int maxLeaseSize) {
+        // 延迟到订阅时才占用共享预算，合并失败未被订阅的租约不占用预算
+        return Mono.defer(() -> {
+            long leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(localTier.getLeaseTtl());
+            int leaseSize = reserveSharedBudget(limit, localTier, maxLeaseSize, System.nanoTime(), leaseTtlNanos);
+            return rateLimitEngine.lease(limit, leaseSize)
+                    .doOnNext(granted -> {
+                        long leasedAt = System.nanoTime();
+                        RateLimitDecision decision = RateLimitDecision.fromScriptResult(granted);
+                        if (!decision.isAllowed()) {
+                            int index = decision.getLimitedIndex();
+                            long nanosPerToken = limit.getPolicy(index).nanosPerToken();
+                            bucket.deny(index, leasedAt + (nanosPerToken > 0 ? nanosPerToken : leaseTtlNanos));
+                            return;
+                        }
+                        bucket.deposit(granted.intValue(), leaseSize, leasedAt + leaseTtlNanos);
+                        log.debug("[限流本地层] 租用令牌: key={}, granted={}", limit.id(), granted);
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * 组合限流目标的单次租约令牌数，取各令牌桶允许租约数的最小值
+     */
+    private static int leaseSizeFor(CompositeLimit limit, RateLimiterRuleConfig.LocalTier localTier) {
+        int leaseSize = Integer.MAX_VALUE;
+        for (int i = 0; i < limit.size(); i++) {
+            leaseSize = Math.min(leaseSize, localTier.leaseSizeFor(limit.getPolicy(i)));
+        }
+        return leaseSize;
+    }
+
+    /**
+     * 扣减共享令牌桶的租约预算
+     * 除触发租约的请求自身消费的令牌外，其余令牌还需占用共享令牌桶的租约预算
+     */
+    private int reserveSharedBudget(CompositeLimit limit, RateLimiterRuleConfig.LocalTier localTier,
+                                    int leaseSize, long now, long leaseTtlNanos) {
+        int extra = leaseSize - 1;
+        for (int i = 0; i < limit.size() && extra > 0; i++) {
+            RateLimitPolicy policy = limit.getPolicy(i);
+            if (policy.isShared()) {
+                extra = sharedBudgets.computeIfAbsent(policy.getName(), k -> new SharedLeaseBudget(now))
+                        .reserve(extra, localTier.sharedBudgetFor(policy), now, leaseTtlNanos);
+            }
+        }
+        return 1 + extra;
+    }
+
+    /**
+     * 清理租约过期且不在拒绝期内的本地桶
+     *
+     * @return 清理后是否还有空间
+     */
+    private boolean sweep(long now, RateLimiterRuleConfig.LocalTier localTier) {
+        if (now - nextSweepAt >= 0) {
+            nextSweepAt = now + TimeUnit.MILLISECONDS.toNanos(localTier.getLeaseTtl());
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+            log.debug("[限流本地层] 清理过期租约: {} -> {}", before, buckets.size());
+        }
+        return buckets.size() < localTier.getMaxBuckets();
+    }
+
+    /**
+     * 本地令牌租约
+     * 令牌数使用CAS扣减，过期时间与拒绝截止时间在Redis租约返回时写入
+     */
+    private static final class LeasedBucket {
+
+        private final AtomicInteger tokens = new AtomicInteger();
+        private volatile long expiresAt;
+        private volatile long deniedUntil;
+        private volatile int deniedIndex;
+
+        /**
+         * 正在进行的Redis租约，非空时未命中的请求等待该租约而不再单独访问Redis
+         */
+        private final AtomicReference<LeaseFetch> pendingLease = new AtomicReference<>();
+
+        private LeasedBucket(long now) {
+            this.expiresAt = now;
+            this.deniedUntil = now;
+        }
+
+        boolean tryConsume(long now) {
+            if (now - expiresAt >= 0) {
+                return false;
+            }
+            int current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        boolean isDenied(long now) {
+            return now - deniedUntil < 0;
+        }
+
+        boolean isIdle(long now) {
+            return now - expiresAt >= 0 && !isDenied(now);
+        }
+
+        void deny(int index, long until) {
+            deniedIndex = index;
+            deniedUntil = until;
+        }
+
+        /**
+         * 存入租到的令牌
+         * 旧租约已过期时直接覆盖，否则累加，但不超过单次租约大小
+         */
+        void deposit(int granted, int cap, long newExpiresAt) {
+            boolean expired = System.nanoTime() - expiresAt >= 0;
+            int current;
+            int next;
+            do {
+                current = tokens.get();
+                next = Math.min(cap, (expired ? 0 : Math.max(current, 0)) + granted);
+            } while (!tokens.compareAndSet(current, next));
+            expiresAt = newExpiresAt;
+        }
+    }
+
+    /**
+     * 一次进行中的Redis租约
+     * 结果被缓存，租约结束后才到达的请求也能立即拿到结果；结束时从本地桶上摘除
+     */
+    private static final class LeaseFetch {
+
+        private final Mono<Void> done;
+
+        private LeaseFetch(LeasedBucket bucket, Mono<Void> lease) {
+            this.done = lease
+                    .doFinally(signal -> bucket.pendingLease.compareAndSet(this, null))
+                    .cache();
+        }
+    }
+
+    /**
+     * 共享令牌桶的租约预算
+     * 每个租约有效期内最多额外租用limit个令牌；只在访问Redis前调用，使用同步块即可
+     */
+    private static final class SharedLeaseBudget {
+
+        private long periodStart;
+        private int used;
+
+        private SharedLeaseBudget(long now) {
+            this.periodStart = now;
+        }
+
+        synchronized int reserve(int wanted, int limit, long now, long period) {
+            if (now - periodStart >= period) {
+                periodStart = now;
+                used = 0;
+            }
+            int granted = Math.max(0, Math.min(wanted, limit - used));
+            used += granted;
+            return granted;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.qianshe.gateway.ratelimit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 限流算法
+ * 组合脚本按每个令牌桶的算法编号分别计算，时间精度均为毫秒
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * 令牌桶：哈希中保存令牌数和时间戳，容量为突发上限，rate为每秒令牌数，window为键过期时间(秒)
+     * 每次调用 HMGET + HSET + EXPIRE
+     */
+    TOKEN_BUCKET(1, ""),
+
+    /**
+     * 通用信元速率算法：单个键保存整数形式的理论到达时间(TAT，微秒)，容量为突发上限，rate为每秒请求数，
+     * 键的过期时间为桶恢复满额所需的时间，window不使用
+     * 每次调用 GET + SET PX
+     */
+    GCRA(2, ":gcra"),
+
+    /**
+     * 滑动窗口日志：有序集合记录窗口内每个请求的时间戳，window(秒)内最多放行capacity个请求，rate不使用
+     * 每次调用 ZREMRANGEBYSCORE + ZCARD + ZADD + PEXPIRE，内存占用与窗口内请求数成正比
+     */
+    SLIDING_WINDOW_LOG(3, ":swl");
+
+    /**
+     * 脚本中的算法编号
+     */
+    private final ByteBuffer encodedCode;
+
+    /**
+     * 限流键后缀，不同算法的数据结构不同，切换算法时使用新键，避免与旧数据类型冲突
+     */
+    private final String keySuffix;
+
+    RateLimitAlgorithm(int code, String keySuffix) {
+        this.encodedCode = ByteBuffer.wrap(Integer.toString(code).getBytes(StandardCharsets.US_ASCII));
+        this.keySuffix = keySuffix;
+    }
+
+    ByteBuffer encodedCode() {
+        return encodedCode.duplicate();
+    }
+
+    String getKeySuffix() {
+        return keySuffix;
+    }
+}
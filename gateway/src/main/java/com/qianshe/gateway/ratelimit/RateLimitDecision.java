@@ -0,0 +1,63 @@
+package com.qianshe.gateway.ratelimit;
+
+/**
+ * 限流判定结果
+ * 不可变对象，放行结果和常见的拒绝结果均为共享实例，判定过程不产生内存分配
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class RateLimitDecision {
+
+    private static final RateLimitDecision ALLOWED = new RateLimitDecision(-1);
+
+    private static final RateLimitDecision[] LIMITED = new RateLimitDecision[8];
+
+    static {
+        for (int i = 0; i < LIMITED.length; i++) {
+            LIMITED[i] = new RateLimitDecision(i);
+        }
+    }
+
+    /**
+     * 触发限流的令牌桶序号，放行时为-1
+     */
+    private final int limitedIndex;
+
+    private RateLimitDecision(int limitedIndex) {
+        this.limitedIndex = limitedIndex;
+    }
+
+    /**
+     * 放行
+     */
+    public static RateLimitDecision allowed() {
+        return ALLOWED;
+    }
+
+    /**
+     * 被限流
+     *
+     * @param index 令牌不足的令牌桶在{@link CompositeLimit}中的序号
+     */
+    public static RateLimitDecision limited(int index) {
+        return index < LIMITED.length ? LIMITED[index] : new RateLimitDecision(index);
+    }
+
+    /**
+     * 根据组合脚本返回值生成判定结果
+     *
+     * @param result 获得的令牌数，-i表示第i个桶令牌不足
+     */
+    static RateLimitDecision fromScriptResult(long result) {
+        return result > 0 ? ALLOWED : limited((int) Math.max(0, -result - 1));
+    }
+
+    public boolean isAllowed() {
+        return limitedIndex < 0;
+    }
+
+    public int getLimitedIndex() {
+        return limitedIndex;
+    }
+}
@@ -0,0 +1,83 @@
+package com.qianshe.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 限流指标
+ * 按策略名称统计放行和限流次数：放行时组合目标中的每个策略各计一次放行，
+ * 限流时只计入令牌不足的那个策略，便于定位实际起作用的限流规则
+ *
+ * <pre>
+ * gateway.ratelimit.requests{policy="route:auth-service", outcome="allowed|limited"}
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitMetrics {
+
+    public static final String METER_NAME = "gateway.ratelimit.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 按策略名称缓存计数器，避免每个请求重复查找注册表
+     */
+    private final ConcurrentHashMap<String, PolicyCounters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次限流判定
+     *
+     * @param limit    组合限流目标
+     * @param decision 判定结果
+     */
+    public void record(CompositeLimit limit, RateLimitDecision decision) {
+        if (!decision.isAllowed()) {
+            countersFor(limit.getPolicy(decision.getLimitedIndex())).limited.increment();
+            return;
+        }
+        for (int i = 0; i < limit.size(); i++) {
+            countersFor(limit.getPolicy(i)).allowed.increment();
+        }
+    }
+
+    private PolicyCounters countersFor(RateLimitPolicy policy) {
+        PolicyCounters policyCounters = counters.get(policy.getName());
+        if (policyCounters == null) {
+            policyCounters = counters.computeIfAbsent(policy.getName(), this::register);
+        }
+        return policyCounters;
+    }
+
+    private PolicyCounters register(String policyName) {
+        return new PolicyCounters(
+                Counter.builder(METER_NAME)
+                        .description("限流判定次数")
+                        .tag("policy", policyName)
+                        .tag("outcome", "allowed")
+                        .register(meterRegistry),
+                Counter.builder(METER_NAME)
+                        .description("限流判定次数")
+                        .tag("policy", policyName)
+                        .tag("outcome", "limited")
+                        .register(meterRegistry));
+    }
+
+    private static final class PolicyCounters {
+
+        private final Counter allowed;
+        private final Counter limited;
+
+        private PolicyCounters(Counter allowed, Counter limited) {
+            this.allowed = allowed;
+            this.limited = limited;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.qianshe.gateway.ratelimit;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流策略
+ * 不可变对象，在规则加载时创建，并预先编码好Lua脚本的固定参数，
+ * 避免每个请求重复进行数字到字符串、字符串到字节的转换
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class RateLimitPolicy {
+
+    /**
+     * 默认策略名称
+     */
+    public static final String DEFAULT_NAME = "default";
+
+    /**
+     * 策略名称，用作限流指标的标签
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 限流算法
+     */
+    @Getter
+    private final RateLimitAlgorithm algorithm;
+
+    /**
+     * 是否为多个限流主体共享的令牌桶（租户、全局配额）
+     * 本地预准入层对共享令牌桶的租约总量单独限制，避免每个主体各自租用造成超发
+     */
+    @Getter
+    private final boolean shared;
+
+    /**
+     * 令牌桶容量
+     */
+    @Getter
+    private final int capacity;
+
+    /**
+     * 令牌产生速率
+     */
+    @Getter
+    private final int rate;
+
+    /**
+     * 窗口期(秒)
+     */
+    @Getter
+    private final int window;
+
+    /**
+     * 预编码的脚本参数，内容不会被修改，使用时需duplicate以获得独立的读写位置
+     */
+    private final ByteBuffer encodedCapacity;
+    private final ByteBuffer encodedRate;
+    private final ByteBuffer encodedWindow;
+
+    private RateLimitPolicy(String name, RateLimitAlgorithm algorithm, boolean shared,
+                            int capacity, int rate, int window) {
+        this.name = name;
+        this.algorithm = algorithm;
+        this.shared = shared;
+        this.capacity = capacity;
+        this.rate = rate;
+        this.window = window;
+        this.encodedCapacity = encode(capacity);
+        this.encodedRate = encode(rate);
+        this.encodedWindow = encode(window);
+    }
+
+    /**
+     * 创建限流策略
+     *
+     * @param capacity 令牌桶容量
+     * @param rate     令牌产生速率
+     * @param window   窗口期(秒)
+     * @return 限流策略
+     */
+    public static RateLimitPolicy of(int capacity, int rate, int window) {
+        return new RateLimitPolicy(DEFAULT_NAME, RateLimitAlgorithm.TOKEN_BUCKET, false, capacity, rate, window);
+    }
+
+    /**
+     * 创建带名称的限流策略
+     *
+     * @param name     策略名称
+     * @param capacity 令牌桶容量
+     * @param rate     令牌产生速率
+     * @param window   窗口期(秒)
+     * @return 限流策略
+     */
+    public static RateLimitPolicy of(String name, int capacity, int rate, int window) {
+        return new RateLimitPolicy(name, RateLimitAlgorithm.TOKEN_BUCKET, false, capacity, rate, window);
+    }
+
+    /**
+     * 创建指定算法的限流策略
+     *
+     * @param name      策略名称
+     * @param algorithm 限流算法，为null时使用令牌桶
+     * @param capacity  令牌桶容量
+     * @param rate      令牌产生速率
+     * @param window    窗口期(秒)
+     * @return 限流策略
+     */
+    public static RateLimitPolicy of(String name, RateLimitAlgorithm algorithm, int capacity, int rate, int window) {
+        return new RateLimitPolicy(name, algorithm != null ? algorithm : RateLimitAlgorithm.TOKEN_BUCKET, false,
+                capacity, rate, window);
+    }
+
+    /**
+     * 返回参数相同的共享策略
+     */
+    public RateLimitPolicy asShared() {
+        return shared ? this : new RateLimitPolicy(name, algorithm, true, capacity, rate, window);
+    }
+
+    /**
+     * 平均产生一个令牌所需的时间(纳秒)
+     *
+     * @return 无法计算时返回0
+     */
+    public long nanosPerToken() {
+        if (algorithm == RateLimitAlgorithm.SLIDING_WINDOW_LOG) {
+            return capacity > 0 ? TimeUnit.SECONDS.toNanos(window) / capacity : 0;
+        }
+        return rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+    }
+
+    /**
+     * 写入组合脚本中本策略对应的ARGV
+     * 固定参数只复制ByteBuffer视图，不复制底层字节
+     *
+     * @param target 脚本参数数组
+     * @param offset 本策略参数的起始位置
+     */
+    void writeArgs(ByteBuffer[] target, int offset) {
+        target[offset] = algorithm.encodedCode();
+        target[offset + 1] = encodedCapacity.duplicate();
+        target[offset + 2] = encodedRate.duplicate();
+        target[offset + 3] = encodedWindow.duplicate();
+    }
+
+    static ByteBuffer encode(long value) {
+        return ByteBuffer.wrap(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitPolicy{name=" + name + ", algorithm=" + algorithm + ", capacity=" + capacity + ", rate=" + rate + ", window=" + window + "}";
+    }
+}
@@ -0,0 +1,349 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.RateLimiterRuleConfig.Quota;
+import com.qianshe.gateway.config.RateLimiterRuleConfig.RateLimiterRule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 限流规则匹配器
+ * 启动或刷新配置时将规则按路径段编译为不可变的前缀树，
+ * 查询时按路径段逐级下降并返回最长前缀匹配，复杂度O(路径深度)，与规则数量无关
+ *
+ * <p>匹配以路径段为边界：规则 /api/comment 匹配 /api/comment 与 /api/comment/1，
+ * 不匹配 /api/comments。查询过程不创建子串，不产生内存分配</p>
+ *
+ * <p>同时保存按路由ID配置的路由级策略和用户、租户、全局分级配额，与路径规则一起编译、一起替换</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+public final class RateLimitRuleMatcher {
+
+    private final Node root;
+
+    /**
+     * 未匹配到规则时使用的默认策略
+     */
+    private final RateLimitPolicy defaultPolicy;
+
+    private final int size;
+
+    /**
+     * 路由级策略，键为路由ID
+     */
+    private final Map<String, RateLimitPolicy> routePolicies;
+
+    /**
+     * 未单独配置的路由使用的路由级策略，为null时这些路由不做路由级限流
+     */
+    private final RateLimitPolicy routeDefaultPolicy;
+
+    /**
+     * 每个限流主体的总配额，为null时不限制
+     */
+    private final RateLimitPolicy userQuotaPolicy;
+
+    /**
+     * 租户共享配额，键为租户（账号类型）
+     */
+    private final Map<String, RateLimitPolicy> tenantQuotaPolicies;
+
+    /**
+     * 全局共享配额，为null时不限制
+     */
+    private final RateLimitPolicy globalQuotaPolicy;
+
+    private RateLimitRuleMatcher(Node root, RateLimitPolicy defaultPolicy, int size,
+                                 Map<String, RateLimitPolicy> routePolicies, RateLimitPolicy routeDefaultPolicy,
+                                 RateLimitPolicy userQuotaPolicy, Map<String, RateLimitPolicy> tenantQuotaPolicies,
+                                 RateLimitPolicy globalQuotaPolicy) {
+        this.root = root;
+        this.defaultPolicy = defaultPolicy;
+        this.size = size;
+        this.routePolicies = routePolicies;
+        this.routeDefaultPolicy = routeDefaultPolicy;
+        this.userQuotaPolicy = userQuotaPolicy;
+        this.tenantQuotaPolicies = tenantQuotaPolicies;
+        this.globalQuotaPolicy = globalQuotaPolicy;
+    }
+
+    /**
+     * 编译限流规则
+     *
+     * @param rules         限流规则列表
+     * @param defaultPolicy 默认限流策略
+     * @return 编译后的匹配器
+     */
+    public static RateLimitRuleMatcher compile(List<RateLimiterRule> rules, RateLimitPolicy defaultPolicy) {
+        return compile(rules, defaultPolicy, Collections.emptyMap(), null, null);
+    }
+
+    /**
+     * 编译限流规则、路由级策略及分级配额
+     *
+     * @param rules         限流规则列表
+     * @param defaultPolicy 默认限流策略
+     * @param routes        路由级限流配置，键为路由ID
+     * @param routeDefault  未单独配置的路由使用的限流配置，可为null
+     * @param quota         用户、租户、全局分级配额，可为null
+     * @return 编译后的匹配器
+     */
+    public static RateLimitRuleMatcher compile(List<RateLimiterRule> rules, RateLimitPolicy defaultPolicy,
+                                               Map<String, RateLimiterRule> routes, RateLimiterRule routeDefault,
+                                               Quota quota) {
+        Node root = new Node();
+        int size = 0;
+        if (rules != null) {
+            for (RateLimiterRule rule : rules) {
+                if (rule.getPath() == null) {
+                    continue;
+                }
+                Node node = root;
+                String path = rule.getPath();
+                int start = 0;
+                while ((start = nextSegmentStart(path, start)) < path.length()) {
+                    int end = segmentEnd(path, start);
+                    node = node.getOrCreate(path.substring(start, end));
+                    start = end;
+                }
+                if (node.rule != null) {
+                    log.warn("[限流配置] 限流规则路径重复，后者覆盖前者: {}", path);
+                } else {
+                    size++;
+                }
+                node.rule = new CompiledRule(rule, RateLimitPolicy.of("path:" + path,
+                        rule.getAlgorithm(), rule.getCapacity(), rule.getRate(), rule.getWindow()));
+            }
+        }
+        Map<String, RateLimitPolicy> routePolicies = new HashMap<>();
+        if (routes != null) {
+            routes.forEach((routeId, route) -> routePolicies.put(routeId, RateLimitPolicy.of("route:" + routeId,
+                    route.getAlgorithm(), route.getCapacity(), route.getRate(), route.getWindow())));
+        }
+        RateLimitPolicy routeDefaultPolicy = toPolicy("route:default", routeDefault);
+        RateLimitPolicy userQuotaPolicy = null;
+        Map<String, RateLimitPolicy> tenantQuotaPolicies = new HashMap<>();
+        RateLimitPolicy globalQuotaPolicy = null;
+        if (quota != null) {
+            userQuotaPolicy = toPolicy("quota:user", quota.getUser());
+            if (quota.getTenants() != null) {
+                quota.getTenants().forEach((tenant, rule) ->
+                        tenantQuotaPolicies.put(tenant, toPolicy("quota:tenant:" + tenant, rule).asShared()));
+            }
+            RateLimitPolicy global = toPolicy("quota:global", quota.getGlobal());
+            globalQuotaPolicy = global != null ? global.asShared() : null;
+        }
+        return new RateLimitRuleMatcher(root, defaultPolicy, size, routePolicies, routeDefaultPolicy,
+                userQuotaPolicy, tenantQuotaPolicies, globalQuotaPolicy);
+    }
+
+    private static RateLimitPolicy toPolicy(String name, RateLimiterRule rule) {
+        return rule == null ? null
+                : RateLimitPolicy.of(name, rule.getAlgorithm(), rule.getCapacity(), rule.getRate(), rule.getWindow());
+    }
+
+    /**
+     * 最长前缀匹配
+     *
+     * @param path 请求路径
+     * @return 匹配到的规则，没有匹配时返回null
+     */
+    public CompiledRule match(String path) {
+        Node node = root;
+        CompiledRule best = root.rule;
+        int length = path.length();
+        int start = 0;
+        while ((start = nextSegmentStart(path, start)) < length) {
+            int end = start;
+            int hash = 0;
+            while (end < length && path.charAt(end) != '/') {
+                hash = 31 * hash + path.charAt(end);
+                end++;
+            }
+            node = node.child(path, start, end, hash);
+            if (node == null) {
+                break;
+            }
+            if (node.rule != null) {
+                best = node.rule;
+            }
+            start = end;
+        }
+        return best;
+    }
+
+    /**
+     * 获取路径对应的限流策略
+     *
+     * @param path 请求路径
+     * @return 匹配规则的策略，没有匹配时返回默认策略
+     */
+    public RateLimitPolicy policyFor(String path) {
+        CompiledRule rule = match(path);
+        return rule != null ? rule.getPolicy() : defaultPolicy;
+    }
+
+    /**
+     * 获取路由级限流策略
+     *
+     * @param routeId 路由ID，可为null
+     * @return 路由单独配置的策略，否则为路由默认策略；都未配置时返回null
+     */
+    public RateLimitPolicy routePolicyFor(String routeId) {
+        RateLimitPolicy policy = routeId != null ? routePolicies.get(routeId) : null;
+        return policy != null ? policy : routeDefaultPolicy;
+    }
+
+    /**
+     * 每个限流主体的总配额
+     *
+     * @return 未配置时返回null
+     */
+    public RateLimitPolicy getUserQuotaPolicy() {
+        return userQuotaPolicy;
+    }
+
+    /**
+     * 获取租户共享配额
+     *
+     * @param tenant 租户
+     * @return 未配置时返回null
+     */
+    public RateLimitPolicy tenantQuotaPolicyFor(String tenant) {
+        return tenant != null ? tenantQuotaPolicies.get(tenant) : null;
+    }
+
+    /**
+     * 全局共享配额
+     *
+     * @return 未配置时返回null
+     */
+    public RateLimitPolicy getGlobalQuotaPolicy() {
+        return globalQuotaPolicy;
+    }
+
+    public RateLimitPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * 规则数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int nextSegmentStart(String path, int from) {
+        int i = from;
+        while (i < path.length() && path.charAt(i) == '/') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    /**
+     * 编译后的规则，包含原始规则和预编码的限流策略
+     */
+    public static final class CompiledRule {
+
+        private final RateLimiterRule rule;
+        private final RateLimitPolicy policy;
+
+        private CompiledRule(RateLimiterRule rule, RateLimitPolicy policy) {
+            this.rule = rule;
+            this.policy = policy;
+        }
+
+        public RateLimiterRule getRule() {
+            return rule;
+        }
+
+        public RateLimitPolicy getPolicy() {
+            return policy;
+        }
+    }
+
+    /**
+     * 前缀树节点
+     * 子节点使用开放寻址哈希表存储，查询时直接比较路径区间，无需截取子串；
+     * 节点只在编译期间修改，编译完成后经匹配器的final字段安全发布
+     */
+    private static final class Node {
+
+        private String[] keys;
+        private Node[] children;
+        private int childCount;
+        private CompiledRule rule;
+
+        Node child(String path, int start, int end, int hash) {
+            if (keys == null) {
+                return null;
+            }
+            int segmentLength = end - start;
+            int mask = keys.length - 1;
+            for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+                String key = keys[i];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == segmentLength && key.regionMatches(0, path, start, segmentLength)) {
+                    return children[i];
+                }
+            }
+        }
+
+        Node getOrCreate(String segment) {
+            Node existing = child(segment, 0, segment.length(), segment.hashCode());
+            if (existing != null) {
+                return existing;
+            }
+            if (keys == null) {
+                keys = new String[4];
+                children = new Node[4];
+            } else if ((childCount + 1) * 2 > keys.length) {
+                resize();
+            }
+            Node node = new Node();
+            insert(segment, node);
+            childCount++;
+            return node;
+        }
+
+        private void insert(String segment, Node node) {
+            int mask = keys.length - 1;
+            int i = spread(segment.hashCode()) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = segment;
+            children[i] = node;
+        }
+
+        private void resize() {
+            String[] oldKeys = keys;
+            Node[] oldChildren = children;
+            keys = new String[oldKeys.length * 2];
+            children = new Node[oldChildren.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldChildren[i]);
+                }
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
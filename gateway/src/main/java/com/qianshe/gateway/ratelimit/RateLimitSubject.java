@@ -0,0 +1,71 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.security.TokenLoginResolver;
+import com.qianshe.gateway.security.TokenLoginResolver.TokenLogin;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 限流主体
+ * 已登录请求以鉴权过滤器解析出的账号类型和登录ID作为主体，租户为账号类型；
+ * 未登录或免鉴权的请求回退为客户端IP，租户为{@value #ANONYMOUS_TENANT}
+ *
+ * <p>只信任鉴权过滤器写入exchange的登录信息，不读取客户端可伪造的请求头</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class RateLimitSubject {
+
+    /**
+     * 未登录请求所属的租户
+     */
+    public static final String ANONYMOUS_TENANT = "anonymous";
+
+    /**
+     * 主体标识，如 user:vip:10001 或 ip:10.0.0.1
+     */
+    private final String key;
+
+    /**
+     * 所属租户
+     */
+    private final String tenant;
+
+    private RateLimitSubject(String key, String tenant) {
+        this.key = key;
+        this.tenant = tenant;
+    }
+
+    /**
+     * 解析请求的限流主体
+     *
+     * @param exchange 当前请求
+     * @return 限流主体
+     */
+    public static RateLimitSubject resolve(ServerWebExchange exchange) {
+        TokenLogin tokenLogin = exchange.getAttribute(TokenLoginResolver.TOKEN_LOGIN_ATTR);
+        if (tokenLogin != null) {
+            String loginType = tokenLogin.getStpLogic().getLoginType();
+            return new RateLimitSubject("user:" + loginType + ":" + tokenLogin.getLoginId(), loginType);
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        String ip = remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress() : "unknown";
+        return new RateLimitSubject("ip:" + ip, ANONYMOUS_TENANT);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -0,0 +1,21 @@
+package com.qianshe.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关限流器SPI
+ * 一个请求涉及的全部令牌桶通过{@link CompositeLimit}一次性提交，实现方需保证只有所有桶都有令牌时才扣减
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public interface RateLimiter {
+
+    /**
+     * 从组合限流目标的每个令牌桶中各获取一个令牌
+     *
+     * @param limit 组合限流目标
+     * @return 限流判定结果
+     */
+    Mono<RateLimitDecision> tryAcquire(CompositeLimit limit);
+}
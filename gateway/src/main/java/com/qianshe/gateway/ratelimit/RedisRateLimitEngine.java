@@ -0,0 +1,131 @@
+package com.qianshe.gateway.ratelimit;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Redis限流引擎
+ * 启动时加载一次组合令牌桶脚本并缓存SHA1，请求时通过EVALSHA执行，
+ * Redis重启或执行SCRIPT FLUSH导致脚本丢失时回退到EVAL并重新缓存；
+ * 一个请求涉及的所有令牌桶在同一次脚本调用中检查和扣减
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class RedisRateLimitEngine implements RateLimiter {
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+    /**
+     * 组合令牌桶脚本，单令牌获取与批量租约共用
+     */
+    private final LoadedScript script;
+
+    public RedisRateLimitEngine(ReactiveRedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.script = new LoadedScript("scripts/rate_limiter.lua");
+    }
+
+    /**
+     * 预加载脚本到Redis
+     * 加载失败不影响启动，首次执行时会通过EVAL回退自动加载
+     */
+    @PostConstruct
+    public void preload() {
+        preload(script);
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(CompositeLimit limit) {
+        return lease(limit, 1).map(RateLimitDecision::fromScriptResult);
+    }
+
+    /**
+     * 从组合限流目标的每个令牌桶中批量租用相同数量的令牌
+     *
+     * @param limit     组合限流目标
+     * @param requested 申请的令牌数
+     * @return 实际租到的令牌数；-i表示第i个桶令牌不足，被限流
+     */
+    public Mono<Long> lease(CompositeLimit limit, int requested) {
+        long timestamp = System.currentTimeMillis();
+        return execute(script, limit.size(), () -> limit.keysAndArgs(timestamp, requested));
+    }
+
+    private Mono<Long> execute(LoadedScript script, int numKeys, Supplier<ByteBuffer[]> keysAndArgs) {
+        return redisTemplate.execute(connection -> evalSha(connection, script, numKeys, keysAndArgs.get())
+                        .onErrorResume(RedisRateLimitEngine::isNoScriptError, e -> {
+                            log.info("[限流引擎] Redis中脚本{}不存在，回退到EVAL重新加载", script.location);
+                            // 参数缓冲区可能已被EVALSHA读取过，重新构建一份
+                            return eval(connection, script, numKeys, keysAndArgs.get());
+                        }))
+                .next();
+    }
+
+    private void preload(LoadedScript script) {
+        redisTemplate.execute(connection -> connection.scriptingCommands().scriptLoad(script.body.duplicate()))
+                .next()
+                .subscribe(
+                        sha -> log.info("[限流引擎] 脚本{}预加载完成, sha1={}", script.location, sha),
+                        e -> log.warn("[限流引擎] 脚本{}预加载失败，将在首次执行时加载: {}", script.location, e.getMessage()));
+    }
+
+    private static Mono<Long> evalSha(ReactiveRedisConnection connection, LoadedScript script,
+                                      int numKeys, ByteBuffer[] keysAndArgs) {
+        return connection.scriptingCommands()
+                .<Long>evalSha(script.sha, ReturnType.INTEGER, numKeys, keysAndArgs)
+                .next();
+    }
+
+    private static Mono<Long> eval(ReactiveRedisConnection connection, LoadedScript script,
+                                   int numKeys, ByteBuffer[] keysAndArgs) {
+        return connection.scriptingCommands()
+                .<Long>eval(script.body.duplicate(), ReturnType.INTEGER, numKeys, keysAndArgs)
+                .next();
+    }
+
+    /**
+     * 判断是否为NOSCRIPT错误
+     */
+    private static boolean isNoScriptError(Throwable e) {
+        Throwable current = e;
+        while (current != null) {
+            String message = current.getMessage();
+            if (message != null && message.startsWith("NOSCRIPT")) {
+                return true;
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 已加载的脚本，SHA1与脚本内容在创建后不再变化
+     */
+    private static final class LoadedScript {
+
+        private final String location;
+        private final String sha;
+        private final ByteBuffer body;
+
+        private LoadedScript(String location) {
+            RedisScript<Long> script = RedisScript.of(new ClassPathResource(location), Long.class);
+            this.location = location;
+            this.sha = script.getSha1();
+            this.body = ByteBuffer.wrap(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.qianshe.gateway.security;
+
+import java.util.Arrays;
+
+/**
+ * IP地址工具
+ * 将IPv4与IPv6统一映射为128位整数（IPv4按IPv4映射地址 ::ffff:a.b.c.d 处理），
+ * 以高低两个long表示，供黑名单前缀树和布隆过滤器在原始地址字节上直接计算
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class IpAddresses {
+
+    /**
+     * IPv4映射地址在128位中的前缀位数
+     */
+    public static final int IPV4_MAPPED_OFFSET = 96;
+
+    private static final long IPV4_MAPPED_PREFIX = 0x0000_ffff_0000_0000L;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * 地址高64位
+     *
+     * @param address 4字节或16字节的原始地址
+     */
+    public static long high(byte[] address) {
+        return address.length == 4 ? 0L : readLong(address, 0);
+    }
+
+    /**
+     * 地址低64位
+     *
+     * @param address 4字节或16字节的原始地址
+     */
+    public static long low(byte[] address) {
+        if (address.length == 4) {
+            return IPV4_MAPPED_PREFIX | (readInt(address) & 0xffff_ffffL);
+        }
+        return readLong(address, 8);
+    }
+
+    /**
+     * 解析IP字面量
+     * 按IPv4点分十进制和IPv6冒号十六进制格式逐字符解析，不调用{@link java.net.InetAddress}，不会触发域名解析；
+     * IPv4映射的IPv6地址与{@code InetAddress}一致，返回4字节
+     *
+     * @param literal IP字符串
+     * @return 原始地址字节，格式不合法时返回null
+     */
+    public static byte[] parse(String literal) {
+        if (literal == null) {
+            return null;
+        }
+        String value = literal.trim();
+        if (value.indexOf(':') >= 0) {
+            return parseIpv6(value);
+        }
+        if (value.indexOf('.') >= 0) {
+            byte[] address = new byte[4];
+            return parseIpv4(value, 0, value.length(), address, 0) ? address : null;
+        }
+        return null;
+    }
+
+    /**
+     * 解析点分十进制IPv4地址，必须是4段，每段1~3位十进制数且不超过255
+     */
+    private static boolean parseIpv4(String value, int from, int to, byte[] out, int offset) {
+        int part = 0;
+        int digits = 0;
+        int octet = 0;
+        for (int i = from; i <= to; i++) {
+            if (i == to || value.charAt(i) == '.') {
+                if (digits == 0 || part == 4) {
+                    return false;
+                }
+                out[offset + part++] = (byte) octet;
+                digits = 0;
+                octet = 0;
+                continue;
+            }
+            char c = value.charAt(i);
+            if (c < '0' || c > '9' || ++digits > 3) {
+                return false;
+            }
+            octet = octet * 10 + (c - '0');
+            if (octet > 255) {
+                return false;
+            }
+        }
+        return part == 4;
+    }
+
+    /**
+     * 解析IPv6地址，支持一处"::"压缩和末尾的IPv4点分形式，不支持区域ID
+     */
+    private static byte[] parseIpv6(String value) {
+        int length = value.length();
+        int gap = value.indexOf("::");
+        if (gap >= 0 && value.indexOf("::", gap + 1) >= 0) {
+            return null;
+        }
+        byte[] address = new byte[16];
+        if (gap < 0) {
+            if (parseGroups(value, 0, length, address, 0, true) != 16) {
+                return null;
+            }
+        } else {
+            // "::"至少代表一组0
+            byte[] tail = new byte[16];
+            int headBytes = gap == 0 ? 0 : parseGroups(value, 0, gap, address, 0, false);
+            int tailBytes = gap + 2 == length ? 0 : parseGroups(value, gap + 2, length, tail, 0, true);
+            if (headBytes < 0 || tailBytes < 0 || headBytes + tailBytes > 14) {
+                return null;
+            }
+            System.arraycopy(tail, 0, address, 16 - tailBytes, tailBytes);
+        }
+        return isIpv4Mapped(address) ? Arrays.copyOfRange(address, 12, 16) : address;
+    }
+
+    /**
+     * 解析以冒号分隔的若干组十六进制数
+     *
+     * @param allowIpv4 最后一组是否允许为IPv4点分形式
+     * @return 写入的字节数，格式不合法时返回-1
+     */
+    private static int parseGroups(String value, int from, int to, byte[] out, int offset, boolean allowIpv4) {
+        int start = from;
+        int position = offset;
+        for (int i = from; i <= to; i++) {
+            if (i < to && value.charAt(i) != ':') {
+                continue;
+            }
+            if (i == start) {
+                return -1;
+            }
+            if (allowIpv4 && i == to && value.lastIndexOf('.', to - 1) >= start) {
+                if (position + 4 > out.length || !parseIpv4(value, start, to, out, position)) {
+                    return -1;
+                }
+                return position + 4 - offset;
+            }
+            if (i - start > 4 || position + 2 > out.length) {
+                return -1;
+            }
+            int group = 0;
+            for (int j = start; j < i; j++) {
+                int digit = hexDigit(value.charAt(j));
+                if (digit < 0) {
+                    return -1;
+                }
+                group = group << 4 | digit;
+            }
+            out[position++] = (byte) (group >>> 8);
+            out[position++] = (byte) group;
+            start = i + 1;
+        }
+        return position - offset;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isIpv4Mapped(byte[] address) {
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return address[10] == (byte) 0xff && address[11] == (byte) 0xff;
+    }
+
+    private static int readInt(byte[] bytes) {
+        return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = value << 8 | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,315 @@
+package com.qianshe.gateway.security;
+
+import com.qianshe.gateway.config.IpBlackListConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription.Message;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * IP黑名单
+ * 静态黑名单编译为IP前缀压缩前缀树，支持单个IP、CIDR和IPv6前缀，随安全配置快照一起发布；
+ * Redis动态黑名单在本地维护一份布隆过滤器，布隆过滤器判定不存在的IP直接放行，
+ * 只有可能命中时才访问Redis确认，正常请求不产生Redis调用
+ *
+ * <p>布隆过滤器通过黑名单键的键空间事件增量同步新增条目，并按固定间隔SCAN全量重建，
+ * 以剔除已删除的条目；每次订阅（含重连）确认后立即重建，补齐订阅中断期间丢失的变更。
+ * 首次重建完成前、订阅中断期间所有请求都访问Redis</p>
+ *
+ * <p>键空间事件依赖Redis配置 notify-keyspace-events 包含 Kg$（或KA），该配置默认关闭；
+ * 启动时读取该配置，未开启或无法读取时不启用布隆过滤器，动态黑名单退化为每个请求访问Redis</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IpBlacklist {
+
+    /**
+     * Redis中黑名单的Key前缀
+     */
+    public static final String BLACKLIST_KEY = "gateway:blacklist:ip:";
+
+    /**
+     * 表示条目被移除的键空间事件，布隆过滤器不处理删除
+     */
+    private static final Set<String> REMOVE_EVENTS = Set.of("del", "expired", "evicted");
+
+    private static final int SCAN_COUNT = 1000;
+
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+
+    private final IpBlackListConfig ipBlackListConfig;
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ReactiveRedisConnectionFactory connectionFactory;
+    private final SecurityConfigHolder securityConfigHolder;
+
+    /**
+     * 动态黑名单布隆过滤器，为null表示尚未加载
+     */
+    private volatile IpBloomFilter dynamicFilter;
+
+    /**
+     * 重建期间收到的新增条目，重建完成后补入新过滤器
+     */
+    private final ConcurrentLinkedQueue<byte[]> pendingAdds = new ConcurrentLinkedQueue<>();
+    private volatile boolean resyncing;
+
+    /**
+     * 键空间事件订阅是否有效；依赖键空间事件时，订阅中断期间不发布重建结果
+     */
+    private volatile boolean keyspaceLive;
+    private boolean keyspaceRequired;
+
+    /**
+     * 订阅确认后触发的重建请求，与定期重建串行执行
+     */
+    private final Sinks.Many<Long> resyncRequests = Sinks.many().unicast().onBackpressureBuffer();
+
+    private ReactiveRedisMessageListenerContainer container;
+    private Disposable startupCheck;
+    private Disposable subscription;
+    private Disposable resyncTask;
+
+    @PostConstruct
+    public void init() {
+        IpBlackListConfig.Bloom bloom = ipBlackListConfig.getBloom();
+        if (!bloom.isEnabled()) {
+            return;
+        }
+        Duration interval = Duration.ofSeconds(bloom.getResyncInterval());
+        if (!bloom.isKeyspaceEvents()) {
+            startResync(Duration.ZERO, interval);
+            return;
+        }
+        keyspaceRequired = true;
+        // 首次重建由订阅确认触发，保证重建开始前已在接收增量事件
+        startupCheck = checkKeyspaceEvents().subscribe(enabled -> {
+            if (enabled) {
+                subscribe();
+                startResync(interval, interval);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (startupCheck != null) {
+            startupCheck.dispose();
+        }
+        if (resyncTask != null) {
+            resyncTask.dispose();
+        }
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    public boolean isEnabled() {
+        return securityConfigHolder.current().isBlacklistEnabled();
+    }
+
+    /**
+     * 是否命中静态黑名单
+     *
+     * @param address 原始地址字节
+     */
+    public boolean isStaticBlocked(byte[] address) {
+        return securityConfigHolder.current().getStaticBlacklist().contains(address);
+    }
+
+    /**
+     * 是否可能在动态黑名单中
+     * 返回false时一定不在动态黑名单中；布隆过滤器未启用或未加载时总是返回true
+     *
+     * @param address 原始地址字节
+     */
+    public boolean mightBeDynamicBlocked(byte[] address) {
+        IpBloomFilter filter = dynamicFilter;
+        return filter == null || filter.mightContain(address);
+    }
+
+    /**
+     * 在Redis中确认是否在动态黑名单中
+     *
+     * @param ip IP字符串
+     */
+    public Mono<Boolean> isDynamicBlocked(String ip) {
+        return redisTemplate.hasKey(BLACKLIST_KEY + ip);
+    }
+
+    /**
+     * 读取Redis的notify-keyspace-events配置，确认黑名单键的新增事件会被发布
+     *
+     * @return 是否可以依赖键空间事件；无法读取配置（如托管Redis禁用CONFIG命令）时返回false
+     */
+    private Mono<Boolean> checkKeyspaceEvents() {
+        return redisTemplate.execute(connection -> connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS))
+                .next()
+                .map(config -> config.getProperty(NOTIFY_KEYSPACE_EVENTS, ""))
+                .defaultIfEmpty("")
+                .map(flags -> {
+                    boolean enabled = flags.indexOf('K') >= 0
+                            && (flags.indexOf('A') >= 0 || (flags.indexOf('g') >= 0 && flags.indexOf('$') >= 0));
+                    if (!enabled) {
+                        log.warn("[IP黑名单] Redis {}={}，未包含Kg$，不启用布隆过滤器，动态黑名单每个请求访问Redis",
+                                NOTIFY_KEYSPACE_EVENTS, flags);
+                    }
+                    return enabled;
+                })
+                .onErrorResume(e -> {
+                    log.warn("[IP黑名单] 读取Redis {}失败，不启用布隆过滤器: {}", NOTIFY_KEYSPACE_EVENTS, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * 启动定期重建，同时处理订阅确认后触发的重建请求
+     */
+    private void startResync(Duration initialDelay, Duration interval) {
+        resyncTask = Flux.merge(Flux.interval(initialDelay, interval), resyncRequests.asFlux())
+                .onBackpressureDrop()
+                .concatMap(tick -> resync().onErrorResume(e -> {
+                    log.warn("[IP黑名单] 动态黑名单重建失败: {}", e.getMessage());
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    /**
+     * 订阅黑名单键的键空间事件
+     * 订阅在Redis确认后才视为有效并触发一次重建；中断时立即停用布隆过滤器，重连确认后再重建
+     */
+    private void subscribe() {
+        try {
+            ReactiveRedisMessageListenerContainer listenerContainer = new ReactiveRedisMessageListenerContainer(connectionFactory);
+            SerializationPair<String> pair = SerializationPair.fromSerializer(RedisSerializer.string());
+            container = listenerContainer;
+            subscription = Mono.defer(() -> listenerContainer.receiveLater(
+                            List.of(PatternTopic.of("__keyspace@*__:" + BLACKLIST_KEY + "*")), pair, pair))
+                    .doOnNext(messages -> {
+                        keyspaceLive = true;
+                        log.info("[IP黑名单] 已订阅动态黑名单键空间事件");
+                        if (resyncRequests.tryEmitNext(System.nanoTime()).isFailure()) {
+                            log.warn("[IP黑名单] 触发动态黑名单重建失败，等待下次定期重建");
+                        }
+                    })
+                    .flatMapMany(messages -> messages)
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                            .doBeforeRetry(signal -> {
+                                keyspaceLive = false;
+                                dynamicFilter = null;
+                                log.warn("[IP黑名单] 键空间事件订阅中断，重连中: {}", signal.failure().getMessage());
+                            }))
+                    .subscribe(this::onKeyspaceEvent);
+        } catch (Exception e) {
+            log.warn("[IP黑名单] 订阅键空间事件失败，动态黑名单每个请求访问Redis: {}", e.getMessage());
+        }
+    }
+
+    private void onKeyspaceEvent(Message<String, String> message) {
+        if (REMOVE_EVENTS.contains(message.getMessage())) {
+            return;
+        }
+        String channel = message.getChannel();
+        int index = channel.indexOf(BLACKLIST_KEY);
+        byte[] address = index < 0 ? null : IpAddresses.parse(channel.substring(index + BLACKLIST_KEY.length()));
+        if (address == null) {
+            return;
+        }
+        IpBloomFilter filter = dynamicFilter;
+        if (filter != null) {
+            filter.put(address);
+        }
+        if (resyncing) {
+            pendingAdds.add(address);
+        }
+        log.debug("[IP黑名单] 动态黑名单新增: {}", channel);
+    }
+
+    /**
+     * SCAN全量重建布隆过滤器
+     */
+    private Mono<Void> resync() {
+        resyncing = true;
+        pendingAdds.clear();
+        ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_KEY + "*").count(SCAN_COUNT).build();
+        return redisTemplate.scan(options)
+                .mapNotNull(key -> IpAddresses.parse(key.substring(BLACKLIST_KEY.length())))
+                .collect(AddressList::new, AddressList::add)
+                .doOnNext(addresses -> {
+                    IpBlackListConfig.Bloom bloom = ipBlackListConfig.getBloom();
+                    // 条目数超过预期时按实际数量的两倍扩容，避免误判率失控
+                    long capacity = Math.max(bloom.getExpectedInsertions(), addresses.size * 2L);
+                    IpBloomFilter filter = new IpBloomFilter(capacity, bloom.getFpp());
+                    addresses.putAll(filter);
+                    drainPending(filter);
+                    if (keyspaceRequired && !keyspaceLive) {
+                        // 订阅已中断，期间的新增条目无法同步，继续访问Redis
+                        return;
+                    }
+                    dynamicFilter = filter;
+                    resyncing = false;
+                    drainPending(filter);
+                    log.debug("[IP黑名单] 动态黑名单重建完成，共{}个条目", addresses.size);
+                })
+                .doFinally(signal -> resyncing = false)
+                .then();
+    }
+
+    private void drainPending(IpBloomFilter filter) {
+        byte[] address;
+        while ((address = pendingAdds.poll()) != null) {
+            filter.put(address);
+        }
+    }
+
+    /**
+     * 重建期间暂存扫描结果，每个地址只占两个long
+     */
+    private static final class AddressList {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(byte[] address) {
+            if (size * 2 == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size * 2] = IpAddresses.high(address);
+            values[size * 2 + 1] = IpAddresses.low(address);
+            size++;
+        }
+
+        void putAll(IpBloomFilter filter) {
+            for (int i = 0; i < size; i++) {
+                filter.put(values[i * 2], values[i * 2 + 1]);
+            }
+        }
+    }
+}
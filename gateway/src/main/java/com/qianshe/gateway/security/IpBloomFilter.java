@@ -0,0 +1,110 @@
+package com.qianshe.gateway.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * IP布隆过滤器
+ * 以128位地址为键，双重哈希生成探测位；判定不存在时一定不在集合中，判定存在时需要再确认
+ *
+ * <p>写入使用CAS置位，可与查询并发执行；不支持删除，删除由定期重建处理</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class IpBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预计条目数
+     * @param fpp                期望误判率
+     */
+    public IpBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    /**
+     * 加入地址
+     *
+     * @param address 4字节或16字节的原始地址
+     */
+    public void put(byte[] address) {
+        put(IpAddresses.high(address), IpAddresses.low(address));
+    }
+
+    /**
+     * 加入128位地址
+     */
+    public void put(long high, long low) {
+        long hash1 = mix(low ^ mix(high));
+        long hash2 = mix(hash1 ^ 0x9E37_79B9_7F4A_7C15L) | 1;
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            setBit(Long.remainderUnsigned(combined, bitSize));
+            combined += hash2;
+        }
+    }
+
+    /**
+     * 地址是否可能在集合中
+     *
+     * @param address 4字节或16字节的原始地址
+     */
+    public boolean mightContain(byte[] address) {
+        return mightContain(IpAddresses.high(address), IpAddresses.low(address));
+    }
+
+    /**
+     * 128位地址是否可能在集合中
+     */
+    public boolean mightContain(long high, long low) {
+        long hash1 = mix(low ^ mix(high));
+        long hash2 = mix(hash1 ^ 0x9E37_79B9_7F4A_7C15L) | 1;
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(combined, bitSize);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private void setBit(long index) {
+        int wordIndex = (int) (index >>> 6);
+        long mask = 1L << index;
+        long word;
+        do {
+            word = words.get(wordIndex);
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(wordIndex, word, word | mask));
+    }
+
+    /**
+     * MurmurHash3 64位混淆函数
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 33)) * 0xff51_afd7_ed55_8ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ce_b9fe_1a85_ec53L;
+        return z ^ (z >>> 33);
+    }
+}
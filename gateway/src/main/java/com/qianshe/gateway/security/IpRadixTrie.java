@@ -0,0 +1,213 @@
+package com.qianshe.gateway.security;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+
+/**
+ * IP前缀压缩前缀树（Patricia树）
+ * 将单个IP、IPv4 CIDR和IPv6前缀统一为128位前缀后编译为二叉压缩前缀树，
+ * 节点保存完整前缀，单分支路径被压缩为一个节点，查询深度不超过不同前缀长度的分叉数
+ *
+ * <p>被较短前缀覆盖的条目在编译时合并；查询直接在原始地址字节上进行，不产生内存分配</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+public final class IpRadixTrie {
+
+    private static final int MAX_BITS = 128;
+
+    private final Node root;
+    private final int size;
+
+    private IpRadixTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 编译黑名单条目
+     *
+     * @param entries IP或CIDR，如 192.168.1.100、10.0.0.0/8、2001:db8::/32
+     * @return 编译后的前缀树
+     */
+    public static IpRadixTrie compile(Collection<String> entries) {
+        Node root = new Node(0L, 0L, 0, false);
+        int size = 0;
+        if (entries != null) {
+            for (String entry : entries) {
+                if (entry == null || entry.isBlank()) {
+                    continue;
+                }
+                if (insert(root, entry.trim())) {
+                    size++;
+                } else {
+                    log.warn("[IP黑名单] 无法解析的黑名单条目: {}", entry);
+                }
+            }
+        }
+        return new IpRadixTrie(root, size);
+    }
+
+    /**
+     * 地址是否命中任一前缀
+     *
+     * @param address 4字节或16字节的原始地址
+     */
+    public boolean contains(byte[] address) {
+        return contains(IpAddresses.high(address), IpAddresses.low(address));
+    }
+
+    /**
+     * 128位地址是否命中任一前缀
+     */
+    public boolean contains(long high, long low) {
+        Node node = root;
+        while (node != null) {
+            if (!node.matches(high, low)) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+            if (node.length == MAX_BITS) {
+                return false;
+            }
+            node = bitAt(high, low, node.length) == 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * 条目数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static boolean insert(Node root, String entry) {
+        int slash = entry.indexOf('/');
+        byte[] address = IpAddresses.parse(slash < 0 ? entry : entry.substring(0, slash));
+        if (address == null) {
+            return false;
+        }
+        // 前缀长度按书写形式解释：IPv6形式书写的IPv4映射地址（如::ffff:10.0.0.0/104）按128位计算
+        int offset = address.length == 4 && entry.indexOf(':') < 0 ? IpAddresses.IPV4_MAPPED_OFFSET : 0;
+        int length = MAX_BITS;
+        if (slash >= 0) {
+            try {
+                length = offset + Integer.parseInt(entry.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            if (length < offset || length > MAX_BITS) {
+                return false;
+            }
+        }
+        long high = IpAddresses.high(address) & highMask(length);
+        long low = IpAddresses.low(address) & lowMask(length);
+        insert(root, high, low, length);
+        return true;
+    }
+
+    private static void insert(Node root, long high, long low, int length) {
+        Node current = root;
+        while (true) {
+            if (current.terminal) {
+                // 已被更短的前缀覆盖
+                return;
+            }
+            if (length == current.length) {
+                current.terminal = true;
+                current.left = null;
+                current.right = null;
+                return;
+            }
+            int bit = bitAt(high, low, current.length);
+            Node child = current.child(bit);
+            if (child == null) {
+                current.setChild(bit, new Node(high, low, length, true));
+                return;
+            }
+            int common = commonPrefixLength(high, low, child.high, child.low, Math.min(length, child.length));
+            if (common == child.length) {
+                current = child;
+                continue;
+            }
+            // 在分叉处拆分出中间节点
+            Node middle = new Node(high & highMask(common), low & lowMask(common), common, common == length);
+            current.setChild(bit, middle);
+            if (!middle.terminal) {
+                middle.setChild(bitAt(child.high, child.low, common), child);
+                middle.setChild(bitAt(high, low, common), new Node(high, low, length, true));
+            }
+            return;
+        }
+    }
+
+    private static int bitAt(long high, long low, int index) {
+        return index < 64 ? (int) (high >>> (63 - index)) & 1 : (int) (low >>> (127 - index)) & 1;
+    }
+
+    private static int commonPrefixLength(long high1, long low1, long high2, long low2, int limit) {
+        long diff = high1 ^ high2;
+        int common = diff != 0 ? Long.numberOfLeadingZeros(diff) : 64 + Long.numberOfLeadingZeros(low1 ^ low2);
+        return Math.min(common, limit);
+    }
+
+    private static long highMask(int length) {
+        if (length <= 0) {
+            return 0L;
+        }
+        return length >= 64 ? -1L : -1L << (64 - length);
+    }
+
+    private static long lowMask(int length) {
+        if (length <= 64) {
+            return 0L;
+        }
+        return length >= MAX_BITS ? -1L : -1L << (MAX_BITS - length);
+    }
+
+    /**
+     * 前缀树节点，保存从根开始的完整前缀
+     */
+    private static final class Node {
+
+        private final long high;
+        private final long low;
+        private final long highMask;
+        private final long lowMask;
+        private final int length;
+        private boolean terminal;
+        private Node left;
+        private Node right;
+
+        Node(long high, long low, int length, boolean terminal) {
+            this.high = high;
+            this.low = low;
+            this.highMask = highMask(length);
+            this.lowMask = lowMask(length);
+            this.length = length;
+            this.terminal = terminal;
+        }
+
+        boolean matches(long addressHigh, long addressLow) {
+            return (addressHigh & highMask) == high && (addressLow & lowMask) == low;
+        }
+
+        Node child(int bit) {
+            return bit == 0 ? left : right;
+        }
+
+        void setChild(int bit, Node node) {
+            if (bit == 0) {
+                left = node;
+            } else {
+                right = node;
+            }
+        }
+    }
+}
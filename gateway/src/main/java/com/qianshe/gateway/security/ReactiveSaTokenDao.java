@@ -0,0 +1,94 @@
+package com.qianshe.gateway.security;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoRedisJackson;
+import cn.dev33.satoken.session.SaSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 响应式Sa-Token存储读取
+ * Sa-Token的SaTokenDao是同步接口，通过sa-token-redis-jackson访问Redis时会阻塞调用线程；
+ * 网关鉴权运行在Netty事件循环线程上，因此令牌、有效期和会话的读取改由响应式Redis客户端完成，
+ * 键名与序列化格式与{@link SaTokenDaoRedisJackson}保持一致，和业务服务共享同一份数据
+ *
+ * <p>同一请求并发发出的多个命令在Lettuce共享连接上自动流水线发送，效果等同一次管道读取；
+ * 写操作（登录、注销、续期）仍由业务服务通过Sa-Token完成，网关只读</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveSaTokenDao {
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+    /**
+     * Sa-Token是否使用Redis存储
+     * 使用其他存储时没有对应的响应式实现，调用方需回退到Sa-Token同步接口
+     */
+    public boolean isAvailable() {
+        return SaManager.getSaTokenDao() instanceof SaTokenDaoRedisJackson;
+    }
+
+    /**
+     * 读取字符串值
+     *
+     * @param key 键
+     * @return 值，不存在时为空
+     */
+    public Mono<String> get(String key) {
+        return redisTemplate.execute(connection -> connection.stringCommands().get(encode(key)))
+                .next()
+                .map(buffer -> StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+
+    /**
+     * 读取剩余有效期
+     *
+     * @param key 键
+     * @return 剩余秒数；永不过期为{@link SaTokenDao#NEVER_EXPIRE}，不存在为{@link SaTokenDao#NOT_VALUE_EXPIRE}
+     */
+    public Mono<Long> getTimeout(String key) {
+        return redisTemplate.execute(connection -> connection.keyCommands().ttl(encode(key)))
+                .next()
+                .defaultIfEmpty(SaTokenDao.NOT_VALUE_EXPIRE);
+    }
+
+    /**
+     * 读取会话
+     *
+     * @param sessionId 会话键
+     * @return 会话，不存在时为空
+     */
+    public Mono<SaSession> getSession(String sessionId) {
+        return redisTemplate.execute(connection -> connection.stringCommands().get(encode(sessionId)))
+                .next()
+                .mapNotNull(buffer -> (SaSession) sessionSerializer().deserialize(toBytes(buffer)));
+    }
+
+    /**
+     * 会话序列化器，与Sa-Token写入时使用的Jackson配置一致
+     */
+    private static RedisSerializer<?> sessionSerializer() {
+        return ((SaTokenDaoRedisJackson) SaManager.getSaTokenDao()).objectRedisTemplate.getValueSerializer();
+    }
+
+    private static ByteBuffer encode(String key) {
+        return ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,118 @@
+package com.qianshe.gateway.security;
+
+import com.qianshe.gateway.config.IpBlackListConfig;
+import com.qianshe.gateway.config.RateLimiterRuleConfig;
+import com.qianshe.gateway.config.WhiteListConfig;
+import com.qianshe.gateway.ratelimit.RateLimitRuleMatcher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 安全配置快照持有者
+ * 白名单、IP黑名单和限流规则的属性类只负责绑定配置，配置刷新时由Spring Cloud原地重新绑定，不销毁任何Bean；
+ * 刷新完成后在独立的编译线程中读取新属性并编译全部匹配器，生成新的{@link SecuritySnapshot}，
+ * 最后通过一次volatile写整体替换。请求线程只读取快照，处理中的请求继续使用它已经读到的旧快照
+ *
+ * <p>编译线程是单线程，连续多次刷新按顺序编译和发布，不会被较早的编译结果覆盖；
+ * 编译失败时保留当前快照并记录日志</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SecurityConfigHolder {
+
+    private final WhiteListConfig whiteListConfig;
+    private final IpBlackListConfig ipBlackListConfig;
+    private final RateLimiterRuleConfig rateLimiterRuleConfig;
+
+    private final Scheduler compiler = Schedulers.newSingle("security-config");
+
+    private volatile SecuritySnapshot snapshot;
+
+    /**
+     * 仅在编译线程中递增
+     */
+    private long version;
+
+    /**
+     * 启动时同步编译第一版快照，保证第一个请求到达前快照已就绪
+     */
+    @PostConstruct
+    public void init() {
+        publish(compile());
+    }
+
+    /**
+     * 配置刷新后重新编译
+     * 属性重新绑定在RefreshScopeRefreshedEvent之前完成
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        reload().subscribe();
+    }
+
+    /**
+     * 在编译线程中按当前属性重新编译并发布快照
+     *
+     * @return 新发布的快照，编译失败时返回当前快照
+     */
+    public Mono<SecuritySnapshot> reload() {
+        return Mono.fromCallable(this::compile)
+                .subscribeOn(compiler)
+                .doOnNext(this::publish)
+                .onErrorResume(e -> {
+                    log.error("[安全配置] 配置编译失败，继续使用版本{}: {}", snapshot.getVersion(), e.getMessage(), e);
+                    return Mono.just(snapshot);
+                });
+    }
+
+    /**
+     * 当前快照
+     * 同一请求内需要多次读取时应只调用一次并复用结果
+     */
+    public SecuritySnapshot current() {
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        compiler.dispose();
+    }
+
+    private SecuritySnapshot compile() {
+        WhiteListMatcher.Automaton whiteList = WhiteListMatcher.Automaton.compile(
+                copyOf(whiteListConfig.getWhiteList()), copyOf(whiteListConfig.getRateLimitWhiteList()));
+        String ips = ipBlackListConfig.getIp();
+        IpRadixTrie staticBlacklist = IpRadixTrie.compile(
+                ips == null || ips.isBlank() ? List.of() : Arrays.asList(ips.split(",")));
+        RateLimitRuleMatcher rateLimitRules = rateLimiterRuleConfig.compileMatcher();
+        return new SecuritySnapshot(++version, whiteList, ipBlackListConfig.isEnabled(), staticBlacklist,
+                rateLimiterRuleConfig.isEnabled(), rateLimitRules);
+    }
+
+    private void publish(SecuritySnapshot compiled) {
+        this.snapshot = compiled;
+        log.info("[安全配置] 已发布配置版本{}: 白名单{}个状态, 静态黑名单{}个条目, 限流规则{}条",
+                compiled.getVersion(), compiled.getWhiteList().stateCount(), compiled.getStaticBlacklist().size(),
+                compiled.getRateLimitRules().size());
+    }
+
+    private static List<String> copyOf(List<String> list) {
+        return list != null ? new ArrayList<>(list) : List.of();
+    }
+}
@@ -0,0 +1,58 @@
+package com.qianshe.gateway.security;
+
+import com.qianshe.gateway.ratelimit.RateLimitRuleMatcher;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * 安全配置快照
+ * 白名单自动机、静态黑名单前缀树和限流规则匹配器在同一次编译中生成，创建后不再修改；
+ * 请求线程每次读取到的都是某一版完整配置，不会出现白名单已更新而限流规则仍是旧版的中间状态
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Getter
+public final class SecuritySnapshot {
+
+    /**
+     * 快照版本，每次发布递增
+     */
+    private final long version;
+
+    /**
+     * 白名单自动机
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final WhiteListMatcher.Automaton whiteList;
+
+    /**
+     * 是否启用IP黑名单
+     */
+    private final boolean blacklistEnabled;
+
+    /**
+     * 静态黑名单
+     */
+    private final IpRadixTrie staticBlacklist;
+
+    /**
+     * 是否启用自定义限流
+     */
+    private final boolean rateLimitEnabled;
+
+    /**
+     * 限流规则匹配器
+     */
+    private final RateLimitRuleMatcher rateLimitRules;
+
+    SecuritySnapshot(long version, WhiteListMatcher.Automaton whiteList, boolean blacklistEnabled,
+                     IpRadixTrie staticBlacklist, boolean rateLimitEnabled, RateLimitRuleMatcher rateLimitRules) {
+        this.version = version;
+        this.whiteList = whiteList;
+        this.blacklistEnabled = blacklistEnabled;
+        this.staticBlacklist = staticBlacklist;
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.rateLimitRules = rateLimitRules;
+    }
+}
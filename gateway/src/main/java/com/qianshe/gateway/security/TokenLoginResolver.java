@@ -0,0 +1,195 @@
+package com.qianshe.gateway.security;
+
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.StpLogic;
+import com.qianshe.common.constants.CommonConstants;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 令牌登录信息解析器
+ * 按令牌中的账号类型前缀直接定位StpLogic，再通过{@link ReactiveSaTokenDao}并发读取登录ID、剩余有效期和token会话，
+ * 整个过程不阻塞事件循环线程
+ *
+ * <p>没有类型前缀的旧令牌会同时读取三个账号体系的数据，按admin、vip、user的顺序取第一个有效结果；
+ * token会话中缺少角色信息时才回退读取账号会话，并补写token会话，之后的请求不再回退。
+ * 补写以及非Redis存储下的读取使用Sa-Token同步接口，在弹性线程池中执行</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenLoginResolver {
+
+    /**
+     * 鉴权通过后保存登录信息的exchange属性名，供限流等后续过滤器使用
+     */
+    public static final String TOKEN_LOGIN_ATTR = TokenLoginResolver.class.getName() + ".tokenLogin";
+
+    /**
+     * 账号体系，顺序即旧令牌的探测顺序
+     */
+    private final StpLogic[] stpLogics = {
+            new StpLogic("admin"),
+            new StpLogic("vip"),
+            new StpLogic("user")
+    };
+
+    private final ReactiveSaTokenDao reactiveSaTokenDao;
+
+    /**
+     * 解析令牌
+     *
+     * @param token 令牌
+     * @return 登录信息，令牌无效时为空
+     */
+    public Mono<TokenLogin> resolve(String token) {
+        StpLogic routed = route(token);
+        StpLogic[] candidates = routed != null ? new StpLogic[]{routed} : stpLogics;
+        if (!reactiveSaTokenDao.isAvailable()) {
+            // 非Redis存储没有响应式实现，逐项查询
+            return Mono.fromCallable(() -> loadOneByOne(candidates, token))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(stored -> build(stored, token));
+        }
+        // 各账号体系并发读取，按候选顺序取第一个有效结果
+        return Flux.fromArray(candidates)
+                .flatMapSequential(stpLogic -> load(stpLogic, token))
+                .next()
+                .flatMap(stored -> build(stored, token));
+    }
+
+    /**
+     * 根据令牌前缀定位账号体系
+     *
+     * @param token 令牌
+     * @return 对应的StpLogic，没有前缀或前缀未知时返回null
+     */
+    public StpLogic route(String token) {
+        for (StpLogic stpLogic : stpLogics) {
+            String loginType = stpLogic.getLoginType();
+            int length = loginType.length();
+            if (token.length() > length
+                    && token.charAt(length) == CommonConstants.Token.TYPE_SEPARATOR
+                    && token.startsWith(loginType)) {
+                return stpLogic;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取一个账号体系下的登录ID、剩余有效期和token会话
+     */
+    private Mono<StoredLogin> load(StpLogic stpLogic, String token) {
+        String tokenKey = stpLogic.splicingKeyTokenValue(token);
+        return Mono.zip(
+                        reactiveSaTokenDao.get(tokenKey),
+                        reactiveSaTokenDao.getTimeout(tokenKey),
+                        reactiveSaTokenDao.getSession(stpLogic.splicingKeyTokenSession(token))
+                                .map(Optional::of)
+                                .defaultIfEmpty(Optional.empty()))
+                .filter(tuple -> stpLogic.isValidLoginId(tuple.getT1()))
+                .map(tuple -> new StoredLogin(stpLogic, tuple.getT1(), tuple.getT2(), tuple.getT3().orElse(null)));
+    }
+
+    private StoredLogin loadOneByOne(StpLogic[] candidates, String token) {
+        for (StpLogic stpLogic : candidates) {
+            Object loginId = stpLogic.getLoginIdByToken(token);
+            if (loginId != null) {
+                return new StoredLogin(stpLogic, loginId, stpLogic.getTokenTimeout(token),
+                        stpLogic.getTokenSessionByToken(token, false));
+            }
+        }
+        return null;
+    }
+
+    private Mono<TokenLogin> build(StoredLogin stored, String token) {
+        SaSession tokenSession = stored.tokenSession;
+        boolean frozen = false;
+        List<String> roles = null;
+        if (tokenSession != null) {
+            Object frozenObj = tokenSession.get(CommonConstants.Token.SESSION_FROZEN);
+            frozen = frozenObj != null && Boolean.parseBoolean(frozenObj.toString());
+            roles = rolesOf(tokenSession);
+        }
+        if (roles != null) {
+            return Mono.just(new TokenLogin(stored.stpLogic, stored.loginId, stored.timeout, frozen, roles));
+        }
+        boolean tokenFrozen = frozen;
+        return Mono.fromCallable(() -> backfillTokenSession(stored.stpLogic, token, stored.loginId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(backfilled -> new TokenLogin(stored.stpLogic, stored.loginId, stored.timeout, tokenFrozen,
+                        backfilled));
+    }
+
+    /**
+     * 登录时未写入token会话的旧令牌，从账号会话读取角色并补写token会话
+     */
+    private List<String> backfillTokenSession(StpLogic stpLogic, String token, Object loginId) {
+        SaSession session = stpLogic.getSessionByLoginId(loginId, false);
+        List<String> roles = session == null ? null : rolesOf(session);
+        if (roles == null) {
+            roles = Collections.emptyList();
+        }
+        SaSession tokenSession = stpLogic.getTokenSessionByToken(token);
+        tokenSession.getDataMap().put(CommonConstants.Token.SESSION_LOGIN_ID, loginId);
+        tokenSession.getDataMap().put(CommonConstants.Token.SESSION_USER_TYPE, stpLogic.getLoginType());
+        tokenSession.getDataMap().put(CommonConstants.Token.SESSION_ROLES, roles);
+        tokenSession.update();
+        log.debug("[网关]补写token会话: loginId={}, userType={}", loginId, stpLogic.getLoginType());
+        return roles;
+    }
+
+    /**
+     * 读取会话中的角色列表
+     * 不使用带默认值的get，避免取不到时把默认值写回Redis
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String> rolesOf(SaSession session) {
+        return (List<String>) session.get(CommonConstants.Token.SESSION_ROLES);
+    }
+
+    /**
+     * 存储中读取到的登录数据
+     */
+    @AllArgsConstructor
+    private static final class StoredLogin {
+
+        private final StpLogic stpLogic;
+        private final Object loginId;
+        private final long timeout;
+        private final SaSession tokenSession;
+    }
+
+    /**
+     * 令牌对应的登录信息
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class TokenLogin {
+
+        private final StpLogic stpLogic;
+        private final Object loginId;
+
+        /**
+         * 令牌剩余有效期（秒）
+         */
+        private final long timeout;
+
+        private final boolean frozen;
+        private final List<String> roles;
+    }
+}
@@ -0,0 +1,250 @@
+package com.qianshe.gateway.security;
+
+import cn.dev33.satoken.SaManager;
+import com.qianshe.common.constants.CommonConstants;
+import com.qianshe.gateway.config.TokenCacheConfig;
+import com.qianshe.gateway.security.TokenLoginResolver.TokenLogin;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription.Message;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 令牌校验近端缓存
+ * 在网关节点内存中短时缓存令牌校验结果，命中时整个鉴权过程不访问Redis
+ *
+ * <p>缓存有效期取配置值、令牌剩余有效期和active-timeout一半三者的最小值；
+ * 注销、踢下线、封禁、角色变更等事件通过Redis频道通知各网关节点清除缓存，
+ * 开启键空间事件后令牌键被删除、过期或token会话被改写（如冻结）时也会清除。
+ * 只有Redis确认订阅后缓存才生效；订阅断开期间可能丢失通知，断开时清空全部缓存并停用，重新订阅确认后再启用</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenNearCache {
+
+    private static final String TOKEN_KEY_SEGMENT = ":token:";
+    private static final String TOKEN_SESSION_KEY_SEGMENT = ":token-session:";
+
+    private final TokenCacheConfig tokenCacheConfig;
+    private final ReactiveRedisConnectionFactory connectionFactory;
+
+    private final ConcurrentHashMap<String, CachedLogin> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 失效代数，每次失效通知递增；加载期间代数变化说明结果可能已过时，不写入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 下次允许清理过期缓存的时间
+     */
+    private volatile long nextSweepAt = System.nanoTime();
+
+    /**
+     * 已确认订阅的失效通知监听容器，为null时缓存不生效；订阅确认后设置，断开重连期间清除
+     */
+    private volatile ReactiveRedisMessageListenerContainer container;
+    private ReactiveRedisMessageListenerContainer listenerContainer;
+    private Disposable subscription;
+
+    /**
+     * 订阅失效通知
+     */
+    @PostConstruct
+    public void subscribe() {
+        if (!tokenCacheConfig.isEnabled()) {
+            return;
+        }
+        List<Topic> topics = new ArrayList<>();
+        topics.add(ChannelTopic.of(CommonConstants.Token.INVALIDATE_CHANNEL));
+        if (tokenCacheConfig.isKeyspaceEvents()) {
+            topics.add(PatternTopic.of("__keyevent@*__:del"));
+            topics.add(PatternTopic.of("__keyevent@*__:expired"));
+            topics.add(PatternTopic.of("__keyevent@*__:set"));
+        }
+        try {
+            ReactiveRedisMessageListenerContainer created = new ReactiveRedisMessageListenerContainer(connectionFactory);
+            SerializationPair<String> pair = SerializationPair.fromSerializer(RedisSerializer.string());
+            listenerContainer = created;
+            subscription = Mono.defer(() -> created.receiveLater(topics, pair, pair))
+                    .doOnNext(messages -> {
+                        container = created;
+                        log.info("[令牌缓存] 已订阅失效通知, keyspaceEvents={}", tokenCacheConfig.isKeyspaceEvents());
+                    })
+                    .flatMapMany(messages -> messages)
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                            .maxBackoff(Duration.ofSeconds(30))
+                            .doBeforeRetry(signal -> {
+                                container = null;
+                                invalidateAll();
+                                log.warn("[令牌缓存] 失效通知订阅中断，停用并清空缓存后重连: {}", signal.failure().getMessage());
+                            }))
+                    .subscribe(this::onMessage);
+        } catch (Exception e) {
+            // 收不到失效通知时不能缓存，退化为每次访问Redis
+            log.warn("[令牌缓存] 订阅失效通知失败，近端缓存不生效: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    /**
+     * 获取令牌校验结果，未命中时通过loader加载
+     * 只缓存有效且未冻结的结果
+     *
+     * @param token  令牌
+     * @param loader 加载函数
+     * @return 登录信息，令牌无效时为空
+     */
+    public Mono<TokenLogin> get(String token, Function<String, Mono<TokenLogin>> loader) {
+        if (!tokenCacheConfig.isEnabled() || container == null) {
+            return loader.apply(token);
+        }
+        long now = System.nanoTime();
+        CachedLogin cached = cache.get(token);
+        if (cached != null) {
+            if (now - cached.expiresAt < 0) {
+                return Mono.just(cached.login);
+            }
+            cache.remove(token, cached);
+        }
+
+        long loadGeneration = generation.get();
+        return loader.apply(token).doOnNext(login -> {
+            if (!login.isFrozen() && login.getTimeout() > 0) {
+                put(token, login, loadGeneration, now);
+            }
+        });
+    }
+
+    /**
+     * 使单个令牌的缓存失效
+     */
+    public void invalidateToken(String token) {
+        generation.incrementAndGet();
+        if (cache.remove(token) != null) {
+            log.debug("[令牌缓存] 令牌缓存失效: {}", token);
+        }
+    }
+
+    /**
+     * 使账号下全部令牌的缓存失效
+     */
+    public void invalidateLogin(String loginId) {
+        generation.incrementAndGet();
+        cache.values().removeIf(cached -> loginId.equals(String.valueOf(cached.login.getLoginId())));
+        log.debug("[令牌缓存] 账号缓存失效: {}", loginId);
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private void put(String token, TokenLogin login, long loadGeneration, long now) {
+        if (cache.size() >= tokenCacheConfig.getMaxSize() && !sweep(now)) {
+            return;
+        }
+        cache.put(token, new CachedLogin(login, now + ttlNanos(login)));
+        // 加载期间收到过失效通知，丢弃刚写入的结果
+        if (generation.get() != loadGeneration) {
+            cache.remove(token);
+        }
+    }
+
+    /**
+     * 缓存有效期：配置值、令牌剩余有效期、active-timeout的一半取最小值
+     */
+    private long ttlNanos(TokenLogin login) {
+        long ttlMillis = Math.min(tokenCacheConfig.getTtl(), TimeUnit.SECONDS.toMillis(login.getTimeout()));
+        long activeTimeout = SaManager.getConfig().getActiveTimeout();
+        if (activeTimeout > 0) {
+            ttlMillis = Math.min(ttlMillis, TimeUnit.SECONDS.toMillis(activeTimeout) / 2);
+        }
+        return TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * 清理过期缓存
+     *
+     * @return 清理后是否还有空间
+     */
+    private boolean sweep(long now) {
+        if (now - nextSweepAt >= 0) {
+            nextSweepAt = now + TimeUnit.MILLISECONDS.toNanos(tokenCacheConfig.getTtl());
+            cache.values().removeIf(cached -> now - cached.expiresAt >= 0);
+        }
+        return cache.size() < tokenCacheConfig.getMaxSize();
+    }
+
+    private void onMessage(Message<String, String> message) {
+        String body = message.getMessage();
+        if (CommonConstants.Token.INVALIDATE_CHANNEL.equals(message.getChannel())) {
+            if (body.startsWith(CommonConstants.Token.INVALIDATE_TOKEN)) {
+                invalidateToken(body.substring(CommonConstants.Token.INVALIDATE_TOKEN.length()));
+            } else if (body.startsWith(CommonConstants.Token.INVALIDATE_LOGIN)) {
+                invalidateLogin(body.substring(CommonConstants.Token.INVALIDATE_LOGIN.length()));
+            }
+            return;
+        }
+        // 键空间事件，消息内容为键名
+        int index = body.indexOf(TOKEN_KEY_SEGMENT);
+        if (index >= 0) {
+            invalidateToken(body.substring(index + TOKEN_KEY_SEGMENT.length()));
+            return;
+        }
+        index = body.indexOf(TOKEN_SESSION_KEY_SEGMENT);
+        if (index >= 0) {
+            invalidateToken(body.substring(index + TOKEN_SESSION_KEY_SEGMENT.length()));
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class CachedLogin {
+
+        private final TokenLogin login;
+        private final long expiresAt;
+
+        private CachedLogin(TokenLogin login, long expiresAt) {
+            this.login = login;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
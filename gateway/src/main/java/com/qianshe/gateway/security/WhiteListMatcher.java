@@ -0,0 +1,214 @@
+package com.qianshe.gateway.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 白名单匹配器
+ * 将鉴权白名单与限流白名单编译为同一个字符级前缀自动机，一次扫描请求路径即可得到全部判定结果，
+ * 判定结果以位掩码形式缓存在exchange属性中，鉴权、限流、日志等过滤器共享同一次计算。
+ * 自动机随安全配置快照一起编译和发布，见{@link SecurityConfigHolder}
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class WhiteListMatcher {
+
+    /**
+     * 免鉴权
+     */
+    public static final int AUTH_EXEMPT = 1;
+
+    /**
+     * 免限流
+     */
+    public static final int RATE_LIMIT_EXEMPT = 1 << 1;
+
+    /**
+     * 判定结果在exchange中的属性名
+     */
+    public static final String VERDICT_ATTR = WhiteListMatcher.class.getName() + ".verdict";
+
+    private final SecurityConfigHolder securityConfigHolder;
+
+    /**
+     * 获取请求的白名单判定结果
+     * 同一个exchange只计算一次，后续过滤器直接读取属性
+     *
+     * @param exchange 当前请求
+     * @return 判定位掩码
+     */
+    public int verdict(ServerWebExchange exchange) {
+        Integer cached = exchange.getAttribute(VERDICT_ATTR);
+        if (cached != null) {
+            return cached;
+        }
+        int verdict = match(exchange.getRequest().getURI().getPath());
+        // 0~3在Integer缓存范围内，不产生装箱分配
+        exchange.getAttributes().put(VERDICT_ATTR, verdict);
+        return verdict;
+    }
+
+    /**
+     * 是否免鉴权
+     */
+    public boolean isAuthExempt(ServerWebExchange exchange) {
+        return (verdict(exchange) & AUTH_EXEMPT) != 0;
+    }
+
+    /**
+     * 是否免限流
+     */
+    public boolean isRateLimitExempt(ServerWebExchange exchange) {
+        return (verdict(exchange) & RATE_LIMIT_EXEMPT) != 0;
+    }
+
+    /**
+     * 匹配请求路径
+     *
+     * @param path 请求路径
+     * @return 判定位掩码
+     */
+    public int match(String path) {
+        return path == null ? 0 : securityConfigHolder.current().getWhiteList().match(path);
+    }
+
+    /**
+     * 字符级前缀自动机
+     * 每个状态保存出边字符与目标状态，以及以该状态结尾的白名单项的判定位；
+     * 沿路径逐字符转移并累积经过状态的判定位，即得到所有作为路径前缀的白名单项
+     */
+    static final class Automaton {
+
+        private final char[][] labels;
+        private final int[][] targets;
+        private final int[] verdicts;
+        private final int stateCount;
+
+        private Automaton(char[][] labels, int[][] targets, int[] verdicts, int stateCount) {
+            this.labels = labels;
+            this.targets = targets;
+            this.verdicts = verdicts;
+            this.stateCount = stateCount;
+        }
+
+        static Automaton compile(List<String> authWhiteList, List<String> rateLimitWhiteList) {
+            Builder builder = new Builder();
+            builder.addAll(authWhiteList, AUTH_EXEMPT);
+            builder.addAll(rateLimitWhiteList, RATE_LIMIT_EXEMPT);
+            return builder.build();
+        }
+
+        int stateCount() {
+            return stateCount;
+        }
+
+        int match(String path) {
+            int state = 0;
+            int verdict = verdicts[0];
+            for (int i = 0, length = path.length(); i < length; i++) {
+                state = next(state, path.charAt(i));
+                if (state < 0) {
+                    break;
+                }
+                verdict |= verdicts[state];
+            }
+            return verdict;
+        }
+
+        private int next(int state, char c) {
+            char[] stateLabels = labels[state];
+            for (int i = 0; i < stateLabels.length; i++) {
+                if (stateLabels[i] == c) {
+                    return targets[state][i];
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 自动机构建器，仅在编译期间使用
+     */
+    private static final class Builder {
+
+        private char[][] labels = new char[16][];
+        private int[][] targets = new int[16][];
+        private int[] verdicts = new int[16];
+        private int stateCount;
+
+        Builder() {
+            newState();
+        }
+
+        void addAll(List<String> prefixes, int flag) {
+            if (prefixes == null) {
+                return;
+            }
+            for (String prefix : prefixes) {
+                if (prefix != null) {
+                    add(prefix.trim(), flag);
+                }
+            }
+        }
+
+        void add(String prefix, int flag) {
+            int state = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                int next = find(state, c);
+                if (next < 0) {
+                    next = newState();
+                    labels[state] = append(labels[state], c);
+                    targets[state] = append(targets[state], next);
+                }
+                state = next;
+            }
+            verdicts[state] |= flag;
+        }
+
+        Automaton build() {
+            return new Automaton(Arrays.copyOf(labels, stateCount), Arrays.copyOf(targets, stateCount),
+                    Arrays.copyOf(verdicts, stateCount), stateCount);
+        }
+
+        private int find(int state, char c) {
+            char[] stateLabels = labels[state];
+            for (int i = 0; i < stateLabels.length; i++) {
+                if (stateLabels[i] == c) {
+                    return targets[state][i];
+                }
+            }
+            return -1;
+        }
+
+        private int newState() {
+            if (stateCount == labels.length) {
+                labels = Arrays.copyOf(labels, stateCount * 2);
+                targets = Arrays.copyOf(targets, stateCount * 2);
+                verdicts = Arrays.copyOf(verdicts, stateCount * 2);
+            }
+            labels[stateCount] = new char[0];
+            targets[stateCount] = new int[0];
+            return stateCount++;
+        }
+
+        private static char[] append(char[] array, char value) {
+            char[] result = Arrays.copyOf(array, array.length + 1);
+            result[array.length] = value;
+            return result;
+        }
+
+        private static int[] append(int[] array, int value) {
+            int[] result = Arrays.copyOf(array, array.length + 1);
+            result[array.length] = value;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.qianshe.gateway.upstream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲预算
+ * 每个请求存入budgetPercent%个令牌，每次对冲或重试取出一个令牌，余额不足时不再对冲；
+ * 因此无论下游多慢，额外请求都不超过原始请求数的budgetPercent%（外加burst个初始令牌）
+ *
+ * <p>余额以千分之一令牌为单位保存在一个AtomicLong中，存取都是无锁CAS</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public final class HedgeBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    /**
+     * @param percent 对冲请求占原始请求的百分比上限
+     * @param burst   最多累积的令牌数
+     */
+    public HedgeBudget(int percent, int burst) {
+        this.deposit = Math.max(0, percent) * SCALE / 100;
+        this.capacity = Math.max(1, burst) * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * 记录一个原始请求
+     */
+    public void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * 尝试为一次对冲或重试取出令牌
+     *
+     * @return 余额足够时返回true
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
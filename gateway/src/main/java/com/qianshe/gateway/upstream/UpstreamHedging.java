@@ -0,0 +1,172 @@
+package com.qianshe.gateway.upstream;
+
+import com.qianshe.gateway.config.HedgingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由对冲状态
+ * 每个路由维护一个下游响应时间分布、一个{@link HedgeBudget}和对冲计数；
+ * 对冲延迟取响应时间的配置分位数（默认p95），每秒最多重新计算一次
+ *
+ * <pre>
+ * gateway.hedge.upstream{route}                    每次下游请求收到响应头的耗时，含配置分位数
+ * gateway.hedge.attempts{route, result="sent"}     发出的对冲及重试请求数
+ * gateway.hedge.attempts{route, result="won"}      对冲请求先于原始请求返回的次数
+ * gateway.hedge.attempts{route, result="denied"}   预算不足放弃对冲的次数
+ * </pre>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UpstreamHedging {
+
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final HedgingConfig hedgingConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, RouteState> routeStates = new ConcurrentHashMap<>();
+
+    /**
+     * 路由对冲状态
+     *
+     * @param routeId      路由ID
+     * @param routeHedging 路由配置
+     */
+    public RouteState state(String routeId, HedgingConfig.RouteHedging routeHedging) {
+        RouteState state = routeStates.get(routeId);
+        if (state == null) {
+            state = routeStates.computeIfAbsent(routeId, id -> createState(id, routeHedging));
+        }
+        return state;
+    }
+
+    private RouteState createState(String routeId, HedgingConfig.RouteHedging routeHedging) {
+        Timer latency = Timer.builder("gateway.hedge.upstream")
+                .description("下游请求收到响应头的耗时")
+                .tag("route", routeId)
+                .publishPercentiles(routeHedging.getPercentile())
+                .distributionStatisticExpiry(Duration.ofSeconds(30))
+                .distributionStatisticBufferLength(3)
+                .register(meterRegistry);
+        log.info("[对冲请求] 创建路由对冲状态: route={}, percentile={}, budget={}%",
+                routeId, routeHedging.getPercentile(), hedgingConfig.getBudgetPercent());
+        return new RouteState(routeHedging, latency,
+                new HedgeBudget(hedgingConfig.getBudgetPercent(), hedgingConfig.getBudgetBurst()),
+                attemptCounter(routeId, "sent"), attemptCounter(routeId, "won"), attemptCounter(routeId, "denied"));
+    }
+
+    private Counter attemptCounter(String routeId, String result) {
+        return Counter.builder("gateway.hedge.attempts")
+                .description("对冲请求次数")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 单个路由的对冲状态
+     */
+    public final class RouteState {
+
+        private final HedgingConfig.RouteHedging routeHedging;
+        private final Timer latency;
+        private final HedgeBudget budget;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter denied;
+
+        private volatile long hedgeDelayNanos;
+        private volatile long refreshAt;
+
+        private RouteState(HedgingConfig.RouteHedging routeHedging, Timer latency, HedgeBudget budget,
+                           Counter sent, Counter won, Counter denied) {
+            this.routeHedging = routeHedging;
+            this.latency = latency;
+            this.budget = budget;
+            this.sent = sent;
+            this.won = won;
+            this.denied = denied;
+            this.hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(routeHedging.getInitialDelay());
+            this.refreshAt = System.nanoTime();
+        }
+
+        /**
+         * 记录一个原始请求，向预算存入令牌
+         */
+        public void onRequest() {
+            budget.deposit();
+        }
+
+        /**
+         * 记录一次下游请求收到响应头的耗时
+         */
+        public void recordLatency(long nanos) {
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * 尝试发出一次对冲或重试
+         *
+         * @return 预算足够时返回true
+         */
+        public boolean tryHedge() {
+            if (budget.tryWithdraw()) {
+                sent.increment();
+                return true;
+            }
+            denied.increment();
+            return false;
+        }
+
+        /**
+         * 记录对冲请求胜出
+         */
+        public void onHedgeWon() {
+            won.increment();
+        }
+
+        /**
+         * 延迟预算
+         */
+        public Duration timeout() {
+            return Duration.ofMillis(routeHedging.getTimeout());
+        }
+
+        /**
+         * 对冲延迟：原始请求超过该时间仍未收到响应头时发出对冲请求
+         */
+        public Duration hedgeDelay() {
+            long now = System.nanoTime();
+            if (now - refreshAt >= 0) {
+                refreshAt = now + REFRESH_INTERVAL_NANOS;
+                hedgeDelayNanos = computeHedgeDelay();
+            }
+            return Duration.ofNanos(hedgeDelayNanos);
+        }
+
+        private long computeHedgeDelay() {
+            long minDelay = TimeUnit.MILLISECONDS.toNanos(routeHedging.getMinDelay());
+            HistogramSnapshot snapshot = latency.takeSnapshot();
+            ValueAtPercentile[] percentiles = snapshot.percentileValues();
+            if (snapshot.count() < hedgingConfig.getMinSamples() || percentiles.length == 0) {
+                return Math.max(minDelay, TimeUnit.MILLISECONDS.toNanos(routeHedging.getInitialDelay()));
+            }
+            return Math.max(minDelay, (long) percentiles[0].value(TimeUnit.NANOSECONDS));
+        }
+    }
+}
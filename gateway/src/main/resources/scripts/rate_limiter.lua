@@ -0,0 +1,76 @@
+-- 组合限流脚本：一次调用检查一个请求涉及的全部限流桶（路由级、路径规则等），
+-- 只有所有桶都有余量时才统一扣减，单令牌获取与本地层批量租约共用该脚本
+-- KEYS[1..n]: 限流键
+-- ARGV[1]: 当前时间戳(毫秒)
+-- ARGV[2]: 本次申请的令牌数
+-- ARGV[4i-1..4i+2]: 第i个桶的算法编号、容量、速率(每秒)、窗口期(秒)
+--   算法 1: 令牌桶  2: GCRA  3: 滑动窗口日志
+-- 返回实际获得的令牌数（不超过申请数与各桶余量的最小值）；
+-- 被限流时返回 -i，i 为第一个余量不足的桶序号
+local now = tonumber(ARGV[1])
+local requested = tonumber(ARGV[2])
+local algorithms = {}
+local states = {}
+local granted = requested
+
+-- 第一轮：只读取，计算每个桶当前可用的令牌数
+for i = 1, #KEYS do
+  local base = 4 * i - 1
+  local algorithm = tonumber(ARGV[base])
+  local capacity = tonumber(ARGV[base + 1])
+  local rate = tonumber(ARGV[base + 2])
+  local window = tonumber(ARGV[base + 3])
+  local available
+  if algorithm == 2 then
+    -- TAT以微秒整数保存，emission为产生一个令牌的间隔(微秒)
+    local now_us = now * 1000
+    local emission = math.max(1, math.floor(1000000 / math.max(rate, 1)))
+    local tat = tonumber(redis.call('get', KEYS[i]) or 0)
+    if tat < now_us then
+      tat = now_us
+    end
+    available = math.floor((now_us + capacity * emission - tat) / emission)
+    states[i] = {tat, emission, now_us}
+  elseif algorithm == 3 then
+    local window_ms = window * 1000
+    redis.call('zremrangebyscore', KEYS[i], '-inf', now - window_ms)
+    local count = redis.call('zcard', KEYS[i])
+    available = capacity - count
+    states[i] = {count, window_ms}
+  else
+    local bucket = redis.call('hmget', KEYS[i], 'tokens', 'timestamp')
+    available = capacity
+    if bucket[1] then
+      local elapsed = math.max(0, now - tonumber(bucket[2]))
+      available = math.min(capacity, tonumber(bucket[1]) + elapsed * rate / 1000)
+    end
+    states[i] = {available, window}
+  end
+  if available < 1 then
+    return -i
+  end
+  algorithms[i] = algorithm
+  granted = math.min(granted, math.floor(available))
+end
+
+-- 第二轮：所有桶都有余量，统一扣减
+for i = 1, #KEYS do
+  local state = states[i]
+  if algorithms[i] == 2 then
+    local tat = state[1] + granted * state[2]
+    -- 数字参数默认按%.14g转为字符串，微秒时间戳超过14位，需按整数格式化
+    redis.call('set', KEYS[i], string.format('%d', tat), 'PX', math.ceil((tat - state[3]) / 1000))
+  elseif algorithms[i] == 3 then
+    local members = {}
+    for j = 1, granted do
+      members[2 * j - 1] = now
+      members[2 * j] = now .. '-' .. (state[1] + j)
+    end
+    redis.call('zadd', KEYS[i], unpack(members))
+    redis.call('pexpire', KEYS[i], state[2])
+  else
+    redis.call('hset', KEYS[i], 'tokens', state[1] - granted, 'timestamp', now)
+    redis.call('expire', KEYS[i], state[2])
+  end
+end
+return granted
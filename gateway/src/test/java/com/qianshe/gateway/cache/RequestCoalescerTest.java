@@ -0,0 +1,128 @@
+package com.qianshe.gateway.cache;
+
+import com.qianshe.gateway.cache.RequestCoalescer.Flight;
+import com.qianshe.gateway.config.CoalescingConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RequestCoalescer测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class RequestCoalescerTest {
+
+    private static final String KEY = "stellar-bridge||/api/stellar/list|null|null";
+
+    private CoalescingConfig config;
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        config = new CoalescingConfig();
+        coalescer = new RequestCoalescer(config);
+    }
+
+    @Test
+    void testOnlyFirstCallerLeads() {
+        Flight first = coalescer.join(KEY);
+        Flight second = coalescer.join(KEY);
+
+        assertSame(first, second);
+        assertTrue(first.tryLead());
+        assertFalse(second.tryLead());
+        assertFalse(first.isCompleted());
+    }
+
+    @Test
+    void testFollowersReceiveLeaderResponse() {
+        Flight flight = coalescer.join(KEY);
+        flight.tryLead();
+        AtomicReference<CapturedResponse> received = new AtomicReference<>();
+        coalescer.join(KEY).result().subscribe(received::set);
+
+        CapturedResponse response = response("ok");
+        coalescer.complete(KEY, flight, response, 0);
+
+        assertSame(response, received.get());
+        // 不缓存时完成后立即移除，下一个请求重新发起
+        Flight next = coalescer.join(KEY);
+        assertNotSame(flight, next);
+        assertTrue(next.tryLead());
+    }
+
+    @Test
+    void testAbandonReleasesFollowers() {
+        Flight flight = coalescer.join(KEY);
+        flight.tryLead();
+        AtomicReference<Boolean> completedEmpty = new AtomicReference<>(false);
+        coalescer.join(KEY).result().subscribe(r -> fail("放弃合并时不应收到响应"), e -> fail(e),
+                () -> completedEmpty.set(true));
+
+        coalescer.abandon(KEY, flight);
+
+        assertTrue(completedEmpty.get());
+        Flight next = coalescer.join(KEY);
+        assertNotSame(flight, next);
+        assertTrue(next.tryLead());
+    }
+
+    @Test
+    void testAbandonOfStaleFlightKeepsNewOne() {
+        Flight stale = coalescer.join(KEY);
+        coalescer.abandon(KEY, stale);
+        Flight current = coalescer.join(KEY);
+
+        // 旧的发起者再次放弃不影响新的合并请求
+        coalescer.abandon(KEY, stale);
+
+        assertSame(current, coalescer.join(KEY));
+    }
+
+    @Test
+    void testMicroCacheServesUntilExpiry() throws InterruptedException {
+        Flight flight = coalescer.join(KEY);
+        flight.tryLead();
+        CapturedResponse response = response("ok");
+        coalescer.complete(KEY, flight, response, 50);
+
+        Flight cached = coalescer.join(KEY);
+        assertSame(flight, cached);
+        assertTrue(cached.isCompleted());
+        assertFalse(cached.tryLead());
+        assertSame(response, cached.result().block());
+
+        Thread.sleep(80);
+        Flight expired = coalescer.join(KEY);
+        assertNotSame(flight, expired);
+        assertFalse(expired.isCompleted());
+        assertTrue(expired.tryLead());
+    }
+
+    @Test
+    void testFullTableReturnsNull() throws InterruptedException {
+        config.setMaxEntries(2);
+        Flight cached = coalescer.join("a");
+        coalescer.complete("a", cached, response("a"), 20);
+        coalescer.join("b");
+
+        // 进行中的请求不会被清理
+        assertNull(coalescer.join("c"));
+
+        // 微缓存过期后可以清理出空间
+        Thread.sleep(1100);
+        assertNotNull(coalescer.join("c"));
+    }
+
+    private static CapturedResponse response(String body) {
+        return new CapturedResponse(HttpStatus.OK, new HttpHeaders(), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
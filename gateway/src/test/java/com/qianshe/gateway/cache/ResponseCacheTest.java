@@ -0,0 +1,120 @@
+package com.qianshe.gateway.cache;
+
+import com.qianshe.gateway.config.ResponseCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseCache测试
+ * 单个分段，容量100字节，验证按字节数的LRU淘汰和过期
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class ResponseCacheTest {
+
+    private static final long TTL = 60_000;
+
+    private ResponseCacheConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResponseCacheConfig();
+        config.setMaxSize(100);
+        config.setSegments(1);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ResponseCache(config, meterRegistry);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedByBytes() {
+        put("a", 40);
+        put("b", 40);
+        // 访问a后b成为最久未使用
+        assertNotNull(cache.get("a"));
+
+        put("c", 40);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(80.0, meterRegistry.get("gateway.response_cache.size").gauge().value());
+        assertEquals(2.0, meterRegistry.get("gateway.response_cache.entries").gauge().value());
+    }
+
+    @Test
+    void testLargeEntryEvictsSeveralSmallOnes() {
+        put("a", 30);
+        put("b", 30);
+        put("c", 30);
+
+        put("d", 90);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+
+    @Test
+    void testReplacingEntryAdjustsSize() {
+        put("a", 60);
+        put("a", 20);
+        put("b", 80);
+
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertEquals(100.0, meterRegistry.get("gateway.response_cache.size").gauge().value());
+    }
+
+    @Test
+    void testBodyLargerThanSegmentNotCached() {
+        config.setSegments(2);
+        cache = new ResponseCache(config, new SimpleMeterRegistry());
+
+        // 每段分摊50字节
+        put("a", 60);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void testExpiredEntryRemoved() throws InterruptedException {
+        cache.put("a", HttpStatus.OK, new HttpHeaders(), "\"a\"", new byte[10], 1);
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(0.0, meterRegistry.get("gateway.response_cache.size").gauge().value());
+    }
+
+    @Test
+    void testNonPositiveTtlNotCached() {
+        cache.put("a", HttpStatus.OK, new HttpHeaders(), "\"a\"", new byte[10], 0);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void testHeadersCopiedAndReadOnly() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CACHE_CONTROL, "max-age=60");
+        cache.put("a", HttpStatus.OK, headers, "\"a\"", new byte[10], TTL);
+        headers.set(HttpHeaders.CACHE_CONTROL, "no-store");
+
+        ResponseCache.Entry entry = cache.get("a");
+        assertEquals("max-age=60", entry.getHeaders().getCacheControl());
+        assertEquals("\"a\"", entry.getEtag());
+        assertThrows(UnsupportedOperationException.class, () -> entry.getHeaders().set("X-Test", "1"));
+    }
+
+    private void put(String key, int size) {
+        cache.put(key, HttpStatus.OK, new HttpHeaders(), '"' + key + '"', new byte[size], TTL);
+    }
+}
@@ -0,0 +1,91 @@
+package com.qianshe.gateway.filter;
+
+import com.qianshe.gateway.config.ConcurrencyLimitConfig;
+import com.qianshe.gateway.exception.GatewayException;
+import com.qianshe.gateway.ratelimit.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConcurrencyLimitFilter测试
+ * 路由并发上限固定为1，验证请求以各种方式结束后都归还名额
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class ConcurrencyLimitFilterTest {
+
+    private static final String ROUTE_ID = "stellar-bridge";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+        config.setInitialLimit(1);
+        config.setMinLimit(1);
+        config.setMaxLimit(1);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(new AdaptiveConcurrencyLimiter(config, meterRegistry), config);
+    }
+
+    @Test
+    void testRejectsWhileRouteIsFull() {
+        Disposable pending = filter.filter(exchange(), exchange -> Mono.never()).subscribe();
+
+        assertThrows(GatewayException.class, () -> filter.filter(exchange(), exchange -> Mono.empty()).block());
+
+        pending.dispose();
+    }
+
+    @Test
+    void testCancelReleasesPermit() {
+        Disposable pending = filter.filter(exchange(), exchange -> Mono.never()).subscribe();
+        assertEquals(1.0, inFlight());
+
+        // 客户端断开连接
+        pending.dispose();
+
+        assertEquals(0.0, inFlight());
+        assertDoesNotThrow(() -> filter.filter(exchange(), exchange -> Mono.empty()).block());
+    }
+
+    @Test
+    void testErrorReleasesPermit() {
+        GatewayFilterChain failing = exchange -> Mono.error(new IllegalStateException("下游连接失败"));
+
+        assertThrows(IllegalStateException.class, () -> filter.filter(exchange(), failing).block());
+
+        assertEquals(0.0, inFlight());
+        assertDoesNotThrow(() -> filter.filter(exchange(), exchange -> Mono.empty()).block());
+    }
+
+    @Test
+    void testCompletionReleasesPermit() {
+        filter.filter(exchange(), exchange -> Mono.empty()).block();
+
+        assertEquals(0.0, inFlight());
+    }
+
+    private MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/stellar/list"));
+        Route route = Route.async().id(ROUTE_ID).uri("http://localhost:8080").predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("gateway.concurrency.inflight").tag("route", ROUTE_ID).gauge().value();
+    }
+}
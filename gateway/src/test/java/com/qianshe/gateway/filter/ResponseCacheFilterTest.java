@@ -0,0 +1,149 @@
+package com.qianshe.gateway.filter;
+
+import com.qianshe.gateway.cache.ETags;
+import com.qianshe.gateway.cache.ResponseCache;
+import com.qianshe.gateway.config.ResponseCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseCacheFilter测试
+ * 下游由模拟的过滤器链返回固定的JSON响应，验证缓存命中和304处理
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class ResponseCacheFilterTest {
+
+    private static final String ROUTE_ID = "stellar-bridge";
+    private static final String BODY = "{\"code\":200,\"data\":\"ok\"}";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCacheFilter filter;
+    private AtomicInteger downstreamCalls;
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        ResponseCacheConfig config = new ResponseCacheConfig();
+        ResponseCacheConfig.RouteCache routeCache = new ResponseCacheConfig.RouteCache();
+        routeCache.setPerPrincipal(false);
+        config.getRoutes().put(ROUTE_ID, routeCache);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ResponseCacheFilter(new ResponseCache(config, meterRegistry), config);
+        downstreamCalls = new AtomicInteger();
+        chain = exchange -> {
+            downstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        };
+    }
+
+    @Test
+    void testMissCachesResponseWithStrongEtag() {
+        MockServerWebExchange first = exchange(null);
+        filter.filter(first, chain).block();
+
+        String etag = first.getResponse().getHeaders().getETag();
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+        assertEquals(BODY, first.getResponse().getBodyAsString().block());
+
+        MockServerWebExchange second = exchange(null);
+        filter.filter(second, chain).block();
+
+        assertEquals(1, downstreamCalls.get());
+        assertEquals(HttpStatus.OK, second.getResponse().getStatusCode());
+        assertEquals(etag, second.getResponse().getHeaders().getETag());
+        assertNotNull(second.getResponse().getHeaders().getFirst(HttpHeaders.AGE));
+        assertEquals(BODY, second.getResponse().getBodyAsString().block());
+        assertEquals(1.0, count("hit"));
+    }
+
+    @Test
+    void testMatchingIfNoneMatchOnHitReturnsNotModified() {
+        MockServerWebExchange first = exchange(null);
+        filter.filter(first, chain).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange second = exchange(etag);
+        filter.filter(second, chain).block();
+
+        assertEquals(1, downstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getResponse().getStatusCode());
+        assertEquals(etag, second.getResponse().getHeaders().getETag());
+        assertNull(second.getResponse().getHeaders().getContentType());
+        assertEquals("", second.getResponse().getBodyAsString().defaultIfEmpty("").block());
+        assertEquals(1.0, count("not_modified"));
+    }
+
+    @Test
+    void testWeakIfNoneMatchComparedWeakly() {
+        MockServerWebExchange first = exchange(null);
+        filter.filter(first, chain).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange second = exchange("W/" + etag);
+        filter.filter(second, chain).block();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testMatchingIfNoneMatchOnMissReturnsNotModified() {
+        // 缓存已被淘汰后客户端带着之前拿到的ETag重新验证，下游响应未变化
+        String etag = ETags.strong(BODY.getBytes(StandardCharsets.UTF_8));
+
+        MockServerWebExchange revalidate = exchange(etag);
+        filter.filter(revalidate, chain).block();
+
+        assertEquals(1, downstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidate.getResponse().getStatusCode());
+        assertEquals("", revalidate.getResponse().getBodyAsString().defaultIfEmpty("").block());
+    }
+
+    @Test
+    void testNonMatchingIfNoneMatchReturnsBody() {
+        filter.filter(exchange(null), chain).block();
+
+        MockServerWebExchange second = exchange("\"other\"");
+        filter.filter(second, chain).block();
+
+        assertEquals(HttpStatus.OK, second.getResponse().getStatusCode());
+        assertEquals(BODY, second.getResponse().getBodyAsString().block());
+    }
+
+    private MockServerWebExchange exchange(String ifNoneMatch) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/stellar/list");
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        Route route = Route.async().id(ROUTE_ID).uri("http://localhost:8080").predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("gateway.response_cache.requests").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,132 @@
+package com.qianshe.gateway.logging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AccessLogRingBuffer测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class AccessLogRingBufferTest {
+
+    private final ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/test"));
+
+    @Test
+    void testCapacityRoundsUpToPowerOfTwo() {
+        // 最小容量为4
+        assertEquals(4, new AccessLogRingBuffer(1).capacity());
+        assertEquals(4, new AccessLogRingBuffer(4).capacity());
+        assertEquals(8, new AccessLogRingBuffer(5).capacity());
+        assertEquals(1024, new AccessLogRingBuffer(1000).capacity());
+    }
+
+    @Test
+    void testPollEmptyReturnsNull() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(4);
+
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void testFullBufferDropsNewRecords() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(4);
+        List<AccessLogRecord> records = records(5);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(records.get(i)));
+        }
+
+        // 写满后新记录被拒绝，已写入的记录不受影响
+        assertFalse(buffer.offer(records.get(4)));
+        for (int i = 0; i < 4; i++) {
+            assertSame(records.get(i), buffer.poll());
+        }
+        assertNull(buffer.poll());
+
+        // 消费后恢复写入
+        assertTrue(buffer.offer(records.get(4)));
+        assertSame(records.get(4), buffer.poll());
+    }
+
+    @Test
+    void testWraparoundKeepsFifoOrder() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(4);
+        List<AccessLogRecord> records = records(4 * 10 + 3);
+        int next = 0;
+        // 每轮写3读2，写入位置多次绕回数组开头
+        for (int written = 0; written < records.size(); ) {
+            for (int i = 0; i < 3 && written < records.size(); i++) {
+                if (buffer.offer(records.get(written))) {
+                    written++;
+                }
+            }
+            for (int i = 0; i < 2; i++) {
+                AccessLogRecord record = buffer.poll();
+                if (record != null) {
+                    assertSame(records.get(next++), record);
+                }
+            }
+        }
+        AccessLogRecord record;
+        while ((record = buffer.poll()) != null) {
+            assertSame(records.get(next++), record);
+        }
+        assertEquals(records.size(), next);
+    }
+
+    @Test
+    void testConcurrentProducersLoseNothingAccepted() throws InterruptedException {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<AccessLogRecord> records = records(producers * perProducer);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int from = p * perProducer;
+            Thread thread = new Thread(() -> {
+                for (int i = from; i < from + perProducer; i++) {
+                    if (buffer.offer(records.get(i))) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+
+        Set<AccessLogRecord> consumed = new HashSet<>();
+        while (done.getCount() > 0) {
+            AccessLogRecord record = buffer.poll();
+            if (record != null) {
+                assertTrue(consumed.add(record));
+            }
+        }
+        done.await();
+        AccessLogRecord record;
+        while ((record = buffer.poll()) != null) {
+            assertTrue(consumed.add(record));
+        }
+        assertEquals(accepted.get(), consumed.size());
+    }
+
+    private List<AccessLogRecord> records(int count) {
+        List<AccessLogRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(AccessLogRecord.of(exchange, i, 1, false));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,159 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.ConcurrencyLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdaptiveConcurrencyLimiter与并发上限算法测试
+ * 算法直接提交构造的样本，不依赖真实耗时
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private ConcurrencyLimitConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        config = new ConcurrencyLimitConfig();
+        config.setInitialLimit(2);
+        config.setMinLimit(1);
+        config.setMaxLimit(2);
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter(config, meterRegistry);
+    }
+
+    @Test
+    void testRejectsWhenLimitReached() {
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire("r");
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire("r");
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(limiter.tryAcquire("r"));
+        assertEquals(1.0, meterRegistry.get("gateway.concurrency.rejected").tag("route", "r").counter().count());
+        // 各路由独立计数
+        assertNotNull(limiter.tryAcquire("other"));
+
+        first.release(false);
+        assertNotNull(limiter.tryAcquire("r"));
+    }
+
+    @Test
+    void testIgnoreReturnsPermitWithoutSample() {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire("r");
+        assertEquals(1.0, inFlight("r"));
+
+        permit.ignore();
+
+        assertEquals(0.0, inFlight("r"));
+        assertEquals(2.0, meterRegistry.get("gateway.concurrency.limit").tag("route", "r").gauge().value());
+    }
+
+    @Test
+    void testVegasGrowsWhenNoQueueing() {
+        AdaptiveLimit limit = new AdaptiveLimit.VegasLimit(20, 1, 1000, 1000);
+        limit.onSample(RTT, 20, false);
+
+        // 响应时间等于基准，排队数为0，按6×log10(20)增长
+        limit.onSample(RTT, 20, false);
+
+        assertEquals(27, limit.getLimit());
+    }
+
+    @Test
+    void testVegasShrinksWhenQueueing() {
+        AdaptiveLimit limit = new AdaptiveLimit.VegasLimit(20, 1, 1000, 1000);
+        limit.onSample(RTT, 20, false);
+
+        // 响应时间翻倍，估算排队数10超过6×log10(20)
+        limit.onSample(RTT * 2, 20, false);
+
+        assertEquals(18, limit.getLimit());
+    }
+
+    @Test
+    void testVegasShrinksOnDrop() {
+        AdaptiveLimit limit = new AdaptiveLimit.VegasLimit(20, 1, 1000, 1000);
+        limit.onSample(RTT, 20, false);
+
+        limit.onSample(RTT, 20, true);
+
+        assertEquals(18, limit.getLimit());
+    }
+
+    @Test
+    void testVegasIgnoresLightLoad() {
+        AdaptiveLimit limit = new AdaptiveLimit.VegasLimit(20, 1, 1000, 1000);
+        limit.onSample(RTT, 20, false);
+
+        // 并发不到上限的一半，响应时间不能说明上限是否合适
+        limit.onSample(RTT * 4, 5, false);
+        limit.onSample(RTT, 5, false);
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void testGradientGrowsWithinTolerance() {
+        AdaptiveLimit limit = new AdaptiveLimit.GradientLimit(16, 1, 1000, 1.0, 1.5, 1000);
+
+        // 梯度为1，上限增加√16
+        limit.onSample(RTT, 16, false);
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void testGradientShrinksWhenSlow() {
+        AdaptiveLimit limit = new AdaptiveLimit.GradientLimit(16, 1, 1000, 1.0, 1.5, 1000);
+        limit.onSample(RTT, 16, false);
+
+        // 梯度 1.5 × 10 / 40 低于下限0.5，按0.5计算：20 × 0.5 + √20
+        limit.onSample(RTT * 4, 20, false);
+
+        assertEquals(14, limit.getLimit());
+    }
+
+    @Test
+    void testLimitClampedToBounds() {
+        AdaptiveLimit limit = new AdaptiveLimit.VegasLimit(5, 4, 8, 1000);
+        limit.onSample(RTT, 5, false);
+        limit.onSample(RTT, 5, false);
+        assertEquals(8, limit.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT, 8, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void testProbeResetsNoLoadRtt() {
+        AdaptiveLimit limit = new AdaptiveLimit.VegasLimit(20, 1, 1000, 3);
+        limit.onSample(RTT, 20, false);
+        limit.onSample(RTT, 20, false);
+        assertEquals(27, limit.getLimit());
+
+        // 第三个样本重新探测，下游永久变慢后以新的响应时间为基准，不再持续收缩
+        limit.onSample(RTT * 2, 27, false);
+        limit.onSample(RTT * 2, 27, false);
+
+        assertTrue(limit.getLimit() > 27);
+    }
+
+    private double inFlight(String routeId) {
+        return meterRegistry.get("gateway.concurrency.inflight").tag("route", routeId).gauge().value();
+    }
+}
@@ -0,0 +1,156 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.RateLimiterRuleConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * LocalRateLimitTier测试
+ * Redis引擎使用mock，只验证本地租约、合并和共享预算的计数逻辑
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class LocalRateLimitTierTest {
+
+    private static final RateLimitPolicy SUBJECT_POLICY = RateLimitPolicy.of("quota:user", 100, 20, 10);
+    private static final RateLimitPolicy GLOBAL_POLICY = RateLimitPolicy.of("quota:global", 100, 50, 10).asShared();
+
+    private RedisRateLimitEngine engine;
+    private LocalRateLimitTier tier;
+
+    @BeforeEach
+    void setUp() {
+        engine = mock(RedisRateLimitEngine.class);
+        RateLimiterRuleConfig config = new RateLimiterRuleConfig();
+        config.getLocalTier().setEnabled(true);
+        config.getLocalTier().setLeaseSize(10);
+        config.getLocalTier().setMaxOvershootRatio(0.2);
+        config.getLocalTier().setLeaseTtl(60_000);
+        tier = new LocalRateLimitTier(engine, config);
+    }
+
+    @Test
+    void testLeasedTokensServeLaterRequestsLocally() {
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:user", SUBJECT_POLICY);
+        when(engine.lease(any(), anyInt())).thenReturn(Mono.just(10L));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(tier.tryAcquire(limit).block().isAllowed());
+        }
+        verify(engine, times(1)).lease(limit, 10);
+
+        // 租约用完后再次租用
+        tier.tryAcquire(limit).block();
+        verify(engine, times(2)).lease(limit, 10);
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLease() {
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:user", SUBJECT_POLICY);
+        Sinks.One<Long> pending = Sinks.one();
+        when(engine.lease(any(), anyInt())).thenReturn(pending.asMono());
+
+        List<RateLimitDecision> decisions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tier.tryAcquire(limit).subscribe(decisions::add);
+        }
+        assertTrue(decisions.isEmpty());
+        pending.tryEmitValue(10L);
+
+        assertEquals(5, decisions.size());
+        assertTrue(decisions.stream().allMatch(RateLimitDecision::isAllowed));
+        verify(engine, times(1)).lease(limit, 10);
+        verify(engine, never()).tryAcquire(any());
+    }
+
+    @Test
+    void testWaitersBeyondLeaseFallBackToSingleToken() {
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:user", SUBJECT_POLICY);
+        Sinks.One<Long> pending = Sinks.one();
+        when(engine.lease(any(), anyInt())).thenReturn(pending.asMono());
+        when(engine.tryAcquire(any())).thenReturn(Mono.just(RateLimitDecision.limited(0)));
+
+        List<RateLimitDecision> decisions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tier.tryAcquire(limit).subscribe(decisions::add);
+        }
+        // 只租到2个令牌，第三个等待者按单个令牌访问Redis
+        pending.tryEmitValue(2L);
+
+        assertEquals(2, decisions.stream().filter(RateLimitDecision::isAllowed).count());
+        verify(engine, times(1)).tryAcquire(limit);
+    }
+
+    @Test
+    void testDeniedLeaseIsRememberedUntilNextToken() {
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:user", SUBJECT_POLICY);
+        when(engine.lease(any(), anyInt())).thenReturn(Mono.just(-1L));
+
+        RateLimitDecision first = tier.tryAcquire(limit).block();
+        RateLimitDecision second = tier.tryAcquire(limit).block();
+
+        assertFalse(first.isAllowed());
+        assertEquals(0, second.getLimitedIndex());
+        verify(engine, times(1)).lease(any(), anyInt());
+    }
+
+    @Test
+    void testSmallBucketsBypassLocalTier() {
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:route:r", RateLimitPolicy.of("route:r", 5, 3, 4));
+        when(engine.tryAcquire(any())).thenReturn(Mono.just(RateLimitDecision.allowed()));
+
+        assertTrue(tier.tryAcquire(limit).block().isAllowed());
+        verify(engine, never()).lease(any(), anyInt());
+    }
+
+    @Test
+    void testSharedBudgetIsCapacityTimesRatio() {
+        when(engine.lease(any(), anyInt())).thenReturn(Mono.just(1L));
+        ArgumentCaptor<Integer> sizes = ArgumentCaptor.forClass(Integer.class);
+
+        for (int i = 0; i < 4; i++) {
+            tier.tryAcquire(globalLimit("u" + i)).block();
+        }
+
+        // 共享预算为 floor(100 × 0.2) = 20 个额外令牌：9 + 9 + 2 + 0
+        verify(engine, times(4)).lease(any(), sizes.capture());
+        assertEquals(List.of(10, 10, 3, 1), sizes.getAllValues());
+    }
+
+    @Test
+    void testCoalescedMissesReserveSharedBudgetOnce() {
+        Sinks.One<Long> pending = Sinks.one();
+        when(engine.lease(any(), anyInt())).thenReturn(pending.asMono(), Mono.just(10L));
+        ArgumentCaptor<Integer> sizes = ArgumentCaptor.forClass(Integer.class);
+
+        CompositeLimit limit = globalLimit("u1");
+        for (int i = 0; i < 20; i++) {
+            tier.tryAcquire(limit).subscribe();
+        }
+        pending.tryEmitValue(10L);
+        tier.tryAcquire(globalLimit("u2")).block();
+
+        // 合并的未命中只占用一次预算，另一个主体仍能租满
+        verify(engine, times(2)).lease(any(), sizes.capture());
+        assertEquals(List.of(10, 10), sizes.getAllValues());
+    }
+
+    private static CompositeLimit globalLimit(String subject) {
+        return CompositeLimit.builder()
+                .add("rate_limit:{" + subject + "}:user", SUBJECT_POLICY)
+                .add("rate_limit:global", GLOBAL_POLICY)
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.RateLimiterRuleConfig;
+import com.qianshe.gateway.config.RateLimiterRuleConfig.RateLimiterRule;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * 限流算法测试
+ * 各算法的放行判断在Lua脚本中完成，这里验证Java侧按算法生成的脚本参数、限流键，
+ * 以及被拒绝后本地层按算法计算的拒绝时长
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class RateLimitAlgorithmTest {
+
+    private static final RateLimitPolicy BUCKET = RateLimitPolicy.of("bucket", RateLimitAlgorithm.TOKEN_BUCKET, 10, 2, 60);
+    private static final RateLimitPolicy GCRA = RateLimitPolicy.of("gcra", RateLimitAlgorithm.GCRA, 20, 5, 60);
+    private static final RateLimitPolicy SLIDING_LOG = RateLimitPolicy.of("swl", RateLimitAlgorithm.SLIDING_WINDOW_LOG, 30, 0, 10);
+
+    @Test
+    void testKeySuffixesSeparateAlgorithms() {
+        assertEquals("", RateLimitAlgorithm.TOKEN_BUCKET.getKeySuffix());
+        assertEquals(":gcra", RateLimitAlgorithm.GCRA.getKeySuffix());
+        assertEquals(":swl", RateLimitAlgorithm.SLIDING_WINDOW_LOG.getKeySuffix());
+    }
+
+    @Test
+    void testScriptKeysAndArgsPerAlgorithm() {
+        CompositeLimit limit = CompositeLimit.builder()
+                .add("rate_limit:{u1}:a", BUCKET)
+                .add("rate_limit:{u1}:b", GCRA)
+                .add("rate_limit:{u1}:c", SLIDING_LOG)
+                .build();
+
+        List<String> keysAndArgs = decode(limit.keysAndArgs(1_700_000_000_123L, 4));
+
+        assertEquals(List.of(
+                "rate_limit:{u1}:a", "rate_limit:{u1}:b:gcra", "rate_limit:{u1}:c:swl",
+                "1700000000123", "4",
+                "1", "10", "2", "60",
+                "2", "20", "5", "60",
+                "3", "30", "0", "10"), keysAndArgs);
+    }
+
+    @Test
+    void testPreEncodedArgsReusable() {
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:b", GCRA);
+
+        // 预编码参数每次使用独立的读写位置，读取后不影响下一次调用
+        List<String> first = decode(limit.keysAndArgs(1000, 1));
+        List<String> second = decode(limit.keysAndArgs(2000, 1));
+
+        assertEquals(first.subList(3, 7), second.subList(3, 7));
+        assertEquals(List.of("2", "20", "5", "60"), second.subList(3, 7));
+    }
+
+    @Test
+    void testTokenIntervalPerAlgorithm() {
+        // 令牌桶与GCRA按速率计算，滑动窗口日志按窗口内的请求数计算
+        assertEquals(500_000_000L, BUCKET.nanosPerToken());
+        assertEquals(200_000_000L, GCRA.nanosPerToken());
+        assertEquals(333_333_333L, SLIDING_LOG.nanosPerToken());
+        assertEquals(0, RateLimitPolicy.of("swl", RateLimitAlgorithm.SLIDING_WINDOW_LOG, 0, 5, 10).nanosPerToken());
+        assertEquals(0, RateLimitPolicy.of("gcra", RateLimitAlgorithm.GCRA, 10, 0, 10).nanosPerToken());
+    }
+
+    @Test
+    void testNullAlgorithmDefaultsToTokenBucket() {
+        assertEquals(RateLimitAlgorithm.TOKEN_BUCKET, RateLimitPolicy.of("p", null, 10, 2, 60).getAlgorithm());
+    }
+
+    @Test
+    void testRuleAlgorithmCarriedIntoPolicy() {
+        RateLimiterRule gcraRule = rule("/api/comment", RateLimitAlgorithm.GCRA);
+        RateLimiterRule logRule = rule("/auth/login", RateLimitAlgorithm.SLIDING_WINDOW_LOG);
+        RateLimitRuleMatcher matcher = RateLimitRuleMatcher.compile(List.of(gcraRule, logRule), BUCKET);
+
+        assertEquals(RateLimitAlgorithm.GCRA, matcher.policyFor("/api/comment/1").getAlgorithm());
+        assertEquals(RateLimitAlgorithm.SLIDING_WINDOW_LOG, matcher.policyFor("/auth/login").getAlgorithm());
+        assertEquals(RateLimitAlgorithm.TOKEN_BUCKET, matcher.policyFor("/other").getAlgorithm());
+    }
+
+    @Test
+    void testSlidingLogDenialUsesWindowPerRequest() throws InterruptedException {
+        // 窗口1秒内100个请求，拒绝后10毫秒即可重试；若按rate=1计算则要等1秒
+        RateLimitPolicy policy = RateLimitPolicy.of("swl", RateLimitAlgorithm.SLIDING_WINDOW_LOG, 100, 1, 1);
+        RedisRateLimitEngine engine = deniedEngine();
+        LocalRateLimitTier tier = localTier(engine);
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:swl", policy);
+
+        assertFalse(tier.tryAcquire(limit).block().isAllowed());
+        Thread.sleep(50);
+        assertFalse(tier.tryAcquire(limit).block().isAllowed());
+
+        verify(engine, times(2)).lease(any(), anyInt());
+    }
+
+    @Test
+    void testGcraDenialUsesEmissionInterval() throws InterruptedException {
+        // 每秒1个请求，拒绝后1秒内直接在本地拒绝
+        RateLimitPolicy policy = RateLimitPolicy.of("gcra", RateLimitAlgorithm.GCRA, 100, 1, 1);
+        RedisRateLimitEngine engine = deniedEngine();
+        LocalRateLimitTier tier = localTier(engine);
+        CompositeLimit limit = CompositeLimit.of("rate_limit:{u1}:gcra", policy);
+
+        assertFalse(tier.tryAcquire(limit).block().isAllowed());
+        Thread.sleep(50);
+        assertFalse(tier.tryAcquire(limit).block().isAllowed());
+
+        verify(engine, times(1)).lease(any(), anyInt());
+    }
+
+    private static RedisRateLimitEngine deniedEngine() {
+        RedisRateLimitEngine engine = mock(RedisRateLimitEngine.class);
+        when(engine.lease(any(), anyInt())).thenReturn(Mono.just(-1L));
+        return engine;
+    }
+
+    private static LocalRateLimitTier localTier(RedisRateLimitEngine engine) {
+        RateLimiterRuleConfig config = new RateLimiterRuleConfig();
+        config.getLocalTier().setEnabled(true);
+        config.getLocalTier().setLeaseSize(10);
+        config.getLocalTier().setMaxOvershootRatio(0.2);
+        config.getLocalTier().setLeaseTtl(60_000);
+        return new LocalRateLimitTier(engine, config);
+    }
+
+    private static RateLimiterRule rule(String path, RateLimitAlgorithm algorithm) {
+        RateLimiterRule rule = new RateLimiterRule();
+        rule.setPath(path);
+        rule.setAlgorithm(algorithm);
+        rule.setCapacity(50);
+        rule.setRate(10);
+        rule.setWindow(60);
+        return rule;
+    }
+
+    private static List<String> decode(ByteBuffer[] buffers) {
+        return Arrays.stream(buffers)
+                .map(buffer -> StandardCharsets.UTF_8.decode(buffer).toString())
+                .toList();
+    }
+}
@@ -0,0 +1,92 @@
+package com.qianshe.gateway.ratelimit;
+
+import com.qianshe.gateway.config.RateLimiterRuleConfig.RateLimiterRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RateLimitRuleMatcher测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class RateLimitRuleMatcherTest {
+
+    private static final RateLimitPolicy DEFAULT_POLICY = RateLimitPolicy.of("default", 10, 2, 60);
+
+    @Test
+    void testLongestPrefixWins() {
+        RateLimitRuleMatcher matcher = RateLimitRuleMatcher.compile(List.of(
+                rule("/api", 100),
+                rule("/api/comment", 50),
+                rule("/api/comment/hot", 5)), DEFAULT_POLICY);
+
+        assertEquals(3, matcher.size());
+        assertEquals("path:/api/comment/hot", matcher.policyFor("/api/comment/hot").getName());
+        assertEquals("path:/api/comment/hot", matcher.policyFor("/api/comment/hot/1").getName());
+        assertEquals("path:/api/comment", matcher.policyFor("/api/comment/1").getName());
+        assertEquals("path:/api", matcher.policyFor("/api/like").getName());
+    }
+
+    @Test
+    void testMatchesOnSegmentBoundary() {
+        RateLimitRuleMatcher matcher = RateLimitRuleMatcher.compile(List.of(rule("/api/comment", 50)), DEFAULT_POLICY);
+
+        assertEquals("path:/api/comment", matcher.policyFor("/api/comment").getName());
+        assertEquals("path:/api/comment", matcher.policyFor("/api/comment/").getName());
+        assertEquals("path:/api/comment", matcher.policyFor("//api//comment/1").getName());
+        // 只按完整路径段匹配
+        assertSame(DEFAULT_POLICY, matcher.policyFor("/api/comments"));
+        assertSame(DEFAULT_POLICY, matcher.policyFor("/api"));
+        assertNull(matcher.match("/other"));
+    }
+
+    @Test
+    void testRootRuleIsFallbackForAllPaths() {
+        RateLimitRuleMatcher matcher = RateLimitRuleMatcher.compile(List.of(
+                rule("/", 1000),
+                rule("/auth/login", 20)), DEFAULT_POLICY);
+
+        // 根路径规则匹配所有路径，但优先级低于任何更具体的规则
+        assertEquals("path:/", matcher.policyFor("/anything").getName());
+        assertEquals("path:/", matcher.policyFor("/").getName());
+        assertEquals("path:/auth/login", matcher.policyFor("/auth/login").getName());
+        assertEquals("path:/", matcher.policyFor("/auth/logout").getName());
+    }
+
+    @Test
+    void testDuplicatePathLaterRuleOverrides() {
+        RateLimitRuleMatcher matcher = RateLimitRuleMatcher.compile(List.of(
+                rule("/api/like", 100),
+                rule("/api/like", 30)), DEFAULT_POLICY);
+
+        assertEquals(1, matcher.size());
+        assertEquals(30, matcher.policyFor("/api/like").getCapacity());
+    }
+
+    @Test
+    void testRoutePolicyOverridesRouteDefault() {
+        RateLimiterRule routeDefault = rule(null, 5);
+        RateLimitRuleMatcher matcher = RateLimitRuleMatcher.compile(List.of(), DEFAULT_POLICY,
+                Map.of("auth-service", rule(null, 20)), routeDefault, null);
+
+        assertEquals("route:auth-service", matcher.routePolicyFor("auth-service").getName());
+        assertEquals("route:default", matcher.routePolicyFor("fantasy-core").getName());
+        assertEquals("route:default", matcher.routePolicyFor(null).getName());
+        assertNull(matcher.getUserQuotaPolicy());
+        assertNull(matcher.getGlobalQuotaPolicy());
+    }
+
+    private static RateLimiterRule rule(String path, int capacity) {
+        RateLimiterRule rule = new RateLimiterRule();
+        rule.setPath(path);
+        rule.setCapacity(capacity);
+        rule.setRate(1);
+        rule.setWindow(60);
+        return rule;
+    }
+}
@@ -0,0 +1,63 @@
+package com.qianshe.gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IpAddresses测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class IpAddressesTest {
+
+    @Test
+    void testParseIpv4() {
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, IpAddresses.parse("1.2.3.4"));
+        assertArrayEquals(new byte[]{(byte) 255, (byte) 255, (byte) 255, (byte) 255},
+                IpAddresses.parse(" 255.255.255.255 "));
+        assertNull(IpAddresses.parse("256.1.1.1"));
+        assertNull(IpAddresses.parse("1.2.3"));
+        assertNull(IpAddresses.parse("1.2.3.4.5"));
+        assertNull(IpAddresses.parse("1..2.3"));
+        assertNull(IpAddresses.parse("1.2.3.0004"));
+    }
+
+    @Test
+    void testParseIpv6() {
+        byte[] loopback = new byte[16];
+        loopback[15] = 1;
+        assertArrayEquals(loopback, IpAddresses.parse("::1"));
+        assertArrayEquals(new byte[16], IpAddresses.parse("::"));
+        assertEquals(16, IpAddresses.parse("2001:db8::1").length);
+        assertEquals(16, IpAddresses.parse("1:2:3:4:5:6:7:8").length);
+        assertEquals(16, IpAddresses.parse("1:2:3:4:5:6:1.2.3.4").length);
+        assertNull(IpAddresses.parse("1::2::3"));
+        assertNull(IpAddresses.parse(":::"));
+        assertNull(IpAddresses.parse("1:2:3:4:5:6:7:8:9"));
+        assertNull(IpAddresses.parse("1:2:3:4:5:6:7::8"));
+        assertNull(IpAddresses.parse("12345::"));
+        assertNull(IpAddresses.parse("fe80::1%eth0"));
+        assertNull(IpAddresses.parse("[::1]"));
+    }
+
+    @Test
+    void testIpv4MappedIpv6ReturnsIpv4Bytes() {
+        assertArrayEquals(new byte[]{10, 1, 2, 3}, IpAddresses.parse("::ffff:10.1.2.3"));
+        assertArrayEquals(new byte[]{10, 1, 2, 3}, IpAddresses.parse("::FFFF:0a01:0203"));
+        assertEquals(IpAddresses.low(IpAddresses.parse("10.1.2.3")),
+                IpAddresses.low(IpAddresses.parse("::ffff:10.1.2.3")));
+    }
+
+    @Test
+    void testHostNamesAreNeverResolved() {
+        // 只含十六进制字符的字符串不能被当作主机名解析
+        assertNull(IpAddresses.parse("cafe"));
+        assertNull(IpAddresses.parse("face"));
+        assertNull(IpAddresses.parse("bad"));
+        assertNull(IpAddresses.parse("localhost"));
+        assertNull(IpAddresses.parse(""));
+        assertNull(IpAddresses.parse(null));
+    }
+}
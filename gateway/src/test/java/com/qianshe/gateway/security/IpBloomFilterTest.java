@@ -0,0 +1,61 @@
+package com.qianshe.gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IpBloomFilter测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class IpBloomFilterTest {
+
+    @Test
+    void testNoFalseNegatives() {
+        IpBloomFilter filter = new IpBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(IpAddresses.parse("10." + (i >> 8) + "." + (i & 0xff) + ".1"));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(IpAddresses.parse("10." + (i >> 8) + "." + (i & 0xff) + ".1")));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateNearConfigured() {
+        IpBloomFilter filter = new IpBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(IpAddresses.parse("10." + (i >> 8) + "." + (i & 0xff) + ".1"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(IpAddresses.parse("172." + (i >> 8) + "." + (i & 0xff) + ".2"))) {
+                falsePositives++;
+            }
+        }
+        // 期望约1%，留出足够余量避免偶发失败
+        assertTrue(falsePositives < 300, "falsePositives=" + falsePositives);
+    }
+
+    @Test
+    void testIpv4AndMappedIpv6AreSameEntry() {
+        IpBloomFilter filter = new IpBloomFilter(100, 0.01);
+        filter.put(IpAddresses.parse("192.168.1.100"));
+
+        assertTrue(filter.mightContain(IpAddresses.parse("::ffff:192.168.1.100")));
+        assertTrue(filter.mightContain(IpAddresses.high(IpAddresses.parse("192.168.1.100")),
+                IpAddresses.low(IpAddresses.parse("::ffff:c0a8:164"))));
+    }
+
+    @Test
+    void testEmptyFilterContainsNothing() {
+        IpBloomFilter filter = new IpBloomFilter(100, 0.01);
+
+        assertTrue(filter.bitSize() > 0);
+        assertTrue(filter.hashCount() > 0);
+        assertFalse(filter.mightContain(IpAddresses.parse("1.2.3.4")));
+        assertFalse(filter.mightContain(IpAddresses.parse("2001:db8::1")));
+    }
+}
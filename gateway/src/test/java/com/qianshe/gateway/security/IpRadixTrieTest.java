@@ -0,0 +1,102 @@
+package com.qianshe.gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IpRadixTrie测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class IpRadixTrieTest {
+
+    @Test
+    void testIpv4CidrBoundaries() {
+        IpRadixTrie trie = IpRadixTrie.compile(List.of("10.0.0.0/8", "192.168.1.0/24", "172.16.0.5"));
+
+        assertTrue(contains(trie, "10.0.0.0"));
+        assertTrue(contains(trie, "10.255.255.255"));
+        assertFalse(contains(trie, "9.255.255.255"));
+        assertFalse(contains(trie, "11.0.0.0"));
+
+        assertTrue(contains(trie, "192.168.1.0"));
+        assertTrue(contains(trie, "192.168.1.255"));
+        assertFalse(contains(trie, "192.168.0.255"));
+        assertFalse(contains(trie, "192.168.2.0"));
+
+        assertTrue(contains(trie, "172.16.0.5"));
+        assertFalse(contains(trie, "172.16.0.4"));
+        assertFalse(contains(trie, "172.16.0.6"));
+    }
+
+    @Test
+    void testHostBitsAreMaskedAndZeroPrefixMatchesAllIpv4() {
+        IpRadixTrie trie = IpRadixTrie.compile(List.of("192.168.1.77/30"));
+        assertTrue(contains(trie, "192.168.1.76"));
+        assertTrue(contains(trie, "192.168.1.79"));
+        assertFalse(contains(trie, "192.168.1.75"));
+        assertFalse(contains(trie, "192.168.1.80"));
+
+        IpRadixTrie all = IpRadixTrie.compile(List.of("0.0.0.0/0"));
+        assertTrue(contains(all, "1.2.3.4"));
+        assertTrue(contains(all, "255.255.255.255"));
+        // IPv4的/0只覆盖IPv4映射地址空间，不覆盖IPv6
+        assertFalse(contains(all, "2001:db8::1"));
+    }
+
+    @Test
+    void testIpv4MappedIpv6MatchesIpv4Entries() {
+        IpRadixTrie trie = IpRadixTrie.compile(List.of("10.0.0.0/8"));
+        assertTrue(contains(trie, "::ffff:10.1.2.3"));
+        assertTrue(contains(trie, "::ffff:0a01:0203"));
+        assertFalse(contains(trie, "::ffff:11.0.0.0"));
+        // IPv4兼容地址（无ffff）不是映射地址
+        assertFalse(contains(trie, "::10.1.2.3"));
+
+        IpRadixTrie mapped = IpRadixTrie.compile(List.of("::ffff:192.168.0.0/112"));
+        assertTrue(contains(mapped, "192.168.3.4"));
+        assertFalse(contains(mapped, "192.169.0.0"));
+    }
+
+    @Test
+    void testIpv6Prefixes() {
+        IpRadixTrie trie = IpRadixTrie.compile(List.of("2001:db8::/32", "fe80::1"));
+
+        assertTrue(contains(trie, "2001:db8::"));
+        assertTrue(contains(trie, "2001:db8:ffff:ffff:ffff:ffff:ffff:ffff"));
+        assertFalse(contains(trie, "2001:db9::"));
+        assertFalse(contains(trie, "2001:db7:ffff:ffff:ffff:ffff:ffff:ffff"));
+        assertTrue(contains(trie, "fe80::1"));
+        assertFalse(contains(trie, "fe80::2"));
+    }
+
+    @Test
+    void testShorterPrefixCoversLongerOnes() {
+        IpRadixTrie trie = IpRadixTrie.compile(List.of("10.1.2.0/24", "10.0.0.0/8", "10.1.0.0/16"));
+
+        assertEquals(3, trie.size());
+        assertTrue(contains(trie, "10.1.2.3"));
+        assertTrue(contains(trie, "10.200.0.1"));
+    }
+
+    @Test
+    void testInvalidEntriesAreSkipped() {
+        IpRadixTrie trie = IpRadixTrie.compile(Arrays.asList(
+                "cafe", "bad", "10.0.0.0/33", "10.0.0.0/-1", "10.0.0.0/x", "2001:db8::/129", "", null, " 1.2.3.4 "));
+
+        assertEquals(1, trie.size());
+        assertTrue(contains(trie, "1.2.3.4"));
+        assertFalse(contains(trie, "10.0.0.1"));
+    }
+
+    private static boolean contains(IpRadixTrie trie, String ip) {
+        byte[] address = IpAddresses.parse(ip);
+        assertNotNull(address, ip);
+        return trie.contains(address);
+    }
+}
@@ -0,0 +1,73 @@
+package com.qianshe.gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.qianshe.gateway.security.WhiteListMatcher.AUTH_EXEMPT;
+import static com.qianshe.gateway.security.WhiteListMatcher.RATE_LIMIT_EXEMPT;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WhiteListMatcher前缀自动机测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class WhiteListMatcherTest {
+
+    @Test
+    void testPrefixMatch() {
+        WhiteListMatcher.Automaton automaton = WhiteListMatcher.Automaton.compile(
+                List.of("/auth/login", "/api/captcha"), List.of());
+
+        assertEquals(AUTH_EXEMPT, automaton.match("/auth/login"));
+        assertEquals(AUTH_EXEMPT, automaton.match("/auth/login/sms"));
+        assertEquals(AUTH_EXEMPT, automaton.match("/api/captcha?x=1"));
+        assertEquals(0, automaton.match("/auth/logout"));
+        assertEquals(0, automaton.match("/auth"));
+        assertEquals(0, automaton.match(""));
+    }
+
+    @Test
+    void testBothListsCombineIntoOneVerdict() {
+        WhiteListMatcher.Automaton automaton = WhiteListMatcher.Automaton.compile(
+                List.of("/auth", "/doc.html"), List.of("/auth/login", "/webjars"));
+
+        assertEquals(AUTH_EXEMPT | RATE_LIMIT_EXEMPT, automaton.match("/auth/login"));
+        assertEquals(AUTH_EXEMPT, automaton.match("/auth/register"));
+        assertEquals(RATE_LIMIT_EXEMPT, automaton.match("/webjars/js/app.js"));
+        assertEquals(AUTH_EXEMPT, automaton.match("/doc.html"));
+        assertEquals(0, automaton.match("/api/comment"));
+    }
+
+    @Test
+    void testSharedPrefixesShareStates() {
+        WhiteListMatcher.Automaton automaton = WhiteListMatcher.Automaton.compile(
+                List.of("/api/ab", "/api/ac"), List.of("/api/ab"));
+
+        // 根状态 + "/api/a" 6个状态 + "b"、"c" 各1个状态
+        assertEquals(9, automaton.stateCount());
+        assertEquals(AUTH_EXEMPT | RATE_LIMIT_EXEMPT, automaton.match("/api/ab"));
+        assertEquals(AUTH_EXEMPT, automaton.match("/api/ac"));
+        assertEquals(0, automaton.match("/api/ad"));
+    }
+
+    @Test
+    void testEntriesAreTrimmedAndNullsIgnored() {
+        WhiteListMatcher.Automaton automaton = WhiteListMatcher.Automaton.compile(
+                Arrays.asList(" /error ", null), null);
+
+        assertEquals(AUTH_EXEMPT, automaton.match("/error"));
+        assertEquals(0, automaton.match(" /error"));
+    }
+
+    @Test
+    void testEmptyPrefixMatchesEveryPath() {
+        WhiteListMatcher.Automaton automaton = WhiteListMatcher.Automaton.compile(List.of(), List.of(""));
+
+        assertEquals(RATE_LIMIT_EXEMPT, automaton.match("/any/path"));
+        assertEquals(RATE_LIMIT_EXEMPT, automaton.match(""));
+    }
+}
@@ -0,0 +1,120 @@
+package com.qianshe.gateway.upstream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HedgeBudget测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class HedgeBudgetTest {
+
+    @Test
+    void testStartsWithBurst() {
+        HedgeBudget budget = new HedgeBudget(10, 3);
+
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    void testDepositRatio() {
+        HedgeBudget budget = drained(10, 5);
+
+        // 每10个原始请求存入1个令牌
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+        }
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    void testHedgesBoundedByPercentOfRequests() {
+        HedgeBudget budget = drained(10, 5);
+        int hedges = 0;
+
+        // 下游持续变慢，每个请求都想对冲
+        for (int i = 0; i < 1000; i++) {
+            budget.deposit();
+            if (budget.tryWithdraw()) {
+                hedges++;
+            }
+        }
+
+        assertEquals(100, hedges);
+    }
+
+    @Test
+    void testBalanceCappedAtBurst() {
+        HedgeBudget budget = drained(50, 2);
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    void testZeroPercentNeverRefills() {
+        HedgeBudget budget = drained(0, 1);
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    void testConcurrentWithdrawNeverOverdraws() throws InterruptedException {
+        HedgeBudget budget = new HedgeBudget(10, 100);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (budget.tryWithdraw()) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+
+    private static HedgeBudget drained(int percent, int burst) {
+        HedgeBudget budget = new HedgeBudget(percent, burst);
+        while (budget.tryWithdraw()) {
+            // 用完初始令牌
+        }
+        return budget;
+    }
+}
@@ -0,0 +1,32 @@
+package com.qianshe.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图形验证码预生成池配置
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "auth.captcha-pool")
+public class CaptchaPoolConfig {
+
+    /**
+     * 是否启用预生成池，关闭后每次请求同步生成
+     */
+    private boolean enabled = true;
+
+    /**
+     * 池容量，即预生成的验证码数量上限
+     */
+    private int capacity = 512;
+
+    /**
+     * 后台补充线程数
+     */
+    private int refillThreads = 1;
+}
@@ -0,0 +1,33 @@
+package com.qianshe.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 无状态图形验证码配置
+ * 启用后验证码标识为带签名和有效期的令牌，生成验证码不再写入Redis
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "auth.captcha-token")
+public class CaptchaTokenConfig {
+
+    /**
+     * 是否启用无状态验证码令牌
+     */
+    private boolean enabled = false;
+
+    /**
+     * HMAC签名密钥，多实例部署时必须配置为相同的值；未配置时启动时随机生成，仅对当前实例有效
+     */
+    private String secret;
+
+    /**
+     * 令牌有效期（秒）
+     */
+    private long expireSeconds = 120;
+}
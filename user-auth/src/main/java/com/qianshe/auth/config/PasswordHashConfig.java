@@ -0,0 +1,39 @@
+package com.qianshe.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 密码哈希配置
+ * BCrypt计算在独立的有界线程池中执行，排队已满时登录、注册直接返回503
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "auth.password-hash")
+public class PasswordHashConfig {
+
+    /**
+     * BCrypt成本因子（4~31），每加1计算耗时翻倍；
+     * 调整后已有用户在下次登录成功时自动按新成本重新哈希
+     */
+    private int cost = 10;
+
+    /**
+     * 哈希线程数，小于等于0时取CPU核数
+     */
+    private int threads = 0;
+
+    /**
+     * 等待队列长度，队列已满的请求立即拒绝
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 单次哈希的最长等待时间（毫秒），包括排队时间，超时按繁忙处理
+     */
+    private long timeoutMillis = 3000;
+}
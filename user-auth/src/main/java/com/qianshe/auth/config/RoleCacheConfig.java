@@ -0,0 +1,42 @@
+package com.qianshe.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户角色缓存配置
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "auth.role-cache")
+public class RoleCacheConfig {
+
+    /**
+     * 是否启用角色缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存有效期(毫秒)，失效通知丢失时的兜底
+     */
+    private long localTtl = 60_000;
+
+    /**
+     * 本地最多缓存的用户数
+     */
+    private int localMaxSize = 100_000;
+
+    /**
+     * 失效通知频道心跳间隔(毫秒)，连续三个间隔收不到任何通知视为订阅断开，停用并清空本地缓存
+     */
+    private long heartbeatInterval = 5_000;
+
+    /**
+     * Redis缓存有效期(秒)
+     */
+    private long redisTtl = 3600;
+}
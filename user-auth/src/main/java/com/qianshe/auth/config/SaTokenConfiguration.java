@@ -2,7 +2,11 @@ package com.qianshe.auth.config;
 
 import cn.dev33.satoken.config.SaTokenConfig;
 import cn.dev33.satoken.interceptor.SaInterceptor;
+import cn.dev33.satoken.fun.strategy.SaCreateTokenFunction;
 import cn.dev33.satoken.stp.StpLogic;
+import cn.dev33.satoken.strategy.SaStrategy;
+import com.qianshe.common.constants.CommonConstants;
+import jakarta.annotation.PostConstruct;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -23,6 +27,18 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class SaTokenConfiguration implements WebMvcConfigurer {
 
+    /**
+     * 令牌携带账号类型前缀
+     * 在原有token风格生成的令牌前拼接账号类型，如 admin_xxxx，
+     * 网关可直接根据前缀定位对应的StpLogic，不必依次尝试各账号体系
+     */
+    @PostConstruct
+    public void registerTokenStrategy() {
+        SaCreateTokenFunction createToken = SaStrategy.instance.createToken;
+        SaStrategy.instance.setCreateToken((loginId, loginType) ->
+                loginType + CommonConstants.Token.TYPE_SEPARATOR + createToken.apply(loginId, loginType));
+    }
+
     /**
      * 普通用户 StpLogic Bean
      */
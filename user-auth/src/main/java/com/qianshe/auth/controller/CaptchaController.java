@@ -14,7 +14,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
 
 /**
@@ -44,7 +43,7 @@ public class CaptchaController {
         try {
             log.debug("开始生成验证码图片");
 
-            // 使用新的方法一次性生成验证码和图片，避免时序问题
+            // 一次性取得验证码和已编码的图片，避免时序问题
             CaptchaResult captchaResult = captchaService.generateCaptchaWithImage();
 
             // 设置响应头
@@ -54,9 +53,11 @@ public class CaptchaController {
             response.setDateHeader("Expires", 0);
             response.setHeader("Captcha-Key", captchaResult.getCaptchaKey());
 
-            // 输出图片
+            // 输出已编码的图片
+            byte[] image = captchaResult.getImage();
+            response.setContentLength(image.length);
             outputStream = response.getOutputStream();
-            ImageIO.write(captchaResult.getImage(), "jpeg", outputStream);
+            outputStream.write(image);
             outputStream.flush();
 
             log.debug("验证码图片生成成功，captchaKey: {}", captchaResult.getCaptchaKey());
@@ -101,7 +102,7 @@ public class CaptchaController {
             log.debug("开始验证验证码，captchaKey: {}", verifyDTO.getCaptchaKey());
 
             // 验证验证码
-            boolean isValid = captchaService.validateCaptcha(
+            boolean isValid = captchaService.checkCaptcha(
                 verifyDTO.getCaptchaKey(),
                 verifyDTO.getCaptchaCode()
             );
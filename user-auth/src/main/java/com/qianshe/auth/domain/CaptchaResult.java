@@ -5,11 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.awt.image.BufferedImage;
-
 /**
  * 验证码结果实体类
- * 用于封装验证码生成的结果，包含验证码标识和图片对象
+ * 用于封装验证码生成的结果，包含验证码标识和JPEG编码后的图片
  *
  * @author qianshe
  * @since 1.0.0
@@ -28,9 +26,9 @@ public class CaptchaResult {
     private String captchaKey;
 
     /**
-     * 验证码图片对象
-     * BufferedImage类型，用于生成图片响应
+     * 验证码图片
+     * JPEG编码后的字节，可直接写入响应
      */
-    @Schema(description = "验证码图片对象")
-    private BufferedImage image;
+    @Schema(description = "验证码图片（JPEG）")
+    private byte[] image;
 }
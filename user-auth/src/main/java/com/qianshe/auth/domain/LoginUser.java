@@ -0,0 +1,32 @@
+package com.qianshe.auth.domain;
+
+import cn.hutool.core.util.StrUtil;
+import com.qianshe.common.domain.User;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+
+/**
+ * 登录查询结果
+ * 用户信息与角色编码由一次关联查询返回，登录时不再单独查询角色
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LoginUser extends User {
+
+    /**
+     * 角色编码，逗号分隔（GROUP_CONCAT结果），没有角色时为null
+     */
+    private String roleCodes;
+
+    /**
+     * 角色编码列表
+     */
+    public List<String> getRoles() {
+        return StrUtil.isBlank(roleCodes) ? List.of() : StrUtil.split(roleCodes, ',');
+    }
+}
@@ -1,8 +1,38 @@
 package com.qianshe.auth.exception;
 
 import com.qianshe.common.exception.GlobalExceptionHandler;
+import com.qianshe.common.result.Result;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+/**
+ * 认证服务全局异常处理器
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
 @RestControllerAdvice
 public class AuthGlobalExceptionHandler extends GlobalExceptionHandler {
+
+    /**
+     * 客户端重试前建议等待的秒数
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * 处理服务繁忙异常，返回503并提示客户端稍后重试
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Result<Void> handleServiceBusyException(ServiceBusyException e, HttpServletResponse response) {
+        log.warn("服务繁忙: {}", e.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return Result.fail(e.getCode(), e.getMessage());
+    }
 }
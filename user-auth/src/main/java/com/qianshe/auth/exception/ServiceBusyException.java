@@ -0,0 +1,19 @@
+package com.qianshe.auth.exception;
+
+import com.qianshe.common.exception.ServiceException;
+import com.qianshe.common.result.ResultCode;
+
+/**
+ * 服务繁忙异常
+ * 受限资源已饱和时快速拒绝请求，由{@link AuthGlobalExceptionHandler}转换为503响应
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+public class ServiceBusyException extends ServiceException {
+    private static final long serialVersionUID = 1L;
+
+    public ServiceBusyException() {
+        super(ResultCode.SERVICE_BUSY.getCode(), ResultCode.SERVICE_BUSY.getMessage());
+    }
+}
@@ -0,0 +1,71 @@
+package com.qianshe.auth.listener;
+
+import cn.dev33.satoken.listener.SaTokenListenerForSimple;
+import com.qianshe.common.constants.CommonConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录态失效通知
+ * 注销、踢下线、顶替登录、封禁以及角色变更时向Redis频道发布失效消息，
+ * 网关收到消息后清除本地缓存的令牌校验结果
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenInvalidationNotifier extends SaTokenListenerForSimple {
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public void doLogout(String loginType, Object loginId, String tokenValue) {
+        publishToken(tokenValue);
+    }
+
+    @Override
+    public void doKickout(String loginType, Object loginId, String tokenValue) {
+        publishToken(tokenValue);
+    }
+
+    @Override
+    public void doReplaced(String loginType, Object loginId, String tokenValue) {
+        publishToken(tokenValue);
+    }
+
+    @Override
+    public void doDisable(String loginType, Object loginId, String service, int level, long disableTime) {
+        publishLogin(loginId);
+    }
+
+    /**
+     * 通知单个令牌失效
+     *
+     * @param tokenValue 令牌
+     */
+    public void publishToken(String tokenValue) {
+        publish(CommonConstants.Token.INVALIDATE_TOKEN + tokenValue);
+    }
+
+    /**
+     * 通知账号下全部令牌失效
+     *
+     * @param loginId 登录ID
+     */
+    public void publishLogin(Object loginId) {
+        publish(CommonConstants.Token.INVALIDATE_LOGIN + loginId);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(CommonConstants.Token.INVALIDATE_CHANNEL, message);
+        } catch (Exception e) {
+            // 通知失败不影响业务，网关缓存最迟在有效期结束后失效
+            log.warn("发布登录态失效通知失败: {}, error={}", message, e.getMessage());
+        }
+    }
+}
@@ -48,4 +48,12 @@ public interface RoleMapper {
      */
     @Select("SELECT COUNT(*) FROM sys_role WHERE code = #{roleCode}")
     int checkRoleExists(@Param("roleCode") String roleCode);
+
+    /**
+     * 获取全部角色编码
+     *
+     * @return 角色编码列表
+     */
+    @Select("SELECT code FROM sys_role")
+    List<String> selectAllRoleCodes();
 } 
\ No newline at end of file
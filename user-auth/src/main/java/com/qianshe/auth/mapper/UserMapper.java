@@ -1,9 +1,13 @@
 package com.qianshe.auth.mapper;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.qianshe.auth.domain.LoginUser;
 import com.qianshe.common.domain.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 /**
  * 用户Mapper
@@ -14,6 +18,42 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
 
+    /**
+     * 登录查询：用户信息与聚合后的角色编码，账号条件命中唯一索引，角色通过sys_user_role主键(user_id, role_code)覆盖读取
+     */
+    String LOGIN_USER_SELECT = "SELECT u.id, u.username, u.password, u.nickname, u.mobile, u.email, u.avatar, "
+            + "u.user_type, u.status, GROUP_CONCAT(r.role_code) AS role_codes "
+            + "FROM sys_user u LEFT JOIN sys_user_role r ON r.user_id = u.id WHERE ";
+
+    String LOGIN_USER_GROUP = " AND u.is_deleted = 0 GROUP BY u.id";
+
+    /**
+     * 根据用户名查询登录用户及其角色
+     *
+     * @param username 用户名
+     * @return 登录用户，不存在时为null
+     */
+    @Select(LOGIN_USER_SELECT + "u.username = #{account}" + LOGIN_USER_GROUP)
+    LoginUser selectLoginUserByUsername(@Param("account") String username);
+
+    /**
+     * 根据手机号查询登录用户及其角色
+     *
+     * @param mobile 手机号
+     * @return 登录用户，不存在时为null
+     */
+    @Select(LOGIN_USER_SELECT + "u.mobile = #{account}" + LOGIN_USER_GROUP)
+    LoginUser selectLoginUserByMobile(@Param("account") String mobile);
+
+    /**
+     * 根据邮箱查询登录用户及其角色
+     *
+     * @param email 邮箱
+     * @return 登录用户，不存在时为null
+     */
+    @Select(LOGIN_USER_SELECT + "u.email = #{account}" + LOGIN_USER_GROUP)
+    LoginUser selectLoginUserByEmail(@Param("account") String email);
+
     /**
      * 根据用户名查询用户
      *
@@ -49,4 +89,19 @@ public interface UserMapper extends BaseMapper<User> {
                 .eq(User::getEmail, email)
                 .eq(User::getIsDeleted, 0));
     }
-} 
\ No newline at end of file
+
+    /**
+     * 替换密码哈希，仅当当前哈希仍为预期值时更新，避免覆盖并发的密码修改
+     *
+     * @param id           用户ID
+     * @param expectedHash 预期的当前哈希
+     * @param newHash      新哈希
+     * @return 更新行数
+     */
+    default int updatePasswordIfUnchanged(Long id, String expectedHash, String newHash) {
+        return update(null, new LambdaUpdateWrapper<User>()
+                .set(User::getPassword, newHash)
+                .eq(User::getId, id)
+                .eq(User::getPassword, expectedHash));
+    }
+}
@@ -0,0 +1,162 @@
+package com.qianshe.auth.security;
+
+import com.google.code.kaptcha.Producer;
+import com.qianshe.auth.config.CaptchaPoolConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图形验证码预生成池
+ * 验证码渲染和JPEG编码都很耗CPU，且验证码接口无需登录、容易被机器人刷。
+ * 这里由后台线程预先渲染并编码，放入有界队列；请求线程只取出一份现成的图片字节，
+ * 池中为空时才在请求线程上同步生成
+ *
+ * <p>每份验证码只使用一次，不会重复下发同一张图片</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CaptchaPool {
+
+    private static final String IMAGE_FORMAT = "jpeg";
+
+    /**
+     * 渲染失败后的重试间隔
+     */
+    private static final long FAILURE_BACKOFF_MILLIS = 1000;
+
+    private final Producer captchaProducer;
+    private final CaptchaPoolConfig captchaPoolConfig;
+
+    private final LongAdder misses = new LongAdder();
+    private BlockingQueue<RenderedCaptcha> pool;
+    private final List<Thread> refillThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!captchaPoolConfig.isEnabled()) {
+            return;
+        }
+        pool = new ArrayBlockingQueue<>(Math.max(1, captchaPoolConfig.getCapacity()));
+        running = true;
+        for (int i = 0; i < Math.max(1, captchaPoolConfig.getRefillThreads()); i++) {
+            Thread thread = new Thread(this::refill, "captcha-refill-" + (i + 1));
+            thread.setDaemon(true);
+            // 补充线程让出CPU给请求线程
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+            refillThreads.add(thread);
+        }
+        log.info("验证码预生成池已启动，容量: {}, 补充线程数: {}", captchaPoolConfig.getCapacity(), refillThreads.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        refillThreads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * 取出一份验证码，池中为空时同步生成
+     *
+     * @return 验证码文本与JPEG图片
+     */
+    public RenderedCaptcha take() {
+        RenderedCaptcha captcha = pool == null ? null : pool.poll();
+        if (captcha != null) {
+            return captcha;
+        }
+        if (pool != null) {
+            misses.increment();
+        }
+        return render();
+    }
+
+    /**
+     * 生成一份验证码：生成文本、渲染图片并编码为JPEG
+     *
+     * @return 验证码文本与JPEG图片
+     */
+    public RenderedCaptcha render() {
+        String text = captchaProducer.createText();
+        BufferedImage image = captchaProducer.createImage(text);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(4096);
+        try {
+            ImageIO.write(image, IMAGE_FORMAT, output);
+        } catch (IOException e) {
+            throw new IllegalStateException("验证码图片编码失败", e);
+        }
+        return new RenderedCaptcha(text, output.toByteArray());
+    }
+
+    /**
+     * 当前池中可用的验证码数量
+     */
+    public int size() {
+        return pool == null ? 0 : pool.size();
+    }
+
+    /**
+     * 池中为空、在请求线程上同步生成的次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void refill() {
+        while (running) {
+            try {
+                // 池满时阻塞等待消费
+                pool.put(render());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("预生成验证码失败: {}", e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(FAILURE_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 预生成的验证码
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class RenderedCaptcha {
+
+        /**
+         * 验证码文本
+         */
+        private final String text;
+
+        /**
+         * JPEG编码后的图片
+         */
+        private final byte[] image;
+    }
+}
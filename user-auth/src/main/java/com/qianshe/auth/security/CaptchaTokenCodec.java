@@ -0,0 +1,168 @@
+package com.qianshe.auth.security;
+
+import cn.hutool.core.util.StrUtil;
+import com.qianshe.auth.config.CaptchaTokenConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * 无状态验证码令牌编解码
+ * 令牌格式为 base64url(过期时间 + 随机数) . base64url(签名)，
+ * 签名为HMAC-SHA256(过期时间 + 随机数 + 小写答案)的前{@value #TAG_BYTES}字节：
+ * 令牌本身不含答案，没有密钥无法离线穷举，服务端也无需保存任何状态
+ *
+ * <p>令牌只能防篡改和过期，一次性使用需要调用方按{@link CaptchaToken#getId()}记录已使用的令牌</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CaptchaTokenCodec {
+
+    /**
+     * 载荷与签名的分隔符，Redis模式的UUID标识中不会出现
+     */
+    public static final char SEPARATOR = '.';
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int NONCE_BYTES = 12;
+    private static final int PAYLOAD_BYTES = Long.BYTES + NONCE_BYTES;
+    private static final int TAG_BYTES = 16;
+    private static final int SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final CaptchaTokenConfig captchaTokenConfig;
+
+    private final SecureRandom random = new SecureRandom();
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    public void init() {
+        byte[] secret;
+        if (StrUtil.isBlank(captchaTokenConfig.getSecret())) {
+            secret = new byte[SECRET_BYTES];
+            random.nextBytes(secret);
+            if (captchaTokenConfig.isEnabled()) {
+                log.warn("未配置auth.captcha-token.secret，已随机生成，多实例部署时各实例签发的验证码互不通用");
+            }
+        } else {
+            secret = captchaTokenConfig.getSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("初始化验证码签名失败", e);
+            }
+        });
+    }
+
+    /**
+     * 是否启用无状态验证码
+     */
+    public boolean isEnabled() {
+        return captchaTokenConfig.isEnabled();
+    }
+
+    /**
+     * 验证码标识是否为无状态令牌
+     *
+     * @param captchaKey 验证码标识
+     * @return 是否为令牌
+     */
+    public static boolean isToken(String captchaKey) {
+        return captchaKey.indexOf(SEPARATOR) > 0;
+    }
+
+    /**
+     * 签发验证码令牌
+     *
+     * @param answer 验证码答案
+     * @return 令牌
+     */
+    public String issue(String answer) {
+        long expiresAt = System.currentTimeMillis() / 1000 + captchaTokenConfig.getExpireSeconds();
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES).putLong(expiresAt).array();
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        System.arraycopy(nonce, 0, payload, Long.BYTES, NONCE_BYTES);
+        return ENCODER.encodeToString(payload) + SEPARATOR + ENCODER.encodeToString(sign(payload, answer));
+    }
+
+    /**
+     * 校验令牌与答案
+     *
+     * @param token  令牌
+     * @param answer 用户输入的答案，大小写不敏感
+     * @return 校验通过时返回令牌信息，令牌无效、已过期或答案错误时为null
+     */
+    public CaptchaToken verify(String token, String answer) {
+        int separator = token.indexOf(SEPARATOR);
+        byte[] payload;
+        byte[] tag;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            tag = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payload.length != PAYLOAD_BYTES || tag.length != TAG_BYTES) {
+            return null;
+        }
+        long expiresAt = ByteBuffer.wrap(payload).getLong();
+        long remainingSeconds = expiresAt - System.currentTimeMillis() / 1000;
+        if (remainingSeconds <= 0) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(tag, sign(payload, answer))) {
+            return null;
+        }
+        return new CaptchaToken(token.substring(0, separator), remainingSeconds);
+    }
+
+    private byte[] sign(byte[] payload, String answer) {
+        Mac mac = macs.get();
+        mac.update(payload);
+        byte[] digest = mac.doFinal(answer.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        return Arrays.copyOf(digest, TAG_BYTES);
+    }
+
+    /**
+     * 校验通过的令牌
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class CaptchaToken {
+
+        /**
+         * 令牌唯一标识（载荷部分），用于记录已使用的令牌
+         */
+        private final String id;
+
+        /**
+         * 剩余有效期（秒）
+         */
+        private final long remainingSeconds;
+    }
+}
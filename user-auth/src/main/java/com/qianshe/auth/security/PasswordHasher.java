@@ -0,0 +1,197 @@
+package com.qianshe.auth.security;
+
+import cn.hutool.crypto.digest.BCrypt;
+import com.qianshe.auth.config.PasswordHashConfig;
+import com.qianshe.auth.exception.ServiceBusyException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 密码哈希执行器
+ * BCrypt每次计算占用一个CPU核数十毫秒，在Tomcat请求线程上执行时，登录洪峰会占满请求线程和CPU，
+ * 拖慢所有接口。这里把哈希计算放到线程数等于CPU核数的独立线程池中，等待队列有界：
+ * 队列已满或排队超时的请求立即以{@link ServiceBusyException}拒绝（503），请求线程不会长时间堆积
+ *
+ * <p>成本因子可配置，登录成功时若已存哈希的成本与配置不一致，则在线程池空闲时按新成本重新哈希</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    private final PasswordHashConfig passwordHashConfig;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // 启动时校验成本因子，超出范围时BCrypt抛出异常
+        BCrypt.gensalt(passwordHashConfig.getCost());
+        int threads = passwordHashConfig.getThreads() > 0
+                ? passwordHashConfig.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        int queueCapacity = Math.max(1, passwordHashConfig.getQueueCapacity());
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+        log.info("密码哈希线程池已启动，线程数: {}, 队列长度: {}, 成本因子: {}",
+                threads, queueCapacity, passwordHashConfig.getCost());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 按配置的成本因子计算密码哈希
+     *
+     * @param rawPassword 明文密码
+     * @return BCrypt哈希
+     * @throws ServiceBusyException 线程池繁忙
+     */
+    public String hash(String rawPassword) {
+        return call(() -> doHash(rawPassword));
+    }
+
+    /**
+     * 校验密码
+     *
+     * @param rawPassword    明文密码
+     * @param hashedPassword 已存的BCrypt哈希
+     * @return 是否匹配
+     * @throws ServiceBusyException 线程池繁忙
+     */
+    public boolean verify(String rawPassword, String hashedPassword) {
+        return call(() -> BCrypt.checkpw(rawPassword, hashedPassword));
+    }
+
+    /**
+     * 已存哈希的成本因子是否与当前配置不一致
+     *
+     * @param hashedPassword 已存的BCrypt哈希
+     * @return 是否需要重新哈希
+     */
+    public boolean needsRehash(String hashedPassword) {
+        return costOf(hashedPassword) != passwordHashConfig.getCost();
+    }
+
+    /**
+     * 异步按当前成本因子重新哈希
+     * 尽力而为：只在没有排队任务时提交，避免与登录请求争抢排队名额；否则直接跳过，用户下次登录时再尝试
+     *
+     * @param rawPassword 已校验通过的明文密码
+     * @param store       保存新哈希，在哈希线程中调用
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> store) {
+        if (!executor.getQueue().isEmpty()) {
+            log.debug("密码哈希线程池繁忙，跳过重新哈希");
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    store.accept(doHash(rawPassword));
+                } catch (Exception e) {
+                    log.warn("密码重新哈希失败: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("密码哈希线程池繁忙，跳过重新哈希");
+        }
+    }
+
+    /**
+     * 当前排队等待的哈希任务数
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private String doHash(String rawPassword) {
+        return BCrypt.hashpw(rawPassword, BCrypt.gensalt(passwordHashConfig.getCost()));
+    }
+
+    private <T> T call(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("密码哈希队列已满，拒绝请求，排队数: {}", executor.getQueue().size());
+            throw new ServiceBusyException();
+        }
+        try {
+            return future.get(passwordHashConfig.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 仍在排队的任务取消后不再执行，并立即移出队列释放排队名额
+            cancel(future);
+            log.warn("密码哈希等待超时，拒绝请求，排队数: {}", executor.getQueue().size());
+            throw new ServiceBusyException();
+        } catch (InterruptedException e) {
+            cancel(future);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 取消任务，仍在排队时从队列中移除
+     * 已取消的任务否则要等到被线程取出时才离开队列，期间继续占用排队名额
+     */
+    private void cancel(Future<?> future) {
+        if (future.cancel(false) && future instanceof Runnable runnable) {
+            executor.remove(runnable);
+        }
+    }
+
+    /**
+     * 解析BCrypt哈希中的成本因子，格式为$2a$10$...或$2$10$...
+     *
+     * @param hashedPassword BCrypt哈希
+     * @return 成本因子，无法解析时为-1
+     */
+    static int costOf(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        int offset = hashedPassword.charAt(2) == '$' ? 3 : 4;
+        if (hashedPassword.length() <= offset + 2 || hashedPassword.charAt(offset + 2) != '$') {
+            return -1;
+        }
+        char tens = hashedPassword.charAt(offset);
+        char ones = hashedPassword.charAt(offset + 1);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+}
@@ -0,0 +1,395 @@
+package com.qianshe.auth.security;
+
+import cn.hutool.core.util.StrUtil;
+import com.qianshe.auth.config.RoleCacheConfig;
+import com.qianshe.auth.mapper.RoleMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 角色两级缓存
+ *
+ * <ul>
+ *     <li>角色定义：启动时全量加载角色编码到内存，校验不存在的角色时才重新加载</li>
+ *     <li>用户角色：本地缓存 + Redis缓存。Redis中按用户保存版本号，缓存值带加载时的版本号，
+ *     版本不一致的缓存视为过期；角色变更在事务提交后递增版本号并通过Redis频道通知各节点清除本地缓存</li>
+ * </ul>
+ *
+ * <p>稳定状态下角色读取只访问本地内存，本地未命中时读取Redis，两级都未命中才查询数据库</p>
+ *
+ * <p>本地缓存只在确认订阅失效通知后启用。各节点定期向通知频道发送心跳，连续三个心跳间隔收不到任何消息时
+ * 视为订阅连接已断开（Lettuce断线重连不会通知监听器），停用本地缓存；重新订阅或恢复收到消息时先清空本地缓存再启用，
+ * 断开期间错过的失效通知不会导致读到旧角色</p>
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleCache {
+
+    private static final String VERSION_KEY_PREFIX = "auth:user-roles:version:";
+    private static final String ROLES_KEY_PREFIX = "auth:user-roles:";
+    private static final String INVALIDATE_CHANNEL = "auth:user-roles:invalidate";
+    private static final char VERSION_SEPARATOR = '|';
+    private static final String HEARTBEAT_MESSAGE = "heartbeat";
+    private static final int HEARTBEAT_TIMEOUT_INTERVALS = 3;
+
+    private final RoleCacheConfig roleCacheConfig;
+    private final RoleMapper roleMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+
+    private final ConcurrentHashMap<Long, CachedRoles> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 失效代数，每次失效递增；加载期间代数变化说明结果可能已过时，不写入本地缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 下次允许清理过期缓存的时间
+     */
+    private volatile long nextSweepAt = System.nanoTime();
+
+    /**
+     * 全部角色编码
+     */
+    private volatile Set<String> roleCodes = Set.of();
+
+    /**
+     * 失效通知监听容器
+     */
+    private volatile RedisMessageListenerContainer container;
+
+    /**
+     * 心跳发送线程
+     */
+    private volatile ScheduledExecutorService heartbeatExecutor;
+
+    /**
+     * 是否已确认订阅失效通知频道
+     */
+    private volatile boolean subscribed;
+
+    /**
+     * 最近一次收到通知频道消息（含心跳）的时间
+     */
+    private volatile long lastMessageAt = System.nanoTime();
+
+    @PostConstruct
+    public void init() {
+        reloadRoleCodes();
+        if (!roleCacheConfig.isEnabled()) {
+            return;
+        }
+        try {
+            RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(connectionFactory);
+            listenerContainer.addMessageListener(new InvalidationListener(), ChannelTopic.of(INVALIDATE_CHANNEL));
+            listenerContainer.afterPropertiesSet();
+            // 订阅确认前本地缓存不生效，退化为每次读取Redis
+            listenerContainer.start();
+            container = listenerContainer;
+        } catch (Exception e) {
+            log.warn("角色缓存订阅失效通知失败，本地缓存不生效: {}", e.getMessage());
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "role-cache-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = roleCacheConfig.getHeartbeatInterval();
+        executor.scheduleWithFixedDelay(this::sendHeartbeat, interval, interval, TimeUnit.MILLISECONDS);
+        heartbeatExecutor = executor;
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    /**
+     * 角色是否存在
+     * 内存中没有时重新加载一次角色定义，兼容直接在数据库中新增的角色
+     *
+     * @param roleCode 角色编码
+     * @return 是否存在
+     */
+    public boolean roleExists(String roleCode) {
+        if (roleCodes.contains(roleCode)) {
+            return true;
+        }
+        return reloadRoleCodes().contains(roleCode);
+    }
+
+    /**
+     * 获取用户角色，未命中时通过loader从数据库加载
+     *
+     * @param userId 用户ID
+     * @param loader 加载函数
+     * @return 角色编码列表
+     */
+    public List<String> getUserRoles(Long userId, Function<Long, List<String>> loader) {
+        if (!roleCacheConfig.isEnabled()) {
+            return loader.apply(userId);
+        }
+        long now = System.nanoTime();
+        boolean localEnabled = isLocalEnabled(now);
+        if (localEnabled) {
+            CachedRoles cached = cache.get(userId);
+            if (cached != null) {
+                if (now - cached.expiresAt < 0) {
+                    return cached.roles;
+                }
+                cache.remove(userId, cached);
+            }
+        }
+
+        long loadGeneration = generation.get();
+        List<String> roles = loadShared(userId, loader);
+        if (localEnabled) {
+            putLocal(userId, roles, loadGeneration, now);
+        }
+        return roles;
+    }
+
+    /**
+     * 用户角色已变更
+     * 在当前事务提交后递增版本号、删除Redis缓存并通知各节点清除本地缓存；没有事务时立即执行
+     *
+     * @param userId 用户ID
+     */
+    public void invalidateUser(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidateUser(userId);
+                }
+            });
+            return;
+        }
+        doInvalidateUser(userId);
+    }
+
+    private void doInvalidateUser(Long userId) {
+        invalidateLocal(userId);
+        try {
+            String versionKey = VERSION_KEY_PREFIX + userId;
+            redisTemplate.opsForValue().increment(versionKey);
+            // 版本号比角色缓存多保留一倍时间，过期时该用户的角色缓存必然已过期，不会误用旧版本的缓存
+            redisTemplate.expire(versionKey, roleCacheConfig.getRedisTtl() * 2, TimeUnit.SECONDS);
+            redisTemplate.delete(ROLES_KEY_PREFIX + userId);
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+            log.debug("用户角色缓存已失效: {}", userId);
+        } catch (Exception e) {
+            log.warn("用户角色缓存失效通知失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 从Redis读取，版本号一致才使用；否则从数据库加载并以读取时的版本号写回
+     * 加载期间角色再次变更时，写回的版本号落后，下次读取会重新加载
+     */
+    private List<String> loadShared(Long userId, Function<Long, List<String>> loader) {
+        String versionKey = VERSION_KEY_PREFIX + userId;
+        String rolesKey = ROLES_KEY_PREFIX + userId;
+        String version;
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(versionKey, rolesKey));
+            version = values == null || values.get(0) == null ? "0" : values.get(0);
+            String cached = values == null ? null : values.get(1);
+            if (cached != null) {
+                int separator = cached.indexOf(VERSION_SEPARATOR);
+                if (separator > 0 && version.equals(cached.substring(0, separator))) {
+                    return decode(cached.substring(separator + 1));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取用户角色缓存失败，直接查询数据库: userId={}, error={}", userId, e.getMessage());
+            return loader.apply(userId);
+        }
+
+        List<String> roles = List.copyOf(loader.apply(userId));
+        try {
+            redisTemplate.opsForValue().set(rolesKey, version + VERSION_SEPARATOR + String.join(",", roles),
+                    roleCacheConfig.getRedisTtl(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入用户角色缓存失败: userId={}, error={}", userId, e.getMessage());
+        }
+        return roles;
+    }
+
+    private void putLocal(Long userId, List<String> roles, long loadGeneration, long now) {
+        if (cache.size() >= roleCacheConfig.getLocalMaxSize() && !sweep(now)) {
+            return;
+        }
+        cache.put(userId, new CachedRoles(roles, now + TimeUnit.MILLISECONDS.toNanos(roleCacheConfig.getLocalTtl())));
+        // 加载期间收到过失效通知，丢弃刚写入的结果
+        if (generation.get() != loadGeneration) {
+            cache.remove(userId);
+        }
+    }
+
+    private void invalidateLocal(Long userId) {
+        generation.incrementAndGet();
+        cache.remove(userId);
+    }
+
+    private void invalidateAllLocal() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * 本地缓存是否可用：已确认订阅且订阅连接近期收到过消息
+     */
+    private boolean isLocalEnabled(long now) {
+        return subscribed && now - lastMessageAt < heartbeatTimeoutNanos();
+    }
+
+    private long heartbeatTimeoutNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(roleCacheConfig.getHeartbeatInterval()) * HEARTBEAT_TIMEOUT_INTERVALS;
+    }
+
+    private void sendHeartbeat() {
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, HEARTBEAT_MESSAGE);
+        } catch (Exception e) {
+            log.debug("角色缓存心跳发送失败: {}", e.getMessage());
+        }
+        if (subscribed && !isLocalEnabled(System.nanoTime()) && !cache.isEmpty()) {
+            invalidateAllLocal();
+            log.warn("角色缓存长时间未收到失效通知频道消息，停用本地缓存");
+        }
+    }
+
+    /**
+     * 清理过期缓存
+     *
+     * @return 清理后是否还有空间
+     */
+    private boolean sweep(long now) {
+        if (now - nextSweepAt >= 0) {
+            nextSweepAt = now + TimeUnit.MILLISECONDS.toNanos(roleCacheConfig.getLocalTtl());
+            cache.values().removeIf(cached -> now - cached.expiresAt >= 0);
+        }
+        return cache.size() < roleCacheConfig.getLocalMaxSize();
+    }
+
+    private Set<String> reloadRoleCodes() {
+        Set<String> loaded = Set.copyOf(roleMapper.selectAllRoleCodes());
+        roleCodes = loaded;
+        log.debug("角色定义已加载，共{}个", loaded.size());
+        return loaded;
+    }
+
+    /**
+     * 已订阅失效通知频道，包括断线重连后的重新订阅
+     * 断开期间可能错过失效通知，先清空本地缓存再启用
+     */
+    void onSubscribed() {
+        invalidateAllLocal();
+        lastMessageAt = System.nanoTime();
+        subscribed = true;
+        log.info("角色缓存已订阅失效通知，启用本地缓存");
+    }
+
+    /**
+     * 已退订失效通知频道，停用并清空本地缓存
+     */
+    void onUnsubscribed() {
+        subscribed = false;
+        invalidateAllLocal();
+        log.warn("角色缓存失效通知已退订，停用本地缓存");
+    }
+
+    /**
+     * 收到失效通知频道消息
+     * 任何消息都说明订阅连接正常；此前已超时停用时先清空本地缓存
+     */
+    void onMessage(String body) {
+        long now = System.nanoTime();
+        if (now - lastMessageAt >= heartbeatTimeoutNanos()) {
+            invalidateAllLocal();
+        }
+        lastMessageAt = now;
+        if (HEARTBEAT_MESSAGE.equals(body)) {
+            return;
+        }
+        try {
+            invalidateLocal(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("无效的角色缓存失效通知: {}", body);
+        }
+    }
+
+    /**
+     * 失效通知监听器，同时接收订阅确认和退订通知
+     */
+    private final class InvalidationListener implements MessageListener, SubscriptionListener {
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            RoleCache.this.onMessage(new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onChannelSubscribed(byte[] channel, long count) {
+            onSubscribed();
+        }
+
+        @Override
+        public void onChannelUnsubscribed(byte[] channel, long count) {
+            onUnsubscribed();
+        }
+    }
+
+    private static List<String> decode(String value) {
+        return value.isEmpty() ? List.of() : List.copyOf(StrUtil.split(value, ','));
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class CachedRoles {
+
+        private final List<String> roles;
+        private final long expiresAt;
+
+        private CachedRoles(List<String> roles, long expiresAt) {
+            this.roles = roles;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -30,6 +30,17 @@ public interface CaptchaService {
      */
     boolean validateCaptcha(String captchaKey, String captchaCode);
 
+    /**
+     * 预校验图形验证码
+     * 只判断验证码是否正确，不消耗验证码，用于提交表单前的前端校验；
+     * 无状态令牌在{@link #validateCaptcha}中才标记为已使用
+     *
+     * @param captchaKey  验证码标识
+     * @param captchaCode 用户输入的验证码
+     * @return 验证结果，true表示验证通过，false表示验证失败
+     */
+    boolean checkCaptcha(String captchaKey, String captchaCode);
+
     /**
      * 生成短信验证码
      * 生成6位数字验证码并发送到指定手机号
@@ -25,6 +25,15 @@ public interface RoleService {
      * @param roleCode 角色编码
      */
     void assignUserRole(Long userId, String roleCode);
+
+    /**
+     * 为新注册的用户分配默认角色
+     * 新账号没有缓存的角色和登录会话，不做缓存失效和会话刷新
+     *
+     * @param userId 用户ID
+     * @param userType 用户类型
+     */
+    void assignDefaultRole(Long userId, String userType);
     
     /**
      * 移除用户角色
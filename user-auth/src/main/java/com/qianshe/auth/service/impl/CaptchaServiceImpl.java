@@ -1,7 +1,10 @@
 package com.qianshe.auth.service.impl;
 
-import com.google.code.kaptcha.Producer;
 import com.qianshe.auth.domain.CaptchaResult;
+import com.qianshe.auth.security.CaptchaPool;
+import com.qianshe.auth.security.CaptchaPool.RenderedCaptcha;
+import com.qianshe.auth.security.CaptchaTokenCodec;
+import com.qianshe.auth.security.CaptchaTokenCodec.CaptchaToken;
 import com.qianshe.auth.service.CaptchaService;
 import com.qianshe.common.exception.ServiceException;
 import lombok.RequiredArgsConstructor;
@@ -9,7 +12,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.awt.image.BufferedImage;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -25,7 +27,8 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class CaptchaServiceImpl implements CaptchaService {
 
-    private final Producer captchaProducer;
+    private final CaptchaPool captchaPool;
+    private final CaptchaTokenCodec captchaTokenCodec;
     private final StringRedisTemplate redisTemplate;
 
     /**
@@ -42,6 +45,7 @@ public class CaptchaServiceImpl implements CaptchaService {
      * 验证码Redis key前缀
      */
     private static final String CAPTCHA_KEY_PREFIX = "captcha:image:";
+    private static final String CAPTCHA_USED_KEY_PREFIX = "captcha:used:";
     private static final String SMS_CODE_KEY_PREFIX = "captcha:sms:";
 
 
@@ -57,23 +61,27 @@ public class CaptchaServiceImpl implements CaptchaService {
         try {
             log.debug("开始生成验证码和图片");
 
-            // 生成验证码文本
-            String captchaText = captchaProducer.createText();
+            // 从预生成池取出已渲染并编码的验证码
+            RenderedCaptcha captcha = captchaPool.take();
+
+            // 无状态模式：答案签入验证码标识，不写Redis
+            if (captchaTokenCodec.isEnabled()) {
+                return new CaptchaResult(captchaTokenCodec.issue(captcha.getText()), captcha.getImage());
+            }
+
             // 生成唯一标识
             String captchaKey = UUID.randomUUID().toString();
-            // 生成图片
-            BufferedImage image = captchaProducer.createImage(captchaText);
 
             // 保存验证码文本到Redis
             redisTemplate.opsForValue().set(
                 CAPTCHA_KEY_PREFIX + captchaKey,
-                captchaText,
+                captcha.getText(),
                 CAPTCHA_EXPIRE_MINUTES,
                 TimeUnit.MINUTES
             );
 
             log.debug("验证码生成成功，captchaKey: {}", captchaKey);
-            return new CaptchaResult(captchaKey, image);
+            return new CaptchaResult(captchaKey, captcha.getImage());
 
         } catch (Exception e) {
             log.error("验证码生成失败", e);
@@ -103,6 +111,11 @@ public class CaptchaServiceImpl implements CaptchaService {
                 return false;
             }
 
+            // 无状态令牌：校验签名后标记为已使用
+            if (CaptchaTokenCodec.isToken(captchaKey)) {
+                return validateToken(captchaKey, captchaCode, true);
+            }
+
             // 从Redis获取正确的验证码
             String key = CAPTCHA_KEY_PREFIX + captchaKey;
             String correctCode = redisTemplate.opsForValue().get(key);
@@ -132,6 +145,44 @@ public class CaptchaServiceImpl implements CaptchaService {
         }
     }
 
+    @Override
+    public boolean checkCaptcha(String captchaKey, String captchaCode) {
+        if (captchaKey == null || captchaCode == null || !CaptchaTokenCodec.isToken(captchaKey)) {
+            // Redis模式的校验本身不消耗验证码
+            return validateCaptcha(captchaKey, captchaCode);
+        }
+        try {
+            return validateToken(captchaKey, captchaCode, false);
+        } catch (Exception e) {
+            log.error("验证码验证异常，captchaKey: {}", captchaKey, e);
+            return false;
+        }
+    }
+
+    /**
+     * 校验无状态验证码令牌
+     * 已使用的令牌记录在Redis中，有效期与令牌剩余有效期一致，只有校验通过才写入
+     *
+     * @param consume 是否标记为已使用
+     */
+    private boolean validateToken(String token, String captchaCode, boolean consume) {
+        CaptchaToken captchaToken = captchaTokenCodec.verify(token, captchaCode);
+        if (captchaToken == null) {
+            log.debug("验证码令牌无效、已过期或答案错误");
+            return false;
+        }
+        String usedKey = CAPTCHA_USED_KEY_PREFIX + captchaToken.getId();
+        if (!consume) {
+            return !Boolean.TRUE.equals(redisTemplate.hasKey(usedKey));
+        }
+        boolean firstUse = Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(usedKey, "1", captchaToken.getRemainingSeconds(), TimeUnit.SECONDS));
+        if (!firstUse) {
+            log.warn("验证码令牌重复使用");
+        }
+        return firstUse;
+    }
+
     @Override
     public String generateSmsCode(String mobile) {
         // 生成6位数字验证码
@@ -1,15 +1,23 @@
 package com.qianshe.auth.service.impl;
 
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.StpLogic;
+import com.qianshe.auth.listener.TokenInvalidationNotifier;
 import com.qianshe.auth.mapper.RoleMapper;
+import com.qianshe.auth.security.RoleCache;
 import com.qianshe.auth.service.RoleService;
+import com.qianshe.common.constants.CommonConstants;
 import com.qianshe.common.exception.ServiceException;
 import com.qianshe.common.result.ResultCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +33,11 @@ import java.util.Map;
 public class RoleServiceImpl implements RoleService {
 
     private final RoleMapper roleMapper;
+    private final TokenInvalidationNotifier tokenInvalidationNotifier;
+    private final RoleCache roleCache;
+    private final StpLogic userStpLogic;
+    private final StpLogic adminStpLogic;
+    private final StpLogic vipStpLogic;
     
     /**
      * 用户类型与默认角色的映射
@@ -39,38 +52,98 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     public List<String> getUserRoles(Long userId) {
-        return roleMapper.selectUserRoles(userId);
+        return roleCache.getUserRoles(userId, roleMapper::selectUserRoles);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void assignUserRole(Long userId, String roleCode) {
         // 验证角色是否存在
-        if (roleMapper.checkRoleExists(roleCode) == 0) {
+        if (!roleCache.roleExists(roleCode)) {
             throw new ServiceException(ResultCode.ROLE_NOT_FOUND.getCode(), "角色不存在");
         }
         
         try {
             roleMapper.insertUserRole(userId, roleCode);
             log.info("分配角色成功: userId={}, roleCode={}", userId, roleCode);
+            onUserRolesChanged(userId);
         } catch (Exception e) {
             log.error("分配角色失败: userId={}, roleCode={}, error={}", userId, roleCode, e.getMessage(), e);
             throw new ServiceException(ResultCode.ASSIGN_ROLE_FAILED.getCode(), "分配角色失败");
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void assignDefaultRole(Long userId, String userType) {
+        roleMapper.insertUserRole(userId, getDefaultRoleByUserType(userType));
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void removeUserRole(Long userId, String roleCode) {
         try {
             roleMapper.deleteUserRole(userId, roleCode);
             log.info("移除角色成功: userId={}, roleCode={}", userId, roleCode);
+            onUserRolesChanged(userId);
         } catch (Exception e) {
             log.error("移除角色失败: userId={}, roleCode={}, error={}", userId, roleCode, e.getMessage(), e);
             throw new ServiceException(ResultCode.REMOVE_ROLE_FAILED.getCode(), "移除角色失败");
         }
     }
 
+    /**
+     * 角色变更后刷新缓存和已登录令牌
+     * 网关从token会话读取角色，只发失效通知不会生效，需要先改写该账号全部token会话中的角色再通知；
+     * 两步都在事务提交后执行，保证读到的是新角色，事务回滚时不改写
+     */
+    private void onUserRolesChanged(Long userId) {
+        roleCache.invalidateUser(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshLoginSessions(userId);
+                }
+            });
+            return;
+        }
+        refreshLoginSessions(userId);
+    }
+
+    private void refreshLoginSessions(Long userId) {
+        try {
+            Map<StpLogic, SaSession> sessions = new LinkedHashMap<>();
+            for (StpLogic stpLogic : List.of(userStpLogic, adminStpLogic, vipStpLogic)) {
+                SaSession session = stpLogic.getSessionByLoginId(userId, false);
+                if (session != null) {
+                    sessions.put(stpLogic, session);
+                }
+            }
+            if (sessions.isEmpty()) {
+                // 账号当前没有登录会话，下次登录时会读取新角色
+                return;
+            }
+            List<String> roles = roleMapper.selectUserRoles(userId);
+            for (Map.Entry<StpLogic, SaSession> entry : sessions.entrySet()) {
+                StpLogic stpLogic = entry.getKey();
+                entry.getValue().set(CommonConstants.Token.SESSION_ROLES, roles);
+                for (String token : stpLogic.getTokenValueListByLoginId(userId)) {
+                    SaSession tokenSession = stpLogic.getTokenSessionByToken(token, false);
+                    if (tokenSession != null) {
+                        tokenSession.set(CommonConstants.Token.SESSION_ROLES, roles);
+                    }
+                }
+            }
+            log.debug("已刷新登录会话中的角色: userId={}, roles={}", userId, roles);
+            // 会话改写成功后才通知，否则网关清除缓存后读到的仍是旧角色
+            tokenInvalidationNotifier.publishLogin(userId);
+        } catch (Exception e) {
+            log.warn("刷新登录会话中的角色失败，网关在令牌缓存过期前仍使用旧角色: userId={}, error={}",
+                    userId, e.getMessage());
+        }
+    }
+
     @Override
     public String getDefaultRoleByUserType(String userType) {
         return USER_TYPE_ROLE_MAP.getOrDefault(userType, "user");
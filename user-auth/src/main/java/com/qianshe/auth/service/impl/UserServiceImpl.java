@@ -1,25 +1,29 @@
 package com.qianshe.auth.service.impl;
 
+import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.stp.SaLoginModel;
 import cn.dev33.satoken.stp.StpLogic;
 import cn.dev33.satoken.stp.StpUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.crypto.digest.BCrypt;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.qianshe.auth.domain.LoginUser;
 import com.qianshe.auth.domain.dto.LoginDTO;
 import com.qianshe.auth.domain.dto.RegisterDTO;
 import com.qianshe.auth.domain.dto.UpdatePasswordDTO;
 import com.qianshe.auth.domain.vo.LoginVO;
 import com.qianshe.auth.domain.vo.UserInfoVO;
 import com.qianshe.auth.mapper.UserMapper;
+import com.qianshe.auth.security.PasswordHasher;
 import com.qianshe.auth.service.CaptchaService;
 import com.qianshe.auth.service.RoleService;
 import com.qianshe.auth.service.UserService;
+import com.qianshe.common.constants.CommonConstants;
 import com.qianshe.common.domain.User;
 import com.qianshe.common.exception.ServiceException;
 import com.qianshe.common.result.ResultCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,6 +43,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     private final UserMapper userMapper;
     private final RoleService roleService;
     private final CaptchaService captchaService;
+    private final PasswordHasher passwordHasher;
     private final StpLogic userStpLogic;
     private final StpLogic adminStpLogic;
     private final StpLogic vipStpLogic;
@@ -64,43 +69,31 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new ServiceException(ResultCode.PASSWORD_NOT_MATCH.getCode(), ResultCode.PASSWORD_NOT_MATCH.getMessage());
         }
 
-        // 3. 校验用户名唯一性
-        checkUsernameUnique(registerDTO.getUsername());
-        log.debug("用户名唯一性校验通过: {}", registerDTO.getUsername());
-
-        // 4. 校验手机号唯一性
-        if (StrUtil.isNotBlank(registerDTO.getMobile())) {
-            checkMobileUnique(registerDTO.getMobile());
-            log.debug("手机号唯一性校验通过: {}", registerDTO.getMobile());
-        }
-
-        // 5. 校验邮箱唯一性
-        if (StrUtil.isNotBlank(registerDTO.getEmail())) {
-            checkEmailUnique(registerDTO.getEmail());
-            log.debug("邮箱唯一性校验通过: {}", registerDTO.getEmail());
-        }
-
-        // 6. 创建用户
+        // 3. 创建用户，用户名、手机号、邮箱的唯一性由唯一索引保证，不再逐项预查询
         User user = new User();
         user.setUsername(registerDTO.getUsername());
-        user.setPassword(BCrypt.hashpw(registerDTO.getPassword()));
+        user.setPassword(passwordHasher.hash(registerDTO.getPassword()));
         user.setNickname(StrUtil.isNotBlank(registerDTO.getNickname()) ? registerDTO.getNickname() : registerDTO.getUsername());
-        user.setMobile(registerDTO.getMobile());
-        user.setEmail(registerDTO.getEmail());
+        user.setMobile(StrUtil.emptyToNull(registerDTO.getMobile()));
+        user.setEmail(StrUtil.emptyToNull(registerDTO.getEmail()));
         user.setUserType("user"); // 默认为普通用户
         user.setStatus(0);
         log.debug("用户信息构建完成: {}", registerDTO.getUsername());
 
         try {
-            // 7. 保存用户到数据库
+            // 4. 保存用户到数据库
             save(user);
             log.debug("用户数据保存成功: {}", user.getUsername());
 
-            // 8. 分配默认角色
-            roleService.assignUserRole(user.getId(), roleService.getDefaultRoleByUserType(user.getUserType()));
+            // 5. 分配默认角色
+            roleService.assignDefaultRole(user.getId(), user.getUserType());
             log.debug("默认角色分配成功: {}", user.getUsername());
 
             log.info("用户注册成功: {}, ID: {}", user.getUsername(), user.getId());
+        } catch (DuplicateKeyException e) {
+            ResultCode resultCode = duplicateResultCode(e);
+            log.warn("用户注册失败，{}: {}", resultCode.getMessage(), registerDTO.getUsername());
+            throw new ServiceException(resultCode.getCode(), resultCode.getMessage());
         } catch (Exception e) {
             log.error("用户注册失败: {}, 错误: {}", registerDTO.getUsername(), e.getMessage(), e);
             throw new ServiceException(ResultCode.REGISTER_FAILED.getCode(), ResultCode.REGISTER_FAILED.getMessage());
@@ -115,8 +108,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new ServiceException(ResultCode.INVALID_LOGIN_TYPE.getCode(), ResultCode.INVALID_LOGIN_TYPE.getMessage());
         }
 
-        // 根据登录类型和账号查询用户
-        User user = getUserByLoginType(loginDTO);
+        // 根据登录类型和账号查询用户，角色编码在同一次查询中聚合返回
+        LoginUser user = getLoginUser(loginDTO);
         if (user == null) {
             log.warn("登录失败，用户不存在: {}", loginDTO.getAccount());
             throw new ServiceException(ResultCode.USER_NOT_FOUND.getCode(), ResultCode.USER_NOT_FOUND.getMessage());
@@ -138,8 +131,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new ServiceException(ResultCode.UNAUTHORIZED_USER_TYPE.getCode(), ResultCode.UNAUTHORIZED_USER_TYPE.getMessage());
         }
         
-        // 获取用户角色
-        List<String> roles = roleService.getUserRoles(user.getId());
+        List<String> roles = user.getRoles();
         
         // 根据用户类型选择对应的StpLogic进行登录
         StpLogic stpLogic = selectStpLogicByUserType(user.getUserType());
@@ -156,6 +148,14 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         stpLogic.getSession().set("userType", user.getUserType());
         
         String token = stpLogic.getTokenValue();
+
+        // 在token会话中一次性写入网关鉴权所需信息，网关每个请求只需一次管道读取
+        SaSession tokenSession = stpLogic.getTokenSessionByToken(token);
+        tokenSession.getDataMap().put(CommonConstants.Token.SESSION_LOGIN_ID, user.getId());
+        tokenSession.getDataMap().put(CommonConstants.Token.SESSION_USER_TYPE, stpLogic.getLoginType());
+        tokenSession.getDataMap().put(CommonConstants.Token.SESSION_ROLES, roles);
+        tokenSession.update();
+
         log.info("用户登录成功: {}, userType: {}", user.getUsername(), user.getUserType());
 
         // 返回结果
@@ -216,12 +216,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
         
         // 校验旧密码
-        if (!BCrypt.checkpw(updatePasswordDTO.getOldPassword(), user.getPassword())) {
+        if (!passwordHasher.verify(updatePasswordDTO.getOldPassword(), user.getPassword())) {
             throw new ServiceException(ResultCode.PASSWORD_ERROR.getCode(), "旧密码错误");
         }
         
         // 更新密码
-        user.setPassword(BCrypt.hashpw(updatePasswordDTO.getNewPassword()));
+        user.setPassword(passwordHasher.hash(updatePasswordDTO.getNewPassword()));
         updateById(user);
         log.info("用户[{}]密码修改成功", user.getUsername());
     }
@@ -262,30 +262,20 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     /**
-     * 校验用户名唯一性
+     * 根据违反的唯一索引确定注册失败原因
      */
-    private void checkUsernameUnique(String username) {
-        if (getByUsername(username) != null) {
-            throw new ServiceException(ResultCode.USERNAME_ALREADY_EXISTS.getCode(), ResultCode.USERNAME_ALREADY_EXISTS.getMessage());
+    private ResultCode duplicateResultCode(DuplicateKeyException e) {
+        String message = String.valueOf(e.getMostSpecificCause().getMessage());
+        if (message.contains("uk_username")) {
+            return ResultCode.USERNAME_ALREADY_EXISTS;
         }
-    }
-
-    /**
-     * 校验手机号唯一性
-     */
-    private void checkMobileUnique(String mobile) {
-        if (getByMobile(mobile) != null) {
-            throw new ServiceException(ResultCode.MOBILE_ALREADY_EXISTS.getCode(), ResultCode.MOBILE_ALREADY_EXISTS.getMessage());
+        if (message.contains("uk_mobile")) {
+            return ResultCode.MOBILE_ALREADY_EXISTS;
         }
-    }
-
-    /**
-     * 校验邮箱唯一性
-     */
-    private void checkEmailUnique(String email) {
-        if (getByEmail(email) != null) {
-            throw new ServiceException(ResultCode.EMAIL_ALREADY_EXISTS.getCode(), ResultCode.EMAIL_ALREADY_EXISTS.getMessage());
+        if (message.contains("uk_email")) {
+            return ResultCode.EMAIL_ALREADY_EXISTS;
         }
+        return ResultCode.REGISTER_FAILED;
     }
 
     /**
@@ -296,13 +286,13 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     /**
-     * 根据登录类型获取用户
+     * 根据登录类型获取用户及其角色
      */
-    private User getUserByLoginType(LoginDTO loginDTO) {
+    private LoginUser getLoginUser(LoginDTO loginDTO) {
         return switch (loginDTO.getLoginType()) {
-            case "1" -> getByUsername(loginDTO.getAccount());
-            case "2" -> getByMobile(loginDTO.getAccount());
-            case "3" -> getByEmail(loginDTO.getAccount());
+            case "1" -> userMapper.selectLoginUserByUsername(loginDTO.getAccount());
+            case "2" -> userMapper.selectLoginUserByMobile(loginDTO.getAccount());
+            case "3" -> userMapper.selectLoginUserByEmail(loginDTO.getAccount());
             default -> null;
         };
     }
@@ -310,14 +300,18 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     /**
      * 校验登录凭证
      */
-    private void validateCredential(LoginDTO loginDTO, User user) {
+    private void validateCredential(LoginDTO loginDTO, LoginUser user) {
         switch (loginDTO.getLoginType()) {
             case "1", "3" -> {
                 // 用户名密码、邮箱密码登录
-                if (!BCrypt.checkpw(loginDTO.getCredential(), user.getPassword())) {
+                if (!passwordHasher.verify(loginDTO.getCredential(), user.getPassword())) {
                     log.warn("登录失败，密码错误: {}", loginDTO.getAccount());
                     throw new ServiceException(ResultCode.PASSWORD_ERROR.getCode(), ResultCode.PASSWORD_ERROR.getMessage());
                 }
+                // 成本因子调整后，按新成本重新哈希
+                if (passwordHasher.needsRehash(user.getPassword())) {
+                    upgradePasswordHash(user, loginDTO.getCredential());
+                }
             }
             case "2" -> {
                 // 手机号验证码登录
@@ -326,4 +320,17 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             }
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 异步按当前成本因子重新哈希密码
+     * 仅当库中哈希未被修改时才替换，不影响本次登录
+     */
+    private void upgradePasswordHash(LoginUser user, String rawPassword) {
+        String oldHash = user.getPassword();
+        passwordHasher.rehashAsync(rawPassword, newHash -> {
+            if (userMapper.updatePasswordIfUnchanged(user.getId(), oldHash, newHash) > 0) {
+                log.info("用户[{}]密码已按新成本因子重新哈希", user.getUsername());
+            }
+        });
+    }
+}
@@ -17,9 +17,10 @@ CREATE TABLE IF NOT EXISTS `sys_user` (
     `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     `is_deleted` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否删除',
     PRIMARY KEY (`id`),
-    UNIQUE KEY `uk_username` (`username`),
-    UNIQUE KEY `uk_mobile` (`mobile`),
-    UNIQUE KEY `uk_email` (`email`)
+    -- 登录按账号单行定位；注册直接插入，由唯一索引冲突判定账号已存在（索引名用于识别冲突字段，不要修改）
+    UNIQUE KEY `uk_username` (`username`) COMMENT '用户名登录、注册查重',
+    UNIQUE KEY `uk_mobile` (`mobile`) COMMENT '手机号登录、注册查重',
+    UNIQUE KEY `uk_email` (`email`) COMMENT '邮箱登录、注册查重'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户表';
 
 -- OAuth2用户关联表
@@ -24,6 +24,7 @@ CREATE TABLE IF NOT EXISTS `sys_user_role` (
   `user_id` bigint NOT NULL COMMENT '用户ID',
   `role_code` varchar(50) NOT NULL COMMENT '角色编码',
   `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  -- 登录查询按user_id聚合角色编码，主键即覆盖索引，无需回表
   PRIMARY KEY (`user_id`,`role_code`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户角色关系表';
 
@@ -0,0 +1,103 @@
+package com.qianshe.auth.security;
+
+import com.qianshe.auth.config.CaptchaTokenConfig;
+import com.qianshe.auth.security.CaptchaTokenCodec.CaptchaToken;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CaptchaTokenCodec测试
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class CaptchaTokenCodecTest {
+
+    private static final String SECRET = "test-secret";
+
+    @Test
+    void testValidTokenAndAnswer() {
+        CaptchaTokenCodec codec = codec(SECRET, 120);
+        String token = codec.issue("aB3d");
+
+        assertTrue(CaptchaTokenCodec.isToken(token));
+        CaptchaToken verified = codec.verify(token, "aB3d");
+        assertNotNull(verified);
+        assertEquals(token.substring(0, token.indexOf(CaptchaTokenCodec.SEPARATOR)), verified.getId());
+        assertTrue(verified.getRemainingSeconds() > 0 && verified.getRemainingSeconds() <= 120);
+        // 答案大小写不敏感，忽略首尾空白
+        assertNotNull(codec.verify(token, " AB3D "));
+    }
+
+    @Test
+    void testWrongAnswerRejected() {
+        CaptchaTokenCodec codec = codec(SECRET, 120);
+        String token = codec.issue("aB3d");
+
+        assertNull(codec.verify(token, "aB3e"));
+        assertNull(codec.verify(token, ""));
+    }
+
+    @Test
+    void testExpiredTokenRejected() {
+        CaptchaTokenCodec codec = codec(SECRET, 0);
+        String token = codec.issue("aB3d");
+
+        assertNull(codec.verify(token, "aB3d"));
+    }
+
+    @Test
+    void testTamperedExpiryRejected() {
+        CaptchaTokenCodec codec = codec(SECRET, 1);
+        String token = codec.issue("aB3d");
+        int separator = token.indexOf(CaptchaTokenCodec.SEPARATOR);
+
+        // 改写过期时间延长有效期，签名不再匹配
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, separator));
+        ByteBuffer.wrap(payload).putLong(0, ByteBuffer.wrap(payload).getLong() + 3600);
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + token.substring(separator);
+
+        assertNull(codec.verify(tampered, "aB3d"));
+    }
+
+    @Test
+    void testTamperedSignatureRejected() {
+        CaptchaTokenCodec codec = codec(SECRET, 120);
+        String token = codec.issue("aB3d");
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        assertNull(codec.verify(tampered, "aB3d"));
+    }
+
+    @Test
+    void testTokenFromOtherSecretRejected() {
+        String token = codec("other-secret", 120).issue("aB3d");
+
+        assertNull(codec(SECRET, 120).verify(token, "aB3d"));
+    }
+
+    @Test
+    void testMalformedTokenRejected() {
+        CaptchaTokenCodec codec = codec(SECRET, 120);
+
+        assertNull(codec.verify("abc.def", "aB3d"));
+        assertNull(codec.verify("!!!.###", "aB3d"));
+        assertNull(codec.verify(".", "aB3d"));
+        assertFalse(CaptchaTokenCodec.isToken("550e8400-e29b-41d4-a716-446655440000"));
+    }
+
+    private static CaptchaTokenCodec codec(String secret, long expireSeconds) {
+        CaptchaTokenConfig config = new CaptchaTokenConfig();
+        config.setEnabled(true);
+        config.setSecret(secret);
+        config.setExpireSeconds(expireSeconds);
+        CaptchaTokenCodec codec = new CaptchaTokenCodec(config);
+        codec.init();
+        return codec;
+    }
+}
@@ -0,0 +1,152 @@
+package com.qianshe.auth.security;
+
+import com.qianshe.auth.config.PasswordHashConfig;
+import com.qianshe.auth.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PasswordHasher准入与超时测试
+ * 单线程线程池，通过阻塞重新哈希的保存回调占住哈希线程
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class PasswordHasherTest {
+
+    private PasswordHashConfig config;
+    private PasswordHasher passwordHasher;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        config = new PasswordHashConfig();
+        config.setCost(4);
+        config.setThreads(1);
+        config.setQueueCapacity(1);
+        config.setTimeoutMillis(5000);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (passwordHasher != null) {
+            passwordHasher.destroy();
+        }
+    }
+
+    @Test
+    void testHashAndVerify() {
+        start();
+        String hashed = passwordHasher.hash("secret");
+
+        assertTrue(passwordHasher.verify("secret", hashed));
+        assertFalse(passwordHasher.verify("wrong", hashed));
+        assertFalse(passwordHasher.needsRehash(hashed));
+    }
+
+    @Test
+    void testCostOf() {
+        assertEquals(10, PasswordHasher.costOf("$2a$10$abcdefghijklmnopqrstuv"));
+        assertEquals(4, PasswordHasher.costOf("$2$04$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, PasswordHasher.costOf("plain"));
+        assertEquals(-1, PasswordHasher.costOf(null));
+    }
+
+    @Test
+    void testRejectedWhenQueueFull() throws Exception {
+        start();
+        occupyWorker();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHasher.hash("secret"));
+        awaitQueueDepth(1);
+
+        assertThrows(ServiceBusyException.class, () -> passwordHasher.hash("secret"));
+
+        // 已排队的请求在线程空闲后正常完成
+        release.countDown();
+        assertTrue(passwordHasher.verify("secret", queued.get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void testTimeoutRemovesQueuedTask() throws Exception {
+        config.setTimeoutMillis(50);
+        start();
+        occupyWorker();
+
+        assertThrows(ServiceBusyException.class, () -> passwordHasher.hash("secret"));
+        // 超时的任务已移出队列，不再占用排队名额
+        assertEquals(0, passwordHasher.getQueueDepth());
+    }
+
+    @Test
+    void testRehashSkippedWhenQueueNotEmpty() throws Exception {
+        config.setQueueCapacity(4);
+        start();
+        occupyWorker();
+        AtomicInteger stored = new AtomicInteger();
+
+        // 第一个重新哈希排队后，后续重新哈希直接跳过，不再占用登录请求的排队名额
+        passwordHasher.rehashAsync("secret", hashed -> stored.incrementAndGet());
+        passwordHasher.rehashAsync("secret", hashed -> stored.incrementAndGet());
+        assertEquals(1, passwordHasher.getQueueDepth());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (passwordHasher.getQueueDepth() > 0 || stored.get() == 0) {
+            assertTrue(System.nanoTime() < deadline, "等待重新哈希完成超时");
+            Thread.sleep(5);
+        }
+        passwordHasher.hash("secret");
+        assertEquals(1, stored.get());
+    }
+
+    @Test
+    void testRehashStoresNewHash() throws Exception {
+        start();
+        CompletableFuture<String> stored = new CompletableFuture<>();
+
+        passwordHasher.rehashAsync("secret", stored::complete);
+
+        String hashed = stored.get(5, TimeUnit.SECONDS);
+        assertEquals(4, PasswordHasher.costOf(hashed));
+        assertTrue(passwordHasher.verify("secret", hashed));
+    }
+
+    private void start() {
+        passwordHasher = new PasswordHasher(config);
+        passwordHasher.init();
+    }
+
+    /**
+     * 提交一个保存回调阻塞的重新哈希任务，占住唯一的哈希线程
+     */
+    private void occupyWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        passwordHasher.rehashAsync("secret", hashed -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (passwordHasher.getQueueDepth() < depth) {
+            assertTrue(System.nanoTime() < deadline, "等待任务入队超时");
+            Thread.sleep(5);
+        }
+    }
+}
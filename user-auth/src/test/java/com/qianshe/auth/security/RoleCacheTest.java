@@ -0,0 +1,155 @@
+package com.qianshe.auth.security;
+
+import com.qianshe.auth.config.RoleCacheConfig;
+import com.qianshe.auth.mapper.RoleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * RoleCache版本号失效与本地缓存启用测试
+ * 不调用init，订阅确认和频道消息直接调用对应回调模拟
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class RoleCacheTest {
+
+    private static final Long USER_ID = 42L;
+    private static final String VERSION_KEY = "auth:user-roles:version:42";
+    private static final String ROLES_KEY = "auth:user-roles:42";
+
+    private RoleCacheConfig config;
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private RoleCache roleCache;
+    private AtomicInteger loads;
+    private Function<Long, List<String>> loader;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        config = new RoleCacheConfig();
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        roleCache = new RoleCache(config, mock(RoleMapper.class), redisTemplate, mock(RedisConnectionFactory.class));
+        loads = new AtomicInteger();
+        loader = userId -> {
+            loads.incrementAndGet();
+            return List.of("user", "vip");
+        };
+    }
+
+    @Test
+    void testRedisEntryWithCurrentVersionIsUsed() {
+        when(valueOperations.multiGet(anyList())).thenReturn(List.of("3", "3|user,admin"));
+
+        assertEquals(List.of("user", "admin"), roleCache.getUserRoles(USER_ID, loader));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void testRedisEntryWithStaleVersionIsReloaded() {
+        when(valueOperations.multiGet(anyList())).thenReturn(List.of("4", "3|user,admin"));
+
+        assertEquals(List.of("user", "vip"), roleCache.getUserRoles(USER_ID, loader));
+        assertEquals(1, loads.get());
+        // 以读取时的版本号写回
+        verify(valueOperations).set(ROLES_KEY, "4|user,vip", config.getRedisTtl(), TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testMissingVersionKeyTreatedAsZero() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+
+        roleCache.getUserRoles(USER_ID, loader);
+
+        verify(valueOperations).set(ROLES_KEY, "0|user,vip", config.getRedisTtl(), TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testInvalidateBumpsVersionWithTtlLongerThanRoles() {
+        roleCache.invalidateUser(USER_ID);
+
+        verify(valueOperations).increment(VERSION_KEY);
+        verify(redisTemplate).expire(VERSION_KEY, config.getRedisTtl() * 2, TimeUnit.SECONDS);
+        verify(redisTemplate).delete(ROLES_KEY);
+        verify(redisTemplate).convertAndSend("auth:user-roles:invalidate", "42");
+    }
+
+    @Test
+    void testLocalTierDisabledUntilSubscribed() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+
+        roleCache.getUserRoles(USER_ID, loader);
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(2, loads.get());
+
+        roleCache.onSubscribed();
+        roleCache.getUserRoles(USER_ID, loader);
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testInvalidationMessageEvictsLocalEntry() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+        roleCache.onSubscribed();
+        roleCache.getUserRoles(USER_ID, loader);
+
+        roleCache.onMessage("heartbeat");
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(1, loads.get());
+
+        roleCache.onMessage("42");
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testUnsubscribeClearsAndDisablesLocalTier() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+        roleCache.onSubscribed();
+        roleCache.getUserRoles(USER_ID, loader);
+
+        roleCache.onUnsubscribed();
+        roleCache.getUserRoles(USER_ID, loader);
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testHeartbeatTimeoutDisablesLocalTier() throws InterruptedException {
+        config.setHeartbeatInterval(20);
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+        roleCache.onSubscribed();
+        roleCache.getUserRoles(USER_ID, loader);
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(1, loads.get());
+
+        // 超过三个心跳间隔没有收到任何消息
+        Thread.sleep(100);
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(2, loads.get());
+
+        // 恢复收到消息后先清空本地缓存，断开期间缓存的角色不再使用
+        roleCache.onMessage("heartbeat");
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(3, loads.get());
+        roleCache.getUserRoles(USER_ID, loader);
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,98 @@
+package com.qianshe.auth.service.impl;
+
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.StpLogic;
+import com.qianshe.auth.listener.TokenInvalidationNotifier;
+import com.qianshe.auth.mapper.RoleMapper;
+import com.qianshe.auth.security.RoleCache;
+import com.qianshe.common.constants.CommonConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * RoleServiceImpl角色变更后会话刷新测试
+ * 没有活动事务时刷新立即执行
+ *
+ * @author qianshe
+ * @since 1.0.0
+ */
+class RoleServiceImplTest {
+
+    private static final Long USER_ID = 42L;
+
+    private RoleMapper roleMapper;
+    private TokenInvalidationNotifier notifier;
+    private RoleCache roleCache;
+    private StpLogic userStpLogic;
+    private StpLogic adminStpLogic;
+    private StpLogic vipStpLogic;
+    private RoleServiceImpl roleService;
+
+    @BeforeEach
+    void setUp() {
+        roleMapper = mock(RoleMapper.class);
+        notifier = mock(TokenInvalidationNotifier.class);
+        roleCache = mock(RoleCache.class);
+        userStpLogic = mock(StpLogic.class);
+        adminStpLogic = mock(StpLogic.class);
+        vipStpLogic = mock(StpLogic.class);
+        when(roleCache.roleExists(any())).thenReturn(true);
+        roleService = new RoleServiceImpl(roleMapper, notifier, roleCache, userStpLogic, adminStpLogic, vipStpLogic);
+    }
+
+    @Test
+    void testRolesRewrittenInEveryTokenSessionBeforePublish() {
+        SaSession session = mock(SaSession.class);
+        SaSession tokenSession1 = mock(SaSession.class);
+        SaSession tokenSession2 = mock(SaSession.class);
+        List<String> roles = List.of("user", "vip");
+        when(userStpLogic.getSessionByLoginId(USER_ID, false)).thenReturn(session);
+        when(userStpLogic.getTokenValueListByLoginId(USER_ID)).thenReturn(List.of("t1", "t2"));
+        when(userStpLogic.getTokenSessionByToken("t1", false)).thenReturn(tokenSession1);
+        when(userStpLogic.getTokenSessionByToken("t2", false)).thenReturn(tokenSession2);
+        when(roleMapper.selectUserRoles(USER_ID)).thenReturn(roles);
+
+        roleService.assignUserRole(USER_ID, "vip");
+
+        var order = inOrder(tokenSession1, tokenSession2, notifier);
+        order.verify(tokenSession1).set(CommonConstants.Token.SESSION_ROLES, roles);
+        order.verify(tokenSession2).set(CommonConstants.Token.SESSION_ROLES, roles);
+        order.verify(notifier).publishLogin(USER_ID);
+        verify(session).set(CommonConstants.Token.SESSION_ROLES, roles);
+        verify(roleCache).invalidateUser(USER_ID);
+    }
+
+    @Test
+    void testNoPublishWhenRewriteFails() {
+        SaSession session = mock(SaSession.class);
+        when(adminStpLogic.getSessionByLoginId(USER_ID, false)).thenReturn(session);
+        when(adminStpLogic.getTokenValueListByLoginId(USER_ID)).thenThrow(new IllegalStateException("redis down"));
+        when(roleMapper.selectUserRoles(USER_ID)).thenReturn(List.of("admin"));
+
+        roleService.removeUserRole(USER_ID, "vip");
+
+        verify(notifier, never()).publishLogin(any());
+    }
+
+    @Test
+    void testNoSessionsSkipsRoleQueryAndPublish() {
+        roleService.assignUserRole(USER_ID, "vip");
+
+        verify(roleMapper, never()).selectUserRoles(anyLong());
+        verify(notifier, never()).publishLogin(any());
+    }
+
+    @Test
+    void testDefaultRoleAssignmentSkipsCacheAndSessions() {
+        roleService.assignDefaultRole(USER_ID, "vip");
+
+        verify(roleMapper).insertUserRole(USER_ID, "vip");
+        verifyNoInteractions(roleCache, notifier, userStpLogic, adminStpLogic, vipStpLogic);
+    }
+}